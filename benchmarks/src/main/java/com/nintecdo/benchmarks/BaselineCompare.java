@@ -0,0 +1,140 @@
+package com.nintecdo.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compara dos resultados de JMH en JSON ({@code -rf json}) y avisa de las
+ * regresiones de tiempo y de memoria asignada por operación.
+ *
+ * Uso: {@code BaselineCompare <baseline.json> <actual.json> [umbral]}, con
+ * el umbral como fracción (0.10 por defecto). Termina con código 1 si algún
+ * benchmark empeora más que el umbral, para poder usarlo en CI.
+ */
+public class BaselineCompare {
+    private static final double DEFAULT_THRESHOLD = 0.10;
+    // Por debajo de esto las diferencias de asignación son ruido de JMH
+    private static final double ALLOC_SLACK_BYTES = 16;
+
+    private static final class Result {
+        final String mode;
+        final double score;
+        final String unit;
+        final double allocPerOp;
+
+        Result(String mode, double score, String unit, double allocPerOp) {
+            this.mode = mode;
+            this.score = score;
+            this.unit = unit;
+            this.allocPerOp = allocPerOp;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: BaselineCompare <baseline.json> <actual.json> [umbral]");
+            System.exit(2);
+        }
+
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+        Map<String, Result> baseline = read(Path.of(args[0]));
+        Map<String, Result> current = read(Path.of(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result after = entry.getValue();
+            Result before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.println("  nuevo  " + entry.getKey());
+                continue;
+            }
+
+            // En modo throughput más es mejor; en el resto, menos
+            double change = after.score / before.score - 1;
+            boolean slower = after.mode.equals("thrpt") ? change < -threshold : change > threshold;
+
+            boolean allocates = !Double.isNaN(after.allocPerOp) && !Double.isNaN(before.allocPerOp)
+                    && after.allocPerOp > before.allocPerOp * (1 + threshold) + ALLOC_SLACK_BYTES;
+
+            String mark = slower || allocates ? "✗" : "✓";
+            if (slower || allocates) {
+                regressions++;
+            }
+
+            System.out.printf("%s %-70s %12.3f → %12.3f %-6s (%+6.1f%%)",
+                    mark, entry.getKey(), before.score, after.score, after.unit, change * 100);
+            if (!Double.isNaN(after.allocPerOp)) {
+                System.out.printf("  %10.0f → %10.0f B/op", before.allocPerOp, after.allocPerOp);
+            }
+            System.out.println();
+        }
+
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.println("  falta  " + key);
+            }
+        }
+
+        if (regressions > 0) {
+            System.err.println("✗ " + regressions + " regresiones por encima del " +
+                    Math.round(threshold * 100) + "%");
+            System.exit(1);
+        }
+        System.out.println("✓ Sin regresiones por encima del " + Math.round(threshold * 100) + "%");
+    }
+
+    private static Map<String, Result> read(Path file) throws IOException {
+        JsonArray runs;
+        try (Reader reader = Files.newBufferedReader(file)) {
+            runs = JsonParser.parseReader(reader).getAsJsonArray();
+        }
+
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (JsonElement element : runs) {
+            JsonObject run = element.getAsJsonObject();
+            JsonObject primary = run.getAsJsonObject("primaryMetric");
+
+            double alloc = Double.NaN;
+            JsonObject secondary = run.getAsJsonObject("secondaryMetrics");
+            if (secondary != null) {
+                for (Map.Entry<String, JsonElement> metric : secondary.entrySet()) {
+                    // JMH antiguos anteponen "·" al nombre de la métrica
+                    if (metric.getKey().endsWith("gc.alloc.rate.norm")) {
+                        alloc = metric.getValue().getAsJsonObject().get("score").getAsDouble();
+                    }
+                }
+            }
+
+            results.put(key(run), new Result(
+                    run.get("mode").getAsString(),
+                    primary.get("score").getAsDouble(),
+                    primary.get("scoreUnit").getAsString(),
+                    alloc));
+        }
+        return results;
+    }
+
+    private static String key(JsonObject run) {
+        String benchmark = run.get("benchmark").getAsString();
+        String name = benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1);
+
+        JsonObject params = run.getAsJsonObject("params");
+        if (params == null) {
+            return name;
+        }
+
+        Map<String, String> sorted = new TreeMap<>();
+        params.entrySet().forEach(p -> sorted.put(p.getKey(), p.getValue().getAsString()));
+        return name + sorted;
+    }
+}
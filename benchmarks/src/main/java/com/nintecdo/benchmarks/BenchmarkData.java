@@ -0,0 +1,112 @@
+package com.nintecdo.benchmarks;
+
+import com.nintecdo.persistence.PragmaProfile;
+import com.nintecdo.persistence.StatsRepository;
+import com.nintecdo.persistence.TransferFormat;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+/**
+ * Datos de prueba compartidos por los benchmarks.
+ *
+ * Las bases de datos de estadísticas se generan una vez por tamaño en
+ * {@code target/bench-data} (o en la propiedad {@code nintecdo.bench.data})
+ * y cada trial trabaja sobre una copia, así que saveStats no ensucia la
+ * siguiente ejecución.
+ */
+final class BenchmarkData {
+    static final int GAMES = 10;
+
+    private static final Path DATA_DIR =
+            Path.of(System.getProperty("nintecdo.bench.data", "target/bench-data"));
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private BenchmarkData() {
+    }
+
+    static String gameName(int i) {
+        return "Game" + (i % GAMES);
+    }
+
+    /**
+     * @param rows partidas repartidas entre {@value #GAMES} juegos
+     * @return copia nueva de la base de datos con ese tamaño
+     */
+    static Path copyOfStatsDb(int rows) throws IOException, SQLException {
+        Files.createDirectories(DATA_DIR);
+        Path template = DATA_DIR.resolve("stats-" + rows + ".db");
+        if (!Files.exists(template)) {
+            generate(template, rows);
+        }
+
+        Path copy = Files.createTempFile(DATA_DIR, "trial-", ".db");
+        Files.copy(template, copy, StandardCopyOption.REPLACE_EXISTING);
+        return copy;
+    }
+
+    /**
+     * Borra una base de datos y sus archivos WAL.
+     */
+    static void deleteDb(Path db) throws IOException {
+        Files.deleteIfExists(db);
+        Files.deleteIfExists(Path.of(db + "-wal"));
+        Files.deleteIfExists(Path.of(db + "-shm"));
+    }
+
+    /**
+     * Los métodos medidos escriben por consola en cada llamada; en el JVM
+     * del benchmark se descarta para no inundar la salida de JMH. El texto
+     * se sigue construyendo, así que su coste entra en la medida.
+     */
+    static void silenceStdout() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    private static void generate(Path template, int rows) throws IOException, SQLException {
+        Path tmp = DATA_DIR.resolve("stats-" + rows + ".tmp.db");
+        Path csv = DATA_DIR.resolve("stats-" + rows + ".csv");
+        deleteDb(tmp);
+
+        // Mismos datos en cada máquina: semilla fija, fechas del último año
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        try (BufferedWriter writer = Files.newBufferedWriter(csv)) {
+            writer.write("kind,game,value,date\n");
+            for (int i = 0; i < GAMES; i++) {
+                writer.write("game," + gameName(i) + ",,\n");
+            }
+            for (int i = 0; i < rows; i++) {
+                String date = now.minusSeconds(random.nextInt(365 * 86_400)).format(DATE_FORMAT);
+                writer.write("stat," + gameName(i) + "," + random.nextInt(100_000) + "," + date + "\n");
+            }
+        }
+
+        PrintStream out = System.out;
+        silenceStdout();
+        try (StatsRepository repository = new StatsRepository(
+                "jdbc:sqlite:" + tmp, PragmaProfile.FAST);
+             InputStream in = Files.newInputStream(csv)) {
+            repository.init();
+            repository.importStats(in, TransferFormat.CSV);
+        } finally {
+            System.setOut(out);
+            Files.deleteIfExists(csv);
+        }
+
+        Files.move(tmp, template, StandardCopyOption.REPLACE_EXISTING);
+        deleteDb(tmp);
+    }
+}
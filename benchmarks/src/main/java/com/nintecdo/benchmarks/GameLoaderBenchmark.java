@@ -0,0 +1,72 @@
+package com.nintecdo.benchmarks;
+
+import com.nintecdo.loader.GameLoader;
+import com.nintecdo.persistence.InMemoryStatsStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * GameLoader.loadGame sobre un JAR sintético: abrir el JAR, leer
+ * manifest.properties, cargar e instanciar la clase del juego y registrarla.
+ *
+ * Cada llamada crea un URLClassLoader nuevo, igual que al importar un juego
+ * desde la interfaz, así que la clase del juego se define cada vez.
+ * {@code fillerClasses} añade clases al JAR que el cargador no necesita,
+ * para ver cuánto cuesta un índice de JAR más grande.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameLoaderBenchmark {
+
+    @Param({"0", "500"})
+    public int fillerClasses;
+
+    private Path dir;
+    private File jar;
+    private InMemoryStatsStore store;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("nintecdo-loader-bench");
+        jar = SyntheticPlugins.buildGameJar(dir, "SyntheticGame", fillerClasses).toFile();
+        BenchmarkData.silenceStdout();
+
+        store = new InMemoryStatsStore();
+        store.init();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        store.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void loadGame() throws Exception {
+        GameLoader.loadGame(jar, store);
+    }
+}
@@ -0,0 +1,124 @@
+package com.nintecdo.benchmarks;
+
+import com.nintecdo.core.GameStats;
+import com.nintecdo.core.IGame;
+import com.nintecdo.core.IGameListener;
+import com.nintecdo.manager.GameManager;
+import javafx.scene.layout.Pane;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GameManager.startGame y el reparto de onGameFinished a los listeners.
+ *
+ * El juego es un IGame mínimo sin interfaz gráfica, así que se mide solo
+ * el trabajo del gestor: buscar el juego, registrar los listeners y
+ * avisarles al terminar la partida.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameManagerBenchmark {
+    private static final String GAME = "BenchGame";
+
+    @Param({"1", "10", "100"})
+    public int listeners;
+
+    private final BenchGame game = new BenchGame();
+    private final GameStats stats = new GameStats(GAME, Map.of("score", 1234.0));
+    private long finished;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkData.silenceStdout();
+
+        GameManager manager = GameManager.getInstance();
+        manager.registerGame(GAME, game);
+        for (int i = 0; i < listeners; i++) {
+            manager.addGameListener(s -> finished++);
+        }
+    }
+
+    @Benchmark
+    public Pane startGame() throws Exception {
+        return GameManager.getInstance().startGame(GAME);
+    }
+
+    @Benchmark
+    public long startAndFinish() throws Exception {
+        GameManager.getInstance().startGame(GAME);
+        game.finish(stats);
+        return finished;
+    }
+
+    /**
+     * Juego sin ventana. Guarda los listeners en un conjunto para no
+     * acumular repetidos, porque startGame se los vuelve a pasar en cada
+     * partida.
+     */
+    static final class BenchGame implements IGame {
+        private final Set<IGameListener> gameListeners = new LinkedHashSet<>();
+
+        void finish(GameStats stats) {
+            for (IGameListener listener : gameListeners) {
+                listener.onGameFinished(stats);
+            }
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public String getName() {
+            return GAME;
+        }
+
+        @Override
+        public String getVersion() {
+            return "1.0";
+        }
+
+        @Override
+        public Map<String, Object> getStats() {
+            return Map.of();
+        }
+
+        @Override
+        public void addGameListener(IGameListener listener) {
+            gameListeners.add(listener);
+        }
+
+        @Override
+        public void removeGameListener(IGameListener listener) {
+            gameListeners.remove(listener);
+        }
+
+        @Override
+        public Pane getGamePanel() {
+            return null;
+        }
+    }
+}
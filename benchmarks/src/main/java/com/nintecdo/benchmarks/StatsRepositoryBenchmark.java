@@ -0,0 +1,81 @@
+package com.nintecdo.benchmarks;
+
+import com.nintecdo.core.GameStats;
+import com.nintecdo.persistence.PragmaProfile;
+import com.nintecdo.persistence.StatsRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * saveStats, getTop3 y getTop3AllGames sobre stats.db de distintos tamaños.
+ *
+ * Con {@code cached=false} la caché de rankings guarda una sola posición,
+ * así que getTop3 no cabe y siempre va a SQLite; con true se mide lo que
+ * ve la interfaz (aciertos de LeaderboardCache).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatsRepositoryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"true", "false"})
+    public boolean cached;
+
+    private Path db;
+    private StatsRepository repository;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        db = BenchmarkData.copyOfStatsDb(rows);
+        BenchmarkData.silenceStdout();
+
+        repository = new StatsRepository("jdbc:sqlite:" + db, PragmaProfile.BALANCED,
+                cached ? 10 : 1);
+        repository.init();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        repository.close();
+        BenchmarkData.deleteDb(db);
+    }
+
+    @Benchmark
+    public void saveStats() throws Exception {
+        int i = next++;
+        repository.saveStats(BenchmarkData.gameName(i), Map.<String, Object>of("score", (double) (i % 100_000)));
+    }
+
+    @Benchmark
+    public List<GameStats> getTop3() throws Exception {
+        return repository.getTop3(BenchmarkData.gameName(next++));
+    }
+
+    @Benchmark
+    public Map<String, List<GameStats>> getTop3AllGames() throws Exception {
+        return repository.getTop3AllGames();
+    }
+}
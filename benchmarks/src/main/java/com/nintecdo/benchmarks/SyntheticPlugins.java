@@ -0,0 +1,111 @@
+package com.nintecdo.benchmarks;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+/**
+ * Genera JARs de juegos como los que carga GameLoader: una clase IGame,
+ * manifest.properties y, opcionalmente, clases de relleno para simular
+ * plugins grandes.
+ *
+ * Las clases se compilan al preparar el benchmark con el compilador del
+ * JDK, contra el classpath del propio benchmark.
+ */
+final class SyntheticPlugins {
+    static final String GAME_CLASS = "bench.plugin.SyntheticGame";
+
+    private static final String GAME_SOURCE = """
+            package bench.plugin;
+
+            import com.nintecdo.core.IGame;
+            import com.nintecdo.core.IGameListener;
+            import javafx.scene.layout.Pane;
+
+            import java.util.ArrayList;
+            import java.util.List;
+            import java.util.Map;
+
+            public class SyntheticGame implements IGame {
+                private final List<IGameListener> listeners = new ArrayList<>();
+
+                public void start() {}
+                public void stop() {}
+                public String getName() { return "SyntheticGame"; }
+                public String getVersion() { return "1.0"; }
+                public Map<String, Object> getStats() { return Map.of(); }
+                public void addGameListener(IGameListener listener) { listeners.add(listener); }
+                public void removeGameListener(IGameListener listener) { listeners.remove(listener); }
+                public Pane getGamePanel() { return null; }
+            }
+            """;
+
+    private SyntheticPlugins() {
+    }
+
+    /**
+     * @param dir directorio de trabajo (se crea si no existe)
+     * @param title game.title del manifest
+     * @param fillerClasses clases extra empaquetadas junto al juego
+     * @return JAR generado en dir
+     */
+    static Path buildGameJar(Path dir, String title, int fillerClasses) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("Hace falta un JDK (no un JRE) para generar los plugins");
+        }
+
+        Path sources = dir.resolve("src/bench/plugin");
+        Path classes = dir.resolve("classes");
+        Files.createDirectories(sources);
+        Files.createDirectories(classes);
+
+        List<String> args = new ArrayList<>(List.of(
+                "-d", classes.toString(),
+                "-cp", System.getProperty("java.class.path"),
+                "-nowarn"
+        ));
+
+        Path game = sources.resolve("SyntheticGame.java");
+        Files.writeString(game, GAME_SOURCE);
+        args.add(game.toString());
+
+        for (int i = 0; i < fillerClasses; i++) {
+            Path filler = sources.resolve("Filler" + i + ".java");
+            Files.writeString(filler, "package bench.plugin;\n" +
+                    "class Filler" + i + " {\n" +
+                    "    int value(int x) { return x * " + i + " + " + (i * 31) + "; }\n" +
+                    "}\n");
+            args.add(filler.toString());
+        }
+
+        if (compiler.run(null, null, null, args.toArray(new String[0])) != 0) {
+            throw new IOException("No se pudo compilar el plugin sintético en " + dir);
+        }
+
+        Path jar = dir.resolve(title + ".jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar));
+             Stream<Path> files = Files.walk(classes)) {
+            out.putNextEntry(new JarEntry("manifest.properties"));
+            out.write(("game.class=" + GAME_CLASS + "\n" +
+                    "game.title=" + title + "\n").getBytes());
+            out.closeEntry();
+
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                String name = classes.relativize(file).toString().replace('\\', '/');
+                out.putNextEntry(new JarEntry(name));
+                Files.copy(file, (OutputStream) out);
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+}
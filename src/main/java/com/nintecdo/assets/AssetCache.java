@@ -0,0 +1,319 @@
+package com.nintecdo.assets;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caché de recursos de los juegos, compartida por toda la plataforma.
+ *
+ * La clave es el tipo de recurso más el SHA-256 del contenido: dos juegos,
+ * o dos rutas, con el mismo archivo comparten una sola copia decodificada.
+ * Los recursos se guardan en un LRU limitado por bytes; los que salen de
+ * él pasan a referencias blandas, que el GC libera cuando le falta
+ * memoria, y vuelven al LRU si se piden antes.
+ *
+ * Cada juego usa la caché a través de su {@link GameAssets}. El tamaño del
+ * LRU se puede fijar en MB con la propiedad de sistema
+ * {@value #MAX_MB_PROPERTY}.
+ */
+public class AssetCache {
+    public static final String MAX_MB_PROPERTY = "nintecdo.assets.cache.mb";
+    private static final long DEFAULT_MAX_MB = 64;
+
+    private static final AtomicInteger LOADER_THREAD_IDS = new AtomicInteger();
+    private static AssetCache instance;
+
+    /**
+     * Recurso decodificado y lo que ocupa en memoria (aproximado).
+     */
+    static final class CachedAsset {
+        final String key;
+        final Object value;
+        final long size;
+
+        CachedAsset(String key, Object value, long size) {
+            this.key = key;
+            this.value = value;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Referencia blanda que recuerda su clave, para quitarla del mapa
+     * cuando el GC la libera.
+     */
+    private static final class OverflowRef extends SoftReference<CachedAsset> {
+        final String key;
+
+        OverflowRef(CachedAsset asset, ReferenceQueue<CachedAsset> queue) {
+            super(asset, queue);
+            this.key = asset.key;
+        }
+    }
+
+    private final long maxBytes;
+    private final ExecutorService executor;
+    private final Set<GameAssets> games = ConcurrentHashMap.newKeySet();
+
+    // Protegido por this
+    private final LinkedHashMap<String, CachedAsset> lru = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, OverflowRef> overflow = new HashMap<>();
+    private final ReferenceQueue<CachedAsset> cleared = new ReferenceQueue<>();
+    private final Map<String, CompletableFuture<CachedAsset>> decoding = new HashMap<>();
+    private long heldBytes;
+    private long hits;
+    private long softHits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maxBytes bytes que se retienen en el LRU
+     */
+    public AssetCache(long maxBytes) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("El tamaño de la caché de recursos debe ser >= 1");
+        }
+        this.maxBytes = maxBytes;
+
+        int threads = Math.max(2, Math.min(Runtime.getRuntime().availableProcessors(), 4));
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable,
+                    "asset-loader-" + LOADER_THREAD_IDS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return caché de la plataforma, con el tamaño de {@link #MAX_MB_PROPERTY}
+     */
+    public static synchronized AssetCache getInstance() {
+        if (instance == null) {
+            instance = new AssetCache(maxBytesFromSystemProperty());
+        }
+        return instance;
+    }
+
+    private static long maxBytesFromSystemProperty() {
+        String value = System.getProperty(MAX_MB_PROPERTY);
+        if (value != null && !value.isBlank()) {
+            try {
+                return Math.max(1, Long.parseLong(value.trim())) * 1024 * 1024;
+            } catch (NumberFormatException e) {
+                System.err.println("Tamaño de caché de recursos no válido: " + value);
+            }
+        }
+        return DEFAULT_MAX_MB * 1024 * 1024;
+    }
+
+    /**
+     * Crea el servicio de recursos de un juego. Hay que llamar a
+     * {@link GameAssets#release()} al descargar el juego.
+     *
+     * @param gameName nombre del juego, para el informe
+     * @param classLoader loader del JAR del juego
+     * @return servicio de recursos del juego
+     */
+    public GameAssets forGame(String gameName, ClassLoader classLoader) {
+        GameAssets assets = new GameAssets(this, gameName, classLoader);
+        games.add(assets);
+        return assets;
+    }
+
+    void release(GameAssets assets) {
+        games.remove(assets);
+    }
+
+    Executor executor() {
+        return executor;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Busca un recurso ya decodificado. Solo cuenta los aciertos: si no
+     * está, el llamador lee el contenido y pasa por {@link #getOrDecode}.
+     *
+     * @return recurso, o null si no está en la caché
+     */
+    synchronized CachedAsset lookup(GameAssets requester, String key) {
+        CachedAsset cached = find(key);
+        if (cached != null) {
+            hits++;
+            requester.countHit();
+        }
+        return cached;
+    }
+
+    /**
+     * Devuelve el recurso de la caché o lo decodifica en el hilo actual. Si
+     * otro hilo ya está decodificando el mismo contenido, se espera a ese.
+     *
+     * @param requester juego que lo pide, para sus contadores
+     * @param key clave de {@link AssetKind#key}
+     * @param content contenido leído del JAR
+     * @param kind tipo de recurso
+     * @return recurso; falla con IOException si no se puede decodificar
+     */
+    CompletableFuture<CachedAsset> getOrDecode(GameAssets requester, String key,
+                                               byte[] content, AssetKind kind) {
+        CompletableFuture<CachedAsset> result;
+        synchronized (this) {
+            CachedAsset cached = find(key);
+            if (cached != null) {
+                hits++;
+                requester.countHit();
+                return CompletableFuture.completedFuture(cached);
+            }
+
+            CompletableFuture<CachedAsset> inProgress = decoding.get(key);
+            if (inProgress != null) {
+                hits++;
+                requester.countHit();
+                return inProgress;
+            }
+
+            misses++;
+            requester.countMiss();
+            result = new CompletableFuture<>();
+            decoding.put(key, result);
+        }
+
+        try {
+            CachedAsset asset = kind.decode(key, content);
+            synchronized (this) {
+                put(asset);
+                decoding.remove(key);
+            }
+            result.complete(asset);
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                decoding.remove(key);
+            }
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * @return recurso del LRU o de las referencias blandas (que vuelve al LRU)
+     */
+    private CachedAsset find(String key) {
+        CachedAsset cached = lru.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        purgeCleared();
+        OverflowRef ref = overflow.remove(key);
+        cached = ref != null ? ref.get() : null;
+        if (cached != null) {
+            softHits++;
+            put(cached);
+        }
+        return cached;
+    }
+
+    private void put(CachedAsset asset) {
+        // Más grande que todo el LRU: solo se guarda como referencia blanda
+        if (asset.size > maxBytes) {
+            overflow.put(asset.key, new OverflowRef(asset, cleared));
+            return;
+        }
+
+        CachedAsset previous = lru.put(asset.key, asset);
+        if (previous != null) {
+            heldBytes -= previous.size;
+        }
+        heldBytes += asset.size;
+
+        Iterator<CachedAsset> eldest = lru.values().iterator();
+        while (heldBytes > maxBytes && eldest.hasNext()) {
+            CachedAsset evicted = eldest.next();
+            eldest.remove();
+            heldBytes -= evicted.size;
+            overflow.put(evicted.key, new OverflowRef(evicted, cleared));
+            evictions++;
+        }
+    }
+
+    private void purgeCleared() {
+        Reference<? extends CachedAsset> ref;
+        while ((ref = cleared.poll()) != null) {
+            OverflowRef overflowRef = (OverflowRef) ref;
+            overflow.remove(overflowRef.key, overflowRef);
+        }
+    }
+
+    /**
+     * Toma una foto de los contadores y de la memoria de cada juego. No
+     * cambia el orden del LRU.
+     */
+    public AssetCacheReport report() {
+        List<GameAssets> snapshot = new ArrayList<>(games);
+
+        synchronized (this) {
+            purgeCleared();
+
+            Map<String, Long> sizes = new HashMap<>();
+            for (CachedAsset asset : lru.values()) {
+                sizes.put(asset.key, asset.size);
+            }
+            long softBytes = 0;
+            for (OverflowRef ref : overflow.values()) {
+                CachedAsset asset = ref.get();
+                if (asset != null) {
+                    sizes.put(asset.key, asset.size);
+                    softBytes += asset.size;
+                }
+            }
+
+            // Recursos que usa más de un juego
+            Map<String, Integer> users = new HashMap<>();
+            for (GameAssets game : snapshot) {
+                for (String key : game.keys()) {
+                    users.merge(key, 1, Integer::sum);
+                }
+            }
+
+            List<AssetCacheReport.Entry> entries = new ArrayList<>();
+            for (GameAssets game : snapshot) {
+                int assets = 0;
+                long bytes = 0;
+                long sharedBytes = 0;
+                for (String key : game.keys()) {
+                    Long size = sizes.get(key);
+                    if (size != null) {
+                        assets++;
+                        bytes += size;
+                        if (users.get(key) > 1) {
+                            sharedBytes += size;
+                        }
+                    }
+                }
+                entries.add(new AssetCacheReport.Entry(game.getGameName(), assets, bytes,
+                        sharedBytes, game.getHits(), game.getMisses()));
+            }
+
+            return new AssetCacheReport(entries, lru.size(), heldBytes, overflow.size(),
+                    softBytes, maxBytes, hits, softHits, misses, evictions);
+        }
+    }
+}
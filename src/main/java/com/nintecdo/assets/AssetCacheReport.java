@@ -0,0 +1,165 @@
+package com.nintecdo.assets;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Aciertos de la {@link AssetCache} y memoria de recursos de cada juego.
+ *
+ * La memoria de un juego es la de los recursos que ha pedido y que siguen
+ * en la caché (en el LRU o como referencia blanda aún no liberada). Los
+ * recursos compartidos cuentan para cada juego que los usa; la parte
+ * compartida se informa aparte.
+ */
+public class AssetCacheReport {
+
+    /**
+     * Recursos de un juego con servicio de recursos activo.
+     */
+    public static final class Entry {
+        private final String gameName;
+        private final int assets;
+        private final long bytes;
+        private final long sharedBytes;
+        private final long hits;
+        private final long misses;
+
+        Entry(String gameName, int assets, long bytes, long sharedBytes, long hits, long misses) {
+            this.gameName = gameName;
+            this.assets = assets;
+            this.bytes = bytes;
+            this.sharedBytes = sharedBytes;
+            this.hits = hits;
+            this.misses = misses;
+        }
+
+        public String getGameName() {
+            return gameName;
+        }
+
+        public int getAssets() {
+            return assets;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return parte de {@link #getBytes()} que también usan otros juegos
+         */
+        public long getSharedBytes() {
+            return sharedBytes;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+    }
+
+    private final List<Entry> entries;
+    private final int lruEntries;
+    private final long lruBytes;
+    private final int softEntries;
+    private final long softBytes;
+    private final long maxBytes;
+    private final long hits;
+    private final long softHits;
+    private final long misses;
+    private final long evictions;
+
+    AssetCacheReport(List<Entry> entries, int lruEntries, long lruBytes, int softEntries,
+                     long softBytes, long maxBytes, long hits, long softHits, long misses,
+                     long evictions) {
+        this.entries = Collections.unmodifiableList(entries);
+        this.lruEntries = lruEntries;
+        this.lruBytes = lruBytes;
+        this.softEntries = softEntries;
+        this.softBytes = softBytes;
+        this.maxBytes = maxBytes;
+        this.hits = hits;
+        this.softHits = softHits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public int getLruEntries() {
+        return lruEntries;
+    }
+
+    public long getLruBytes() {
+        return lruBytes;
+    }
+
+    /**
+     * @return referencias blandas en el mapa (algunas pueden estar ya liberadas)
+     */
+    public int getSoftEntries() {
+        return softEntries;
+    }
+
+    /**
+     * @return bytes de las referencias blandas que aún no ha liberado el GC
+     */
+    public long getSoftBytes() {
+        return softBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return peticiones servidas sin decodificar (incluye {@link #getSoftHits()})
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return aciertos recuperados de una referencia blanda
+     */
+    public long getSoftHits() {
+        return softHits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return aciertos sobre el total de peticiones, o 0 si no hubo ninguna
+     */
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("Recursos: %,d KB de %,d KB en LRU (%d), %,d KB blandos (%d); " +
+                        "aciertos %.1f%% (%d, %d blandos), fallos %d, expulsados %d%n",
+                lruBytes / 1024, maxBytes / 1024, lruEntries, softBytes / 1024, softEntries,
+                getHitRate() * 100, hits, softHits, misses, evictions));
+        for (Entry entry : entries) {
+            text.append(String.format("  %-30s %4d recursos %,8d KB (%,d KB compartidos), " +
+                            "aciertos %d, fallos %d%n",
+                    entry.getGameName(), entry.getAssets(), entry.getBytes() / 1024,
+                    entry.getSharedBytes() / 1024, entry.getHits(), entry.getMisses()));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,47 @@
+package com.nintecdo.assets;
+
+import javafx.scene.image.Image;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Tipos de recurso de la caché y cómo se decodifica cada uno.
+ */
+enum AssetKind {
+    IMAGE {
+        @Override
+        AssetCache.CachedAsset decode(String key, byte[] content) throws IOException {
+            Image image = new Image(new ByteArrayInputStream(content));
+            if (image.isError()) {
+                Exception cause = image.getException();
+                throw new IOException("Imagen no válida" +
+                        (cause != null ? ": " + cause.getMessage() : ""), cause);
+            }
+
+            // Píxeles en ARGB de 32 bits, que es como la guarda JavaFX
+            long size = (long) image.getWidth() * (long) image.getHeight() * 4;
+            return new AssetCache.CachedAsset(key, image, size);
+        }
+    },
+
+    DATA {
+        @Override
+        AssetCache.CachedAsset decode(String key, byte[] content) {
+            return new AssetCache.CachedAsset(key, ByteBuffer.wrap(content).asReadOnlyBuffer(),
+                    content.length);
+        }
+    };
+
+    /**
+     * @param sha256 hash del contenido
+     * @return clave en la caché: el mismo archivo como imagen y como datos
+     *         son dos recursos distintos
+     */
+    String key(String sha256) {
+        return name() + ":" + sha256;
+    }
+
+    abstract AssetCache.CachedAsset decode(String key, byte[] content) throws IOException;
+}
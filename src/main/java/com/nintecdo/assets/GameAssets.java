@@ -0,0 +1,150 @@
+package com.nintecdo.assets;
+
+import com.nintecdo.core.AssetService;
+import javafx.scene.image.Image;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link AssetService} de un juego sobre la {@link AssetCache} compartida.
+ *
+ * Los recursos se buscan solo en el JAR del juego. Cada ruta recuerda la
+ * clave de su contenido, así que pedir otra vez un recurso que sigue en la
+ * caché no vuelve a leer el JAR.
+ */
+public final class GameAssets implements AssetService {
+    private final AssetCache cache;
+    private final String gameName;
+    private volatile ClassLoader classLoader;
+    // "IMAGE:/assets/nave.png" -> clave en la caché
+    private final Map<String, String> keysByPath = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    GameAssets(AssetCache cache, String gameName, ClassLoader classLoader) {
+        this.cache = cache;
+        this.gameName = gameName;
+        this.classLoader = classLoader;
+    }
+
+    public String getGameName() {
+        return gameName;
+    }
+
+    @Override
+    public CompletableFuture<Image> loadImage(String path) {
+        return load(path, AssetKind.IMAGE).thenApply(asset -> (Image) asset.value);
+    }
+
+    @Override
+    public CompletableFuture<ByteBuffer> loadData(String path) {
+        // Cada llamador recibe su propia posición sobre el mismo contenido
+        return load(path, AssetKind.DATA)
+                .thenApply(asset -> ((ByteBuffer) asset.value).duplicate());
+    }
+
+    /**
+     * Suelta el class loader del juego y sus rutas. Los recursos siguen en
+     * la caché para otros juegos o para la siguiente versión del mismo.
+     */
+    public void release() {
+        classLoader = null;
+        keysByPath.clear();
+        cache.release(this);
+    }
+
+    private CompletableFuture<AssetCache.CachedAsset> load(String path, AssetKind kind) {
+        String pathKey = kind.name() + ":" + path;
+        String key = keysByPath.get(pathKey);
+        if (key != null) {
+            AssetCache.CachedAsset cached = cache.lookup(this, key);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+
+        // Leer, calcular el hash y decodificar, todo fuera del hilo que llama
+        return CompletableFuture.supplyAsync(() -> {
+            byte[] content = read(path);
+            String contentKey = kind.key(sha256(content));
+            keysByPath.put(pathKey, contentKey);
+            return cache.getOrDecode(this, contentKey, content, kind);
+        }, cache.executor()).thenCompose(decoded -> decoded);
+    }
+
+    private byte[] read(String path) {
+        ClassLoader loader = classLoader;
+        if (loader == null) {
+            throw new CompletionException(new IOException(
+                    "El juego " + gameName + " se ha descargado"));
+        }
+
+        // Solo el JAR del juego, no los recursos de la plataforma
+        String name = path.startsWith("/") ? path.substring(1) : path;
+        URL url = loader instanceof URLClassLoader
+                ? ((URLClassLoader) loader).findResource(name)
+                : loader.getResource(name);
+        if (url == null) {
+            throw new CompletionException(new IOException(
+                    "Recurso no encontrado en " + gameName + ": " + path));
+        }
+
+        try {
+            URLConnection connection = url.openConnection();
+            // Sin caché de JarFile, que dejaría el JAR abierto al descargar el juego
+            connection.setUseCaches(false);
+            try (InputStream in = connection.getInputStream()) {
+                return in.readAllBytes();
+            }
+        } catch (IOException e) {
+            throw new CompletionException(new IOException(
+                    "Error leyendo " + path + " de " + gameName + ": " + e.getMessage(), e));
+        }
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    void countHit() {
+        hits.incrementAndGet();
+    }
+
+    void countMiss() {
+        misses.incrementAndGet();
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return claves de la caché que ha pedido el juego
+     */
+    Set<String> keys() {
+        return new HashSet<>(keysByPath.values());
+    }
+}
@@ -0,0 +1,36 @@
+package com.nintecdo.core;
+
+import javafx.scene.image.Image;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Recursos del JAR del juego (imágenes, sonidos...) cargados por la
+ * plataforma.
+ *
+ * La lectura y la decodificación se hacen fuera del hilo de JavaFX; para
+ * tocar la escena con el resultado hay que volver a él, por ejemplo con
+ * {@code thenAcceptAsync(imagen -> ..., Platform::runLater)}. Los recursos
+ * con el mismo contenido se comparten entre juegos y se guardan en una
+ * caché con tamaño máximo, así que no hay que modificarlos.
+ *
+ * Las rutas son las de getResource: "/assets/nave.png".
+ */
+public interface AssetService {
+
+    /**
+     * @param path ruta dentro del JAR del juego
+     * @return imagen decodificada; falla con IOException si no existe o no
+     *         es una imagen válida
+     */
+    CompletableFuture<Image> loadImage(String path);
+
+    /**
+     * Contenido sin decodificar, para sonidos y formatos propios.
+     *
+     * @param path ruta dentro del JAR del juego
+     * @return buffer de solo lectura; falla con IOException si no existe
+     */
+    CompletableFuture<ByteBuffer> loadData(String path);
+}
@@ -0,0 +1,14 @@
+package com.nintecdo.core;
+
+/**
+ * Juego que carga sus recursos con el {@link AssetService} de la
+ * plataforma en lugar de con getResource.
+ */
+public interface IAssetAwareGame extends IGame {
+
+    /**
+     * La plataforma lo llama una vez, justo después de crear el juego y
+     * antes de {@link #getGamePanel()} y {@link #start()}.
+     */
+    void setAssetService(AssetService assets);
+}
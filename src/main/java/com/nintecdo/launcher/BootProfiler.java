@@ -0,0 +1,321 @@
+package com.nintecdo.launcher;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fases del arranque de la plataforma, medidas en nanosegundos: apertura
+ * de la base de datos, pasos de cada plugin (manifest, class loader, carga
+ * de clases, instancia) y primera ventana.
+ *
+ * Las fases se miden hasta {@link #finish()}, que escribe el informe en
+ * JSON y avisa de los plugins cuyas fases suman más del umbral. Los juegos
+ * se registran sin cargar sus clases, así que sus fases de class loader,
+ * carga de clases e instancia solo aparecen si se activan durante el
+ * arranque (por ejemplo, en el ensayo de CDS).
+ *
+ * La ruta del informe se puede cambiar con la propiedad de sistema
+ * {@value #REPORT_PROPERTY} y el umbral, en ms, con
+ * {@value #SLOW_PLUGIN_MS_PROPERTY}.
+ */
+public final class BootProfiler {
+    public static final String REPORT_PROPERTY = "nintecdo.boot.report";
+    public static final String SLOW_PLUGIN_MS_PROPERTY = "nintecdo.boot.slowPluginMs";
+
+    public static final String DB_OPEN = "db.open";
+    public static final String DB_INIT = "db.init";
+    public static final String SCENE_BUILD = "scene.build";
+    public static final String SCENE_SHOW = "scene.show";
+    public static final String PLUGINS_LOAD = "plugins.load";
+    public static final String PLUGIN_MANIFEST = "plugin.manifest";
+    public static final String PLUGIN_CLASS_LOADER = "plugin.classLoader";
+    public static final String PLUGIN_CLASS_LOAD = "plugin.classLoad";
+    public static final String PLUGIN_INSTANTIATE = "plugin.instantiate";
+
+    private static final String DEFAULT_REPORT = "./boot-report.json";
+    private static final long DEFAULT_SLOW_PLUGIN_MS = 200;
+
+    private static BootProfiler instance;
+
+    /**
+     * Bloque medido por {@link #time(String, String, Timed)}.
+     */
+    @FunctionalInterface
+    public interface Timed<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    /**
+     * Bloque sin resultado medido por {@link #time(String, String, TimedAction)}.
+     */
+    @FunctionalInterface
+    public interface TimedAction<E extends Exception> {
+        void run() throws E;
+    }
+
+    /**
+     * Fase en curso. Se cierra con {@link #close()}; para medir un bloque es
+     * más cómodo {@link BootProfiler#time(String, Timed)}.
+     */
+    public final class Phase implements AutoCloseable {
+        private final String name;
+        private final String plugin;
+        private final String thread;
+        private final long start;
+        private long nanos = -1;
+
+        private Phase(String name, String plugin) {
+            this.name = name;
+            this.plugin = plugin;
+            this.thread = Thread.currentThread().getName();
+            this.start = System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            if (nanos < 0) {
+                nanos = System.nanoTime() - start;
+                record(this);
+            }
+        }
+
+        /**
+         * @return duración en ns, o -1 si aún no se ha cerrado
+         */
+        public long getNanos() {
+            return nanos;
+        }
+    }
+
+    private final Path reportFile;
+    private final long slowPluginNanos;
+    // Instante de System.nanoTime() en que arrancó la JVM
+    private final long jvmStartNanos;
+    private final long jvmStartMillis;
+
+    // Protegido por this
+    private final List<Phase> phases = new ArrayList<>();
+    private boolean finished;
+
+    /**
+     * @param reportFile archivo del informe
+     * @param slowPluginMillis umbral de aviso por plugin
+     */
+    public BootProfiler(Path reportFile, long slowPluginMillis) {
+        this.reportFile = reportFile;
+        this.slowPluginNanos = slowPluginMillis * 1_000_000;
+
+        // La JVM solo da su arranque en ms; se pasa a la escala de nanoTime
+        this.jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+        long sinceStartNanos = (System.currentTimeMillis() - jvmStartMillis) * 1_000_000;
+        this.jvmStartNanos = System.nanoTime() - sinceStartNanos;
+    }
+
+    /**
+     * @return perfilador del arranque, con {@link #REPORT_PROPERTY} y
+     *         {@link #SLOW_PLUGIN_MS_PROPERTY}
+     */
+    public static synchronized BootProfiler getInstance() {
+        if (instance == null) {
+            instance = new BootProfiler(reportFromSystemProperty(), slowPluginMsFromSystemProperty());
+        }
+        return instance;
+    }
+
+    private static Path reportFromSystemProperty() {
+        String value = System.getProperty(REPORT_PROPERTY);
+        if (value == null || value.isBlank()) {
+            return Path.of(DEFAULT_REPORT);
+        }
+        return Path.of(value.trim());
+    }
+
+    private static long slowPluginMsFromSystemProperty() {
+        String value = System.getProperty(SLOW_PLUGIN_MS_PROPERTY);
+        if (value != null && !value.isBlank()) {
+            try {
+                return Math.max(0, Long.parseLong(value.trim()));
+            } catch (NumberFormatException e) {
+                System.err.println("Umbral de plugin lento no válido: " + value);
+            }
+        }
+        return DEFAULT_SLOW_PLUGIN_MS;
+    }
+
+    /**
+     * @param name fase, por ejemplo {@link #DB_INIT}
+     * @return fase en curso; tras {@link #finish()} se mide pero no se guarda
+     */
+    public Phase start(String name) {
+        return new Phase(name, null);
+    }
+
+    /**
+     * @param name fase, por ejemplo {@link #PLUGIN_MANIFEST}
+     * @param plugin juego al que corresponde la fase
+     */
+    public Phase start(String name, String plugin) {
+        return new Phase(name, plugin);
+    }
+
+    /**
+     * Mide un bloque como una fase, también si lanza una excepción.
+     *
+     * @param name fase, por ejemplo {@link #DB_OPEN}
+     * @return lo que devuelve el bloque
+     */
+    public <T, E extends Exception> T time(String name, Timed<T, E> body) throws E {
+        return time(name, null, body);
+    }
+
+    /**
+     * @param name fase, por ejemplo {@link #PLUGIN_CLASS_LOAD}
+     * @param plugin juego al que corresponde la fase, o null
+     */
+    public <T, E extends Exception> T time(String name, String plugin, Timed<T, E> body) throws E {
+        Phase phase = start(name, plugin);
+        try {
+            return body.call();
+        } finally {
+            phase.close();
+        }
+    }
+
+    /**
+     * @param name fase, por ejemplo {@link #DB_INIT}
+     */
+    public <E extends Exception> void time(String name, TimedAction<E> body) throws E {
+        time(name, null, body);
+    }
+
+    /**
+     * @param name fase
+     * @param plugin juego al que corresponde la fase, o null
+     */
+    public <E extends Exception> void time(String name, String plugin, TimedAction<E> body)
+            throws E {
+        Phase phase = start(name, plugin);
+        try {
+            body.run();
+        } finally {
+            phase.close();
+        }
+    }
+
+    private synchronized void record(Phase phase) {
+        if (!finished) {
+            phases.add(phase);
+        }
+    }
+
+    /**
+     * Termina el arranque: escribe el informe y avisa de los plugins lentos.
+     * Solo la primera llamada hace algo.
+     */
+    public void finish() {
+        long totalNanos = System.nanoTime() - jvmStartNanos;
+        List<Phase> snapshot;
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            snapshot = new ArrayList<>(phases);
+        }
+        // Se guardan al cerrarse; el informe las lista por inicio
+        snapshot.sort(Comparator.comparingLong(phase -> phase.start));
+
+        Map<String, Long> pluginNanos = new LinkedHashMap<>();
+        for (Phase phase : snapshot) {
+            if (phase.plugin != null) {
+                pluginNanos.merge(phase.plugin, phase.nanos, Long::sum);
+            }
+        }
+
+        List<String> slowPlugins = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : pluginNanos.entrySet()) {
+            if (entry.getValue() > slowPluginNanos) {
+                slowPlugins.add(entry.getKey());
+                System.err.println("✗ Plugin lento en el arranque: " + entry.getKey() + " (" +
+                        entry.getValue() / 1_000_000 + " ms, umbral " +
+                        slowPluginNanos / 1_000_000 + " ms)");
+            }
+        }
+
+        try {
+            Path parent = reportFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (Writer out = Files.newBufferedWriter(reportFile, StandardCharsets.UTF_8)) {
+                writeJson(out, snapshot, pluginNanos, slowPlugins, totalNanos);
+            }
+            System.out.println("✓ Arranque en " + totalNanos / 1_000_000 +
+                    " ms, informe en " + reportFile);
+        } catch (IOException e) {
+            System.err.println("✗ No se pudo escribir el informe de arranque: " + e.getMessage());
+        }
+    }
+
+    private void writeJson(Writer out, List<Phase> snapshot, Map<String, Long> pluginNanos,
+                           List<String> slowPlugins, long totalNanos) throws IOException {
+        out.write("{\n");
+        out.write("  \"jvmStartEpochMillis\": " + jvmStartMillis + ",\n");
+        out.write("  \"totalNanos\": " + totalNanos + ",\n");
+        out.write("  \"slowPluginThresholdNanos\": " + slowPluginNanos + ",\n");
+
+        // Inicio de cada fase en ns desde el arranque de la JVM
+        out.write("  \"phases\": [");
+        for (int i = 0; i < snapshot.size(); i++) {
+            Phase phase = snapshot.get(i);
+            out.write(i == 0 ? "\n" : ",\n");
+            out.write("    {\"name\": " + quote(phase.name) +
+                    ", \"plugin\": " + (phase.plugin != null ? quote(phase.plugin) : "null") +
+                    ", \"thread\": " + quote(phase.thread) +
+                    ", \"startNanos\": " + (phase.start - jvmStartNanos) +
+                    ", \"durationNanos\": " + phase.nanos + "}");
+        }
+        out.write(snapshot.isEmpty() ? "],\n" : "\n  ],\n");
+
+        out.write("  \"plugins\": [");
+        int i = 0;
+        for (Map.Entry<String, Long> entry : pluginNanos.entrySet()) {
+            out.write(i++ == 0 ? "\n" : ",\n");
+            out.write("    {\"name\": " + quote(entry.getKey()) +
+                    ", \"totalNanos\": " + entry.getValue() +
+                    ", \"slow\": " + slowPlugins.contains(entry.getKey()) + "}");
+        }
+        out.write(pluginNanos.isEmpty() ? "]\n" : "\n  ]\n");
+        out.write("}\n");
+    }
+
+    private static String quote(String value) {
+        StringBuilder json = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        return json.append('"').toString();
+    }
+}
@@ -0,0 +1,176 @@
+package com.nintecdo.launcher;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Archivo CDS (class data sharing) de la plataforma: las clases que carga
+ * un arranque completo, ya analizadas y verificadas, en un archivo que la
+ * JVM proyecta en memoria en los arranques siguientes.
+ *
+ * Junto al archivo se guarda la huella de la JVM y del classpath con que
+ * se generó. Si cambian, o si el escaneo de plugins marca el archivo como
+ * obsoleto, {@link Launcher} lo vuelve a generar con un arranque de ensayo.
+ *
+ * El directorio se puede cambiar con la propiedad de sistema
+ * {@value #DIR_PROPERTY}.
+ */
+public final class CdsArchive {
+    public static final String DIR_PROPERTY = "nintecdo.cds.dir";
+    public static final String TRAINING_PROPERTY = "nintecdo.cds.training";
+
+    private static final String DEFAULT_DIR = "./cds";
+    private static final String ARCHIVE_FILE = "nintecdo.jsa";
+    private static final String STAMP_FILE = "nintecdo.jsa.properties";
+    private static final String STALE_FILE = "nintecdo.jsa.stale";
+    private static final String FINGERPRINT_KEY = "fingerprint";
+
+    private final Path dir;
+
+    public CdsArchive(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * @return archivo del directorio configurado en {@link #DIR_PROPERTY}
+     */
+    public static CdsArchive fromSystemProperty() {
+        String value = System.getProperty(DIR_PROPERTY);
+        if (value == null || value.isBlank()) {
+            return new CdsArchive(Path.of(DEFAULT_DIR));
+        }
+        return new CdsArchive(Path.of(value.trim()));
+    }
+
+    /**
+     * @return true si esta JVM es el arranque de ensayo que genera el archivo
+     */
+    public static boolean isTrainingRun() {
+        return Boolean.getBoolean(TRAINING_PROPERTY);
+    }
+
+    public Path getArchive() {
+        return dir.resolve(ARCHIVE_FILE);
+    }
+
+    /**
+     * Ruta donde el ensayo escribe el archivo antes de instalarlo.
+     */
+    Path getTrainingOutput() {
+        return dir.resolve(ARCHIVE_FILE + ".tmp");
+    }
+
+    /**
+     * La JVM solo acepta JARs en el classpath de un archivo CDS.
+     *
+     * @param classPath classpath de la aplicación
+     * @return true si se puede generar un archivo para ese classpath
+     */
+    static boolean supports(String classPath) {
+        for (String entry : classPath.split(File.pathSeparator)) {
+            if (!entry.isEmpty() && new File(entry).isDirectory()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param classPath classpath con que se va a arrancar
+     * @return motivo para regenerar el archivo, o null si sigue valiendo
+     */
+    String staleReason(String classPath) {
+        if (!Files.isRegularFile(getArchive())) {
+            return "no hay archivo";
+        }
+        if (Files.exists(dir.resolve(STALE_FILE))) {
+            try {
+                return Files.readString(dir.resolve(STALE_FILE), StandardCharsets.UTF_8).trim();
+            } catch (IOException e) {
+                return "plugins cambiados";
+            }
+        }
+
+        Properties stamp = new Properties();
+        try (InputStream in = Files.newInputStream(dir.resolve(STAMP_FILE))) {
+            stamp.load(in);
+        } catch (IOException e) {
+            return "falta la huella del archivo";
+        }
+
+        if (!fingerprint(classPath).equals(stamp.getProperty(FINGERPRINT_KEY))) {
+            return "JVM o classpath cambiados";
+        }
+        return null;
+    }
+
+    /**
+     * Marca el archivo para regenerarlo en el próximo arranque. No afecta a
+     * la JVM que lo está usando.
+     *
+     * @param reason motivo, para el mensaje del lanzador
+     */
+    public void markStale(String reason) {
+        Path stale = dir.resolve(STALE_FILE);
+        if (!Files.isRegularFile(getArchive()) || Files.exists(stale)) {
+            return;
+        }
+
+        try {
+            Files.writeString(stale, reason, StandardCharsets.UTF_8);
+            System.out.println("✓ Archivo CDS marcado para regenerar: " + reason);
+        } catch (IOException e) {
+            System.err.println("✗ No se puede marcar el archivo CDS: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sustituye el archivo por el que acaba de generar el ensayo y guarda
+     * su huella.
+     *
+     * @param trained archivo generado
+     * @param classPath classpath del ensayo
+     * @throws IOException si no se puede mover o escribir la huella
+     */
+    void install(Path trained, String classPath) throws IOException {
+        // La JVM crea el archivo de solo lectura: se borra antes de sustituirlo
+        Files.deleteIfExists(getArchive());
+        Files.move(trained, getArchive(), StandardCopyOption.REPLACE_EXISTING);
+
+        Properties stamp = new Properties();
+        stamp.setProperty(FINGERPRINT_KEY, fingerprint(classPath));
+        try (OutputStream out = Files.newOutputStream(dir.resolve(STAMP_FILE))) {
+            stamp.store(out, "Huella del archivo CDS de Nintecdo");
+        }
+
+        // Lo que marcó el propio ensayo ya está incluido
+        Files.deleteIfExists(dir.resolve(STALE_FILE));
+    }
+
+    void createDirectory() throws IOException {
+        Files.createDirectories(dir);
+    }
+
+    /**
+     * Versión de la JVM más tamaño y fecha de cada JAR del classpath: si
+     * algo cambia la JVM rechazaría el archivo.
+     */
+    private static String fingerprint(String classPath) {
+        StringBuilder fingerprint = new StringBuilder(System.getProperty("java.vm.version"));
+        for (String entry : classPath.split(File.pathSeparator)) {
+            File jar = new File(entry);
+            fingerprint.append(File.pathSeparatorChar)
+                    .append(jar.getAbsolutePath())
+                    .append('=').append(jar.length())
+                    .append('@').append(jar.lastModified());
+        }
+        return fingerprint.toString();
+    }
+}
@@ -0,0 +1,127 @@
+package com.nintecdo.launcher;
+
+import com.nintecdo.App;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arranca la plataforma con el archivo CDS de {@link CdsArchive}.
+ *
+ * Si no hay archivo o está obsoleto, primero hace un arranque de ensayo
+ * (la ventana se abre, se cargan los juegos guardados y se cierra sola)
+ * con -XX:ArchiveClassesAtExit. Después arranca {@link App} en otra JVM
+ * con -XX:SharedArchiveFile, con las mismas opciones de JVM que este
+ * proceso. Si el ensayo falla se arranca igualmente, sin archivo.
+ *
+ * El classpath tiene que estar formado solo por JARs, por ejemplo:
+ * <pre>
+ *   mvn package dependency:copy-dependencies
+ *   java -cp "target/*:target/dependency/*" com.nintecdo.launcher.Launcher
+ * </pre>
+ */
+public class Launcher {
+    private static final long TRAINING_TIMEOUT_MINUTES = 2;
+
+    public static void main(String[] args) throws Exception {
+        String classPath = System.getProperty("java.class.path");
+        CdsArchive archive = CdsArchive.fromSystemProperty();
+        List<String> jvmOptions = inheritedJvmOptions();
+
+        boolean useArchive = CdsArchive.supports(classPath);
+        if (!useArchive) {
+            System.err.println("✗ CDS necesita un classpath de JARs (mvn package); " +
+                    "se arranca sin archivo");
+        } else {
+            String reason = archive.staleReason(classPath);
+            if (reason != null) {
+                System.out.println("Generando archivo CDS (" + reason + ")...");
+                useArchive = train(archive, jvmOptions, classPath);
+            }
+        }
+
+        List<String> command = javaCommand(jvmOptions, classPath);
+        if (useArchive) {
+            command.add(1, "-XX:SharedArchiveFile=" + archive.getArchive());
+        }
+        command.add(App.class.getName());
+        command.addAll(List.of(args));
+
+        Process app = new ProcessBuilder(command).inheritIO().start();
+        System.exit(app.waitFor());
+    }
+
+    /**
+     * @return true si el archivo quedó generado
+     */
+    private static boolean train(CdsArchive archive, List<String> jvmOptions, String classPath)
+            throws InterruptedException {
+        Path output = archive.getTrainingOutput();
+        List<String> command = javaCommand(jvmOptions, classPath);
+        command.add(1, "-XX:ArchiveClassesAtExit=" + output);
+        command.add(1, "-D" + CdsArchive.TRAINING_PROPERTY + "=true");
+        command.add(App.class.getName());
+
+        long start = System.nanoTime();
+        try {
+            archive.createDirectory();
+            Files.deleteIfExists(output);
+
+            Process training = new ProcessBuilder(command).inheritIO().start();
+            if (!training.waitFor(TRAINING_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                training.destroyForcibly();
+                System.err.println("✗ El ensayo de CDS no terminó en " +
+                        TRAINING_TIMEOUT_MINUTES + " minutos");
+                return false;
+            }
+            if (training.exitValue() != 0 || !Files.isRegularFile(output)) {
+                System.err.println("✗ El ensayo de CDS falló (código " +
+                        training.exitValue() + ")");
+                Files.deleteIfExists(output);
+                return false;
+            }
+
+            archive.install(output, classPath);
+        } catch (IOException e) {
+            System.err.println("✗ No se pudo generar el archivo CDS: " + e.getMessage());
+            return false;
+        }
+
+        System.out.println("✓ Archivo CDS generado en " +
+                (System.nanoTime() - start) / 1_000_000 + " ms: " + archive.getArchive());
+        return true;
+    }
+
+    private static List<String> javaCommand(List<String> jvmOptions, String classPath) {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(classPath);
+        return command;
+    }
+
+    /**
+     * Opciones con que se arrancó el lanzador (-D, -Xmx...), salvo las de
+     * CDS, que pone el lanzador, y la del depurador, que abriría el mismo
+     * puerto en dos JVMs.
+     */
+    private static List<String> inheritedJvmOptions() {
+        List<String> options = new ArrayList<>();
+        for (String option : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (option.startsWith("-XX:SharedArchiveFile")
+                    || option.startsWith("-XX:ArchiveClassesAtExit")
+                    || option.startsWith("-Xshare")
+                    || option.startsWith("-agentlib:jdwp")) {
+                continue;
+            }
+            options.add(option);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,41 @@
+package com.nintecdo.loader;
+
+/**
+ * Progreso de {@link GameLoader#loadAllGamesAsync}.
+ *
+ * Los avisos llegan desde los hilos de carga, en el orden en que terminan
+ * los juegos: quien actualice la interfaz debe pasar por
+ * {@code Platform.runLater}.
+ */
+public interface GameLoadListener {
+
+    /**
+     * Se conoce el número de juegos guardados, antes de cargar ninguno.
+     */
+    default void onLoadingStarted(int total) {
+    }
+
+    /**
+     * Un juego ya está registrado en GameManager y se puede iniciar.
+     *
+     * @param gameName nombre con el que se registró
+     * @param done juegos terminados hasta ahora (cargados o fallidos)
+     * @param total juegos a cargar
+     */
+    void onGameLoaded(String gameName, int done, int total);
+
+    /**
+     * Un juego no se pudo cargar; el resto sigue cargándose.
+     *
+     * @param gameName nombre guardado en la base de datos
+     * @param error causa del fallo
+     */
+    default void onGameFailed(String gameName, Exception error, int done, int total) {
+    }
+
+    /**
+     * Terminaron todos los juegos.
+     */
+    default void onLoadingFinished(int loaded, int failed) {
+    }
+}
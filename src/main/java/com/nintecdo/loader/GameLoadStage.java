@@ -0,0 +1,25 @@
+package com.nintecdo.loader;
+
+/**
+ * Etapas de {@link GameLoader#loadGameAsync}, en el orden en que se avisan.
+ */
+public enum GameLoadStage {
+    /** Abriendo el JAR y leyendo su manifest. */
+    READING_MANIFEST("Leyendo manifest"),
+
+    /** Cargando la clase del juego y creando la instancia. */
+    LOADING_CLASSES("Cargando clases"),
+
+    /** Registrando el juego y guardándolo en la base de datos. */
+    SAVING("Guardando en la biblioteca");
+
+    private final String description;
+
+    GameLoadStage(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
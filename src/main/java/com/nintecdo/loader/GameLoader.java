@@ -2,105 +2,433 @@ package com.nintecdo.loader;
 
 import com.nintecdo.core.IGame;
 import com.nintecdo.exception.GameLoadException;
+import com.nintecdo.launcher.BootProfiler;
+import com.nintecdo.launcher.CdsArchive;
 import com.nintecdo.manager.GameManager;
-import com.nintecdo.persistence.StatsRepository;
+import com.nintecdo.persistence.StatsStore;
 
 import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.io.InputStream;
-import java.util.Properties;
 
 public class GameLoader {
-    private static final String PLUGINS_DIR = "./plugins";
+    static final String PLUGINS_DIR = "./plugins";
     private static final String GAME_CLASS_MANIFEST_KEY = "Game-Class";
+    public static final String THREADS_PROPERTY = "nintecdo.loader.threads";
 
-    // En GameLoader.java
-    public static void loadAllGames(StatsRepository statsRepository)
-            throws GameLoadException {
-        try {
-            Map<String, String> savedGames = statsRepository.getAllGamesWithPaths();
+    private static final GameLoadListener NO_PROGRESS = (gameName, done, total) -> { };
+    private static final AtomicInteger LOADER_THREAD_IDS = new AtomicInteger();
+    private static final AtomicInteger IMPORT_THREAD_IDS = new AtomicInteger();
+
+    // Importaciones desde la interfaz; los hilos ociosos terminan solos
+    private static final ExecutorService IMPORT_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "game-import-" + IMPORT_THREAD_IDS.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
 
-            if (savedGames.isEmpty()) {
-                System.out.println("No hay juegos guardados en la base de datos.");
-                return;
+    /**
+     * Future de {@link #loadGameAsync}. Cancelarlo, o que venza el plazo,
+     * interrumpe el hilo de carga hasta que el juego se guarda; desde
+     * ese momento ya no se puede cancelar.
+     */
+    private static final class LoadingFuture extends CompletableFuture<IGame> {
+        // Protegidos por this
+        private Thread worker;
+        private boolean committed;
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            synchronized (this) {
+                if (committed) {
+                    return false;
+                }
+                boolean cancelled = super.cancel(mayInterruptIfRunning);
+                if (cancelled && worker != null) {
+                    worker.interrupt();
+                }
+                return cancelled;
             }
+        }
 
-            System.out.println("Cargando " + savedGames.size() + " juegos guardados...");
+        synchronized void abort(Throwable cause) {
+            if (!committed && completeExceptionally(cause) && worker != null) {
+                worker.interrupt();
+            }
+        }
 
-            for (Map.Entry<String, String> entry : savedGames.entrySet()) {
-                String gameName = entry.getKey();
-                String filePath = entry.getValue();
+        /**
+         * @throws CancellationException si se canceló o venció el plazo
+         */
+        synchronized void checkNotAborted() {
+            if (isDone()) {
+                throw new CancellationException();
+            }
+        }
 
-                System.out.println("Cargando " + gameName + " desde " + filePath);
+        /**
+         * Último punto de cancelación: después el juego se guarda y se registra.
+         */
+        synchronized void commit() {
+            checkNotAborted();
+            committed = true;
+        }
 
-                File jarFile = new File(filePath);
+        void run(File jarFile, StatsStore statsRepository, Consumer<GameLoadStage> progress) {
+            synchronized (this) {
+                if (isDone()) {
+                    return;
+                }
+                worker = Thread.currentThread();
+            }
 
-                if (jarFile.exists()) {
-                    try {
-                        // Cargar sin volver a guardar en DB (ya existe)
-                        loadGameFromPath(jarFile);
-                        System.out.println("✓ " + gameName + " cargado");
-                    } catch (Exception e) {
-                        System.err.println("✗ Error cargando " + gameName +
-                                ": " + e.getMessage());
-                    }
-                } else {
-                    System.err.println("✗ Archivo no encontrado: " + filePath);
+            try {
+                complete(importGame(jarFile, statsRepository, this, progress));
+            } catch (Throwable e) {
+                // También los Error (p. ej. NoClassDefFoundError de un plugin):
+                // si el future no se completa, la interfaz se queda esperando.
+                // Si ya se canceló o venció el plazo, esto no cambia nada
+                completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    worker = null;
                 }
+                // El hilo vuelve al pool sin la interrupción de un cancel tardío
+                Thread.interrupted();
             }
+        }
+    }
 
+    /**
+     * Carga todos los juegos guardados en la base de datos y espera a que
+     * terminen. Los juegos que fallan se informan y se saltan.
+     *
+     * @param statsRepository almacén con los juegos guardados
+     * @throws GameLoadException si no se pueden leer los juegos guardados
+     */
+    public static void loadAllGames(StatsStore statsRepository)
+            throws GameLoadException {
+        try {
+            loadAllGamesAsync(statsRepository, null).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof GameLoadException) {
+                throw (GameLoadException) e.getCause();
+            }
+            throw new GameLoadException("Error cargando juegos: " + e.getCause().getMessage(),
+                    e.getCause());
+        }
+    }
+
+    /**
+     * Carga en paralelo todos los juegos guardados en la base de datos, sin
+     * bloquear al llamador. Cada juego se registra en GameManager en cuanto
+     * está listo; un JAR roto o ausente no afecta a los demás.
+     *
+     * El número de hilos se puede fijar con la propiedad de sistema
+     * {@value #THREADS_PROPERTY}.
+     *
+     * @param statsRepository almacén con los juegos guardados
+     * @param listener avisos de progreso, o null
+     * @return número de juegos cargados; falla con GameLoadException si no
+     *         se pueden leer los juegos guardados
+     */
+    public static CompletableFuture<Integer> loadAllGamesAsync(
+            StatsStore statsRepository, GameLoadListener listener) {
+
+        GameLoadListener progress = listener != null ? listener : NO_PROGRESS;
+        ExecutorService pool = Executors.newFixedThreadPool(loaderThreads(), runnable -> {
+            Thread thread = new Thread(runnable,
+                    "game-loader-" + LOADER_THREAD_IDS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        BootProfiler.Phase phase = BootProfiler.getInstance().start(BootProfiler.PLUGINS_LOAD);
+        PluginScanner scanner = new PluginScanner(statsRepository);
+        CompletableFuture<Integer> loading = CompletableFuture
+                .supplyAsync(() -> {
+                    scanner.loadCache();
+                    return readSavedGames(statsRepository);
+                }, pool)
+                .thenCompose(savedGames -> loadInParallel(savedGames, scanner, progress, pool))
+                .thenApply(loaded -> {
+                    reportScan(scanner, statsRepository);
+                    return loaded;
+                });
+
+        loading.whenComplete((loaded, error) -> {
+            phase.close();
+            pool.shutdown();
+        });
+        return loading;
+    }
+
+    private static Map<String, String> readSavedGames(StatsStore statsRepository) {
+        try {
+            return statsRepository.getAllGamesWithPaths();
         } catch (SQLException e) {
-            throw new GameLoadException(
+            throw new CompletionException(new GameLoadException(
                     "Error leyendo juegos de la base de datos: " + e.getMessage(),
                     e
-            );
+            ));
+        }
+    }
+
+    private static CompletableFuture<Integer> loadInParallel(Map<String, String> savedGames,
+                                                             PluginScanner scanner,
+                                                             GameLoadListener progress,
+                                                             ExecutorService pool) {
+        int total = savedGames.size();
+        progress.onLoadingStarted(total);
+
+        if (total == 0) {
+            System.out.println("No hay juegos guardados en la base de datos.");
+            progress.onLoadingFinished(0, 0);
+            return CompletableFuture.completedFuture(0);
+        }
+
+        System.out.println("Cargando " + total + " juegos guardados...");
+
+        AtomicInteger done = new AtomicInteger();
+        AtomicInteger loaded = new AtomicInteger();
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[total];
+        int i = 0;
+
+        for (Map.Entry<String, String> entry : savedGames.entrySet()) {
+            String gameName = entry.getKey();
+            String filePath = entry.getValue();
+
+            tasks[i++] = CompletableFuture.runAsync(() -> {
+                try {
+                    String registeredName = loadSavedGame(gameName, filePath, scanner);
+                    loaded.incrementAndGet();
+                    progress.onGameLoaded(registeredName, done.incrementAndGet(), total);
+                } catch (Exception e) {
+                    System.err.println("✗ Error cargando " + gameName +
+                            ": " + e.getMessage());
+                    progress.onGameFailed(gameName, e, done.incrementAndGet(), total);
+                }
+            }, pool);
         }
+
+        return CompletableFuture.allOf(tasks).thenApply(ignored -> {
+            progress.onLoadingFinished(loaded.get(), total - loaded.get());
+            return loaded.get();
+        });
     }
 
-    // Método auxiliar sin guardar en DB
-    private static void loadGameFromPath(File jarFile) throws Exception {
-        URLClassLoader classLoader = new URLClassLoader(
-                new URL[]{jarFile.toURI().toURL()},
-                GameLoader.class.getClassLoader()
-        );
+    /**
+     * @return nombre con el que se registró el juego
+     */
+    private static String loadSavedGame(String gameName, String filePath,
+                                        PluginScanner scanner) throws GameLoadException {
+        System.out.println("Cargando " + gameName + " desde " + filePath);
 
-        InputStream manifestStream = classLoader.getResourceAsStream(
-                "manifest.properties"
-        );
+        File jarFile = new File(filePath);
+        if (!jarFile.exists()) {
+            throw new GameLoadException("Archivo no encontrado: " + filePath);
+        }
 
-        if (manifestStream == null) {
-            throw new Exception("No se encontró manifest.properties");
+        // Sin volver a guardar en DB (ya existe)
+        String registeredName = BootProfiler.getInstance().time(
+                BootProfiler.PLUGIN_MANIFEST, gameName,
+                () -> loadGameFromPath(jarFile, scanner));
+        System.out.println("✓ " + gameName + " registrado");
+        return registeredName;
+    }
+
+    /**
+     * Informa de cuántos JARs se volvieron a leer y de los JARs repetidos.
+     */
+    private static void reportScan(PluginScanner scanner, StatsStore statsRepository) {
+        System.out.println("✓ Plugins: " + scanner.getCacheHits() + " sin cambios, " +
+                scanner.getRescanned() + " escaneados");
+
+        // El archivo CDS se generó con los JARs anteriores
+        if (scanner.getRescanned() > 0) {
+            CdsArchive.fromSystemProperty().markStale(
+                    scanner.getRescanned() + " plugins nuevos o cambiados");
         }
 
-        Properties props = new Properties();
-        props.load(manifestStream);
+        try {
+            for (List<String> paths : statsRepository.findDuplicatePlugins().values()) {
+                System.err.println("✗ JAR duplicado en varias rutas: " + String.join(", ", paths));
+            }
+        } catch (SQLException e) {
+            System.err.println("✗ Error buscando JARs duplicados: " + e.getMessage());
+        }
+    }
 
-        String gameClass = props.getProperty("game.class");
-        String gameName = props.getProperty("game.title");
+    private static int loaderThreads() {
+        String value = System.getProperty(THREADS_PROPERTY);
+        if (value != null && !value.isBlank()) {
+            try {
+                return Math.max(1, Integer.parseInt(value.trim()));
+            } catch (NumberFormatException e) {
+                System.err.println("Número de hilos de carga no válido: " + value);
+            }
+        }
 
-        Class<?> clazz = classLoader.loadClass(gameClass);
-        IGame gameInstance = null;
+        // Al menos 2: parte de la carga es esperar al disco
+        return Math.max(2, Math.min(Runtime.getRuntime().availableProcessors(), 8));
+    }
+
+    /**
+     * Registra un juego guardado sin cargar sus clases: solo se lee el
+     * manifest (o su copia en la caché, si el JAR no ha cambiado) y se
+     * registra un {@link LazyGame}, que se activa al jugar.
+     *
+     * @return nombre con el que se registró el juego
+     */
+    private static String loadGameFromPath(File jarFile, PluginScanner scanner)
+            throws GameLoadException {
+        PluginDescriptor descriptor = scanner.scan(jarFile);
+        GameManager.getInstance().registerGame(descriptor.getTitle(), new LazyGame(descriptor));
+        return descriptor.getTitle();
+    }
 
-        // INTENTAR CARGAR COMO SINGLETON
+    /**
+     * @return class loader nuevo para el JAR del juego, sobre la capa de
+     *         librerías compartidas si la hay
+     */
+    static PluginClassLoader newClassLoader(PluginDescriptor descriptor)
+            throws GameLoadException {
+        File jarFile = descriptor.getJarFile();
         try {
-            java.lang.reflect.Method getInstanceMethod =
-                    clazz.getMethod("getInstance");
-            gameInstance = (IGame) getInstanceMethod.invoke(null);
-            System.out.println("✓ Juego cargado como Singleton");
-        } catch (NoSuchMethodException e) {
-            // NO ES SINGLETON, instanciar normalmente
-            gameInstance = (IGame) clazz.getDeclaredConstructor().newInstance();
-            System.out.println("✓ Juego cargado con constructor público");
+            SharedLibraryLoader sharedLibraries = SharedLibraryLoader.getInstance();
+            Map<String, Integer> sharedClasses = sharedLibraries != null
+                    ? sharedLibraries.sharedClassesOf(jarFile)
+                    : Map.of();
+
+            return new PluginClassLoader(
+                    descriptor.getTitle(),
+                    jarFile.toURI().toURL(),
+                    GameLoader.class.getClassLoader(),
+                    sharedLibraries,
+                    sharedClasses
+            );
+        } catch (MalformedURLException e) {
+            throw new GameLoadException("Ruta no válida: " + jarFile, e);
+        } catch (IOException e) {
+            throw new GameLoadException("Error leyendo " + jarFile.getName() + ": " +
+                    e.getMessage(), e);
         }
+    }
 
-        GameManager.getInstance().registerGame(gameName, gameInstance);
+    /**
+     * Carga la clase del juego con el class loader dado y la instancia, como
+     * singleton (getInstance) o con el constructor público.
+     *
+     * @param descriptor juego a instanciar
+     * @param classLoader loader del JAR del juego
+     * @return instancia del juego
+     * @throws GameLoadException si la clase no existe, no implementa IGame o
+     *                           no se puede instanciar
+     */
+    static IGame instantiate(PluginDescriptor descriptor, ClassLoader classLoader)
+            throws GameLoadException {
+        String gameClass = descriptor.getGameClass();
+        BootProfiler boot = BootProfiler.getInstance();
+
+        try {
+            Class<?> clazz = boot.time(BootProfiler.PLUGIN_CLASS_LOAD, descriptor.getTitle(),
+                    () -> classLoader.loadClass(gameClass));
+            if (!IGame.class.isAssignableFrom(clazz)) {
+                throw new GameLoadException(gameClass + " no implementa la interfaz IGame");
+            }
+
+            return boot.time(BootProfiler.PLUGIN_INSTANTIATE, descriptor.getTitle(), () -> {
+                // INTENTAR CARGAR COMO SINGLETON
+                try {
+                    java.lang.reflect.Method getInstanceMethod =
+                            clazz.getMethod("getInstance");
+                    IGame gameInstance = (IGame) getInstanceMethod.invoke(null);
+                    System.out.println("✓ Juego cargado como Singleton");
+                    return gameInstance;
+                } catch (NoSuchMethodException e) {
+                    // NO ES SINGLETON, instanciar normalmente
+                    IGame gameInstance = (IGame) clazz.getDeclaredConstructor().newInstance();
+                    System.out.println("✓ Juego cargado con constructor público");
+                    return gameInstance;
+                }
+            });
+        } catch (GameLoadException e) {
+            throw e;
+        } catch (ClassNotFoundException e) {
+            throw new GameLoadException("Clase no encontrada: " + gameClass, e);
+        } catch (Exception | LinkageError e) {
+            throw new GameLoadException(
+                    "Error instanciando " + gameClass + " de " +
+                            descriptor.getJarFile().getName() + ": " + e, e
+            );
+        }
+    }
+
+    /**
+     * Activa todos los juegos registrados y construye su panel, sin empezar
+     * partida, para que el ensayo de CDS incluya las clases de la plataforma
+     * y de JavaFX que usan. Las clases de los JARs de los juegos no entran
+     * en el archivo: la JVM solo guarda las de sus propios class loaders.
+     * Se llama en el hilo de JavaFX.
+     *
+     * @return número de juegos activados
+     */
+    public static int activateAllGames() {
+        int activated = 0;
+        for (String gameName : GameManager.getInstance().getAvailableGames()) {
+            IGame game = GameManager.getInstance().getGame(gameName);
+            try {
+                if (game instanceof LazyGame) {
+                    game = ((LazyGame) game).activate();
+                }
+                game.getGamePanel();
+                activated++;
+            } catch (Exception | LinkageError e) {
+                System.err.println("✗ No se pudo activar " + gameName + ": " + e.getMessage());
+            }
+        }
+        return activated;
+    }
+
+    /**
+     * Descarga un juego: lo quita de GameManager (deteniéndolo si estaba en
+     * partida), le quita los listeners de la plataforma y cierra su class
+     * loader. La interfaz debe soltar antes el panel del juego si lo
+     * muestra.
+     *
+     * @param gameName nombre registrado
+     * @return sonda para comprobar que el juego se recolecta
+     * @throws GameLoadException si el juego no está registrado
+     */
+    public static PluginUnloadProbe unloadGame(String gameName) throws GameLoadException {
+        IGame game = GameManager.getInstance().unregisterGame(gameName);
+        if (game == null) {
+            throw new GameLoadException("Juego no encontrado: " + gameName);
+        }
+
+        System.out.println("✓ Juego descargado: " + gameName);
+        return game instanceof LazyGame
+                ? ((LazyGame) game).unload()
+                : new PluginUnloadProbe(gameName, game.getClass().getClassLoader());
     }
 
     private static IGame loadGameFromJar(File jar)
@@ -166,78 +494,107 @@ public class GameLoader {
         }
     }
 
-    public static void loadGame(File jarFile, StatsRepository statsRepository) throws GameLoadException {
+    /**
+     * Importa un JAR y espera a que termine. Ver {@link #loadGameAsync}.
+     *
+     * @throws GameLoadException si el JAR no es válido o no se puede cargar
+     */
+    public static void loadGame(File jarFile, StatsStore statsRepository) throws GameLoadException {
+        try {
+            loadGameAsync(jarFile, statsRepository, null, null).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof GameLoadException) {
+                throw (GameLoadException) e.getCause();
+            }
+            throw new GameLoadException("Error cargando " + jarFile.getName() + ": " +
+                    e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Importa un JAR elegido por el usuario sin bloquear al llamador: lee el
+     * manifest, carga y crea el juego, lo guarda en la base de datos y lo
+     * registra en GameManager, todo en el ejecutor de importación.
+     *
+     * Cancelar el future, o que venza el plazo, antes de guardar el juego
+     * interrumpe la carga, descarga lo que se hubiera cargado y no deja nada
+     * registrado ni guardado. Desde ese momento cancel() devuelve false; si
+     * falla el guardado, el juego se descarga sin registrarse.
+     *
+     * @param jarFile JAR del juego
+     * @param statsRepository almacén donde guardar el juego
+     * @param timeout plazo máximo, o null para no limitarlo
+     * @param progress avisos de cada etapa desde el hilo de carga, o null
+     * @return juego registrado, ya activado; falla con GameLoadException,
+     *         CancellationException o TimeoutException
+     */
+    public static CompletableFuture<IGame> loadGameAsync(File jarFile, StatsStore statsRepository,
+                                                         Duration timeout,
+                                                         Consumer<GameLoadStage> progress) {
+        LoadingFuture loading = new LoadingFuture();
+        Consumer<GameLoadStage> stages = progress != null ? progress : stage -> { };
+
+        IMPORT_EXECUTOR.execute(() -> loading.run(jarFile, statsRepository, stages));
+
+        if (timeout != null) {
+            CompletableFuture.delayedExecutor(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .execute(() -> loading.abort(new TimeoutException(
+                            "La carga de " + jarFile.getName() + " superó " +
+                                    timeout.toMillis() + " ms")));
+        }
+        return loading;
+    }
+
+    private static IGame importGame(File jarFile, StatsStore statsRepository,
+                                    LoadingFuture loading, Consumer<GameLoadStage> progress)
+            throws GameLoadException {
         if (!jarFile.exists() || !jarFile.getName().endsWith(".jar")) {
             throw new GameLoadException(
                     "El archivo no es un JAR válido: " + jarFile.getName()
             );
         }
 
-        try {
-            // Cargar el JAR dinámicamente
-            URLClassLoader classLoader = new URLClassLoader(
-                    new URL[]{jarFile.toURI().toURL()},
-                    GameLoader.class.getClassLoader()
-            );
-
-            // Leer manifest.properties del JAR
-            InputStream manifestStream = classLoader.getResourceAsStream(
-                    "manifest.properties"
-            );
-
-            if (manifestStream == null) {
-                throw new GameLoadException(
-                        "No se encontró manifest.properties en " + jarFile.getName()
-                );
-            }
-
-            Properties props = new Properties();
-            props.load(manifestStream);
-
-            String gameClass = props.getProperty("game.class");
-            String gameName = props.getProperty("game.title");
-
-            if (gameClass == null || gameName == null) {
-                throw new GameLoadException(
-                        "Manifest incompleto en " + jarFile.getName()
-                );
-            }
-
-            Class<?> clazz = classLoader.loadClass(gameClass);
-            IGame gameInstance = null;
+        progress.accept(GameLoadStage.READING_MANIFEST);
+        PluginDescriptor descriptor = PluginDescriptor.read(jarFile);
+        String gameName = descriptor.getTitle();
+        loading.checkNotAborted();
 
-            // INTENTAR CARGAR COMO SINGLETON
-            try {
-                java.lang.reflect.Method getInstanceMethod =
-                        clazz.getMethod("getInstance");
-                gameInstance = (IGame) getInstanceMethod.invoke(null);
-                System.out.println("✓ Juego cargado como Singleton");
-            } catch (NoSuchMethodException e) {
-                // NO ES SINGLETON, instanciar normalmente
-                gameInstance = (IGame) clazz.getDeclaredConstructor().newInstance();
-                System.out.println("✓ Juego cargado con constructor público");
-            }
+        // Importado desde la interfaz: se va a jugar, se activa ya
+        progress.accept(GameLoadStage.LOADING_CLASSES);
+        LazyGame gameInstance = new LazyGame(descriptor);
+        try {
+            gameInstance.activate();
+            loading.commit();
+        } catch (GameLoadException | RuntimeException | LinkageError e) {
+            // Cancelado a mitad, o el juego no arranca: no queda nada cargado
+            gameInstance.unload();
+            throw e;
+        }
 
-            GameManager.getInstance().registerGame(gameName, gameInstance);
+        progress.accept(GameLoadStage.SAVING);
 
-            // GUARDAR EN BASE DE DATOS
-            try {
-                statsRepository.addGame(gameName, jarFile.getAbsolutePath());
-            } catch (SQLException e) {
-                // Si ya existe, ignorar el error (UNIQUE constraint)
-                if (!e.getMessage().contains("UNIQUE constraint")) {
-                    throw e;
-                }
+        // GUARDAR EN BASE DE DATOS antes de registrar: si falla, el juego
+        // no queda en la lista sin estar guardado
+        try {
+            statsRepository.addGame(gameName, jarFile.getAbsolutePath());
+        } catch (SQLException e) {
+            // Si ya existe, ignorar el error (UNIQUE constraint)
+            if (e.getMessage() == null || !e.getMessage().contains("UNIQUE constraint")) {
+                gameInstance.unload();
+                throw new GameLoadException("Error guardando " + gameName + ": " +
+                        e.getMessage(), e);
             }
+        } catch (RuntimeException | Error e) {
+            gameInstance.unload();
+            throw e;
+        }
 
-            System.out.println("✓ Juego cargado: " + gameName);
+        // Si ya estaba registrado, GameManager descarga la versión anterior
+        GameManager.getInstance().registerGame(gameName, gameInstance);
 
-        } catch (Exception e) {
-            throw new GameLoadException(
-                    "Error cargando " + jarFile.getName() + ": " + e.getMessage(),
-                    e
-            );
-        }
+        CdsArchive.fromSystemProperty().markStale("juego importado: " + gameName);
+        System.out.println("✓ Juego cargado: " + gameName);
+        return gameInstance;
     }
 
     /**
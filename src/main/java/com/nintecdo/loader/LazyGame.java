@@ -0,0 +1,221 @@
+package com.nintecdo.loader;
+
+import com.nintecdo.assets.AssetCache;
+import com.nintecdo.assets.GameAssets;
+import com.nintecdo.core.IAssetAwareGame;
+import com.nintecdo.core.IGame;
+import com.nintecdo.core.IGameListener;
+import com.nintecdo.exception.GameLoadException;
+import com.nintecdo.launcher.BootProfiler;
+import javafx.scene.layout.Pane;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Juego registrado solo con su {@link PluginDescriptor}.
+ *
+ * El class loader, la clase y la instancia del juego se crean en
+ * {@link #activate()}, que GameManager llama la primera vez que se inicia
+ * el juego. Nombre y versión salen del manifest sin activar; el resto de
+ * métodos de IGame activan el juego si hace falta. Si el juego implementa
+ * {@link IAssetAwareGame}, recibe al activarse su servicio de recursos
+ * sobre la {@link AssetCache} de la plataforma.
+ *
+ * {@link #unload()} detiene el juego, suelta la instancia y cierra el
+ * class loader; después ya no se puede activar.
+ */
+public class LazyGame implements IGame {
+    private final PluginDescriptor descriptor;
+    private volatile IGame game;
+    private PluginClassLoader loader;
+    private GameAssets assets;
+    private PluginUnloadProbe unloadProbe;
+
+    public LazyGame(PluginDescriptor descriptor) {
+        this.descriptor = descriptor;
+    }
+
+    public PluginDescriptor getDescriptor() {
+        return descriptor;
+    }
+
+    public boolean isActive() {
+        return game != null;
+    }
+
+    /**
+     * @return instancia real si ya se activó, o null
+     */
+    public IGame getActiveInstance() {
+        return game;
+    }
+
+    /**
+     * Carga la clase del juego y crea la instancia, solo la primera vez.
+     *
+     * @return instancia real del juego
+     * @throws GameLoadException si la clase no se puede cargar o instanciar
+     */
+    public IGame activate() throws GameLoadException {
+        IGame active = game;
+        if (active != null) {
+            return active;
+        }
+
+        synchronized (this) {
+            if (unloadProbe != null) {
+                throw new GameLoadException("El juego " + descriptor.getTitle() +
+                        " se ha descargado");
+            }
+            if (game == null) {
+                PluginClassLoader classLoader = BootProfiler.getInstance().time(
+                        BootProfiler.PLUGIN_CLASS_LOADER, descriptor.getTitle(),
+                        () -> GameLoader.newClassLoader(descriptor));
+                IGame instance;
+                GameAssets gameAssets;
+                try {
+                    instance = GameLoader.instantiate(descriptor, classLoader);
+                    gameAssets = provideAssets(instance, classLoader);
+                } catch (GameLoadException e) {
+                    closeQuietly(classLoader);
+                    throw e;
+                }
+                loader = classLoader;
+                assets = gameAssets;
+                game = instance;
+                System.out.println("✓ Juego activado: " + descriptor.getTitle());
+            }
+            return game;
+        }
+    }
+
+    /**
+     * Detiene el juego si estaba activo, suelta la instancia y cierra su
+     * class loader. Quien siga teniendo objetos del juego (su panel, hilos
+     * propios...) impide que se recolecte; {@link PluginUnloadProbe} lo
+     * comprueba.
+     *
+     * @return sonda sobre el class loader cerrado (la misma si ya se descargó)
+     */
+    public synchronized PluginUnloadProbe unload() {
+        if (unloadProbe != null) {
+            return unloadProbe;
+        }
+
+        IGame active = game;
+        PluginClassLoader classLoader = loader;
+        GameAssets gameAssets = assets;
+        game = null;
+        loader = null;
+        assets = null;
+
+        if (active != null) {
+            try {
+                active.stop();
+            } catch (RuntimeException e) {
+                System.err.println("✗ Error deteniendo " + descriptor.getTitle() +
+                        ": " + e.getMessage());
+            }
+        }
+        if (gameAssets != null) {
+            gameAssets.release();
+        }
+        if (classLoader != null) {
+            closeQuietly(classLoader);
+        }
+
+        unloadProbe = new PluginUnloadProbe(descriptor.getTitle(), classLoader);
+        return unloadProbe;
+    }
+
+    /**
+     * @return servicio de recursos entregado al juego, o null si no lo usa
+     */
+    private GameAssets provideAssets(IGame instance, PluginClassLoader classLoader)
+            throws GameLoadException {
+        if (!(instance instanceof IAssetAwareGame)) {
+            return null;
+        }
+
+        GameAssets gameAssets = AssetCache.getInstance()
+                .forGame(descriptor.getTitle(), classLoader);
+        try {
+            ((IAssetAwareGame) instance).setAssetService(gameAssets);
+        } catch (RuntimeException e) {
+            gameAssets.release();
+            throw new GameLoadException("Error preparando los recursos de " +
+                    descriptor.getTitle() + ": " + e.getMessage(), e);
+        }
+        return gameAssets;
+    }
+
+    private void closeQuietly(PluginClassLoader classLoader) {
+        try {
+            classLoader.close();
+        } catch (IOException e) {
+            System.err.println("✗ Error cerrando " + descriptor.getJarFile().getName() +
+                    ": " + e.getMessage());
+        }
+    }
+
+    private IGame delegate() {
+        try {
+            return activate();
+        } catch (GameLoadException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void start() {
+        delegate().start();
+    }
+
+    @Override
+    public void stop() {
+        IGame active = game;
+        if (active != null) {
+            active.stop();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return descriptor.getTitle();
+    }
+
+    @Override
+    public String getVersion() {
+        return descriptor.getVersion();
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        IGame active = game;
+        return active != null ? active.getStats() : Map.of();
+    }
+
+    @Override
+    public void addGameListener(IGameListener listener) {
+        delegate().addGameListener(listener);
+    }
+
+    @Override
+    public void removeGameListener(IGameListener listener) {
+        IGame active = game;
+        if (active != null) {
+            active.removeGameListener(listener);
+        }
+    }
+
+    @Override
+    public Pane getGamePanel() {
+        return delegate().getGamePanel();
+    }
+
+    @Override
+    public String toString() {
+        return "LazyGame[" + descriptor + (isActive() ? ", activo" : "") + "]";
+    }
+}
@@ -0,0 +1,144 @@
+package com.nintecdo.loader;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class loader de un JAR de juego.
+ *
+ * Delega en el padre (la plataforma) como cualquier URLClassLoader, salvo
+ * los paquetes que el juego trae idénticos a los de la
+ * {@link SharedLibraryLoader}: esos se resuelven en la capa compartida.
+ *
+ * Cuenta las clases que define y las que se ahorra, y se apunta, con una
+ * referencia débil, en un registro global: {@link PluginMemoryReport} lo
+ * recorre para ver qué loaders siguen vivos, incluidos los ya cerrados que
+ * algo sigue reteniendo.
+ */
+final class PluginClassLoader extends URLClassLoader {
+    private static final Set<WeakReference<PluginClassLoader>> LOADERS =
+            ConcurrentHashMap.newKeySet();
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    private final String gameName;
+    private final SharedLibraryLoader sharedLibraries;
+    // Clases del JAR que se resuelven en la capa compartida -> tamaño del .class
+    private final Map<String, Integer> sharedClasses;
+    private final Set<String> sharedPackages = new HashSet<>();
+    private final AtomicInteger definedClasses = new AtomicInteger();
+    private volatile boolean closed;
+
+    /**
+     * @param sharedLibraries capa compartida, o null
+     * @param sharedClasses clases del JAR idénticas a las de la capa
+     *                      ({@link SharedLibraryLoader#sharedClassesOf})
+     */
+    PluginClassLoader(String gameName, URL jar, ClassLoader parent,
+                      SharedLibraryLoader sharedLibraries, Map<String, Integer> sharedClasses) {
+        super("plugin:" + gameName, new URL[]{jar}, parent);
+        this.gameName = gameName;
+        this.sharedLibraries = sharedLibraries;
+        this.sharedClasses = sharedClasses;
+        for (String className : sharedClasses.keySet()) {
+            sharedPackages.add(SharedLibraryLoader.packageOf(className));
+        }
+        LOADERS.add(new WeakReference<>(this));
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (sharedLibraries == null
+                || !sharedPackages.contains(SharedLibraryLoader.packageOf(name))) {
+            return super.loadClass(name, resolve);
+        }
+
+        Class<?> clazz = sharedLibraries.loadClass(name);
+        if (resolve) {
+            resolveClass(clazz);
+        }
+        return clazz;
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        // Solo llega aquí lo que el padre no tiene: cada éxito es una clase nueva
+        Class<?> clazz = super.findClass(name);
+        definedClasses.incrementAndGet();
+        return clazz;
+    }
+
+    String getGameName() {
+        return gameName;
+    }
+
+    int getDefinedClasses() {
+        return definedClasses.get();
+    }
+
+    /**
+     * @return clases del JAR ya cargadas en la capa compartida, que este
+     *         loader no ha tenido que definir
+     */
+    int getSharedClasses() {
+        int loaded = 0;
+        for (String className : sharedClasses.keySet()) {
+            if (sharedLibraries.isLoaded(className)) {
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * @return bytes de .class de {@link #getSharedClasses()}
+     */
+    long getSharedBytes() {
+        long bytes = 0;
+        for (Map.Entry<String, Integer> entry : sharedClasses.entrySet()) {
+            if (sharedLibraries.isLoaded(entry.getKey())) {
+                bytes += entry.getValue();
+            }
+        }
+        return bytes;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        super.close();
+    }
+
+    /**
+     * @return loaders aún no recolectados
+     */
+    static List<PluginClassLoader> liveLoaders() {
+        List<PluginClassLoader> live = new ArrayList<>();
+        Iterator<WeakReference<PluginClassLoader>> it = LOADERS.iterator();
+        while (it.hasNext()) {
+            PluginClassLoader loader = it.next().get();
+            if (loader == null) {
+                it.remove();
+            } else {
+                live.add(loader);
+            }
+        }
+        return live;
+    }
+}
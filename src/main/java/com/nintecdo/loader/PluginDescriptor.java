@@ -0,0 +1,135 @@
+package com.nintecdo.loader;
+
+import com.nintecdo.exception.GameLoadException;
+import com.nintecdo.persistence.PluginCacheEntry;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Datos de un juego leídos de su manifest.properties, sin cargar clases.
+ *
+ * Claves del manifest: game.class y game.title (obligatorias),
+ * game.version y game.category (opcionales).
+ */
+public final class PluginDescriptor {
+    static final String MANIFEST_ENTRY = "manifest.properties";
+
+    private final File jarFile;
+    private final long jarSize;
+    private final String gameClass;
+    private final String title;
+    private final String version;
+    private final String category;
+
+    private PluginDescriptor(File jarFile, long jarSize, String gameClass,
+                             String title, String version, String category) {
+        this.jarFile = jarFile;
+        this.jarSize = jarSize;
+        this.gameClass = gameClass;
+        this.title = title;
+        this.version = version;
+        this.category = category;
+    }
+
+    /**
+     * Lee el manifest directamente del ZIP.
+     *
+     * @param jarFile JAR del juego
+     * @return descriptor del juego
+     * @throws GameLoadException si el JAR no se puede leer o el manifest
+     *                           falta o está incompleto
+     */
+    public static PluginDescriptor read(File jarFile) throws GameLoadException {
+        Properties props = new Properties();
+
+        try (ZipFile zip = new ZipFile(jarFile)) {
+            ZipEntry entry = zip.getEntry(MANIFEST_ENTRY);
+            if (entry == null) {
+                throw new GameLoadException(
+                        "No se encontró " + MANIFEST_ENTRY + " en " + jarFile.getName()
+                );
+            }
+
+            try (InputStream in = zip.getInputStream(entry)) {
+                props.load(in);
+            }
+        } catch (IOException e) {
+            throw new GameLoadException(
+                    "No se pudo leer " + jarFile.getName() + ": " + e.getMessage(), e
+            );
+        }
+
+        String gameClass = props.getProperty("game.class");
+        String title = props.getProperty("game.title");
+
+        if (gameClass == null || title == null) {
+            throw new GameLoadException("Manifest incompleto en " + jarFile.getName());
+        }
+
+        return new PluginDescriptor(
+                jarFile,
+                jarFile.length(),
+                gameClass.trim(),
+                title.trim(),
+                props.getProperty("game.version", "").trim(),
+                props.getProperty("game.category", "").trim()
+        );
+    }
+
+    /**
+     * Descriptor de un JAR que no ha cambiado desde que se guardó su entrada.
+     */
+    static PluginDescriptor fromCache(File jarFile, PluginCacheEntry entry) {
+        return new PluginDescriptor(
+                jarFile,
+                entry.getSize(),
+                entry.getGameClass(),
+                entry.getTitle(),
+                entry.getVersion(),
+                entry.getCategory()
+        );
+    }
+
+    public File getJarFile() {
+        return jarFile;
+    }
+
+    /**
+     * @return tamaño del JAR en bytes al leer el manifest
+     */
+    public long getJarSize() {
+        return jarSize;
+    }
+
+    public String getGameClass() {
+        return gameClass;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * @return game.version, o cadena vacía si el manifest no la tiene
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * @return game.category, o cadena vacía si el manifest no la tiene
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    @Override
+    public String toString() {
+        return title + " (" + gameClass + ", " + jarFile.getName() + ")";
+    }
+}
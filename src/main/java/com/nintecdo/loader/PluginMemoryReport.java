@@ -0,0 +1,165 @@
+package com.nintecdo.loader;
+
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Clases cargadas por cada plugin y uso global de metaspace.
+ *
+ * La JVM no da el metaspace de cada class loader, así que por plugin se
+ * informa del número de clases definidas; el metaspace es el total del
+ * proceso. Un loader cerrado que sigue apareciendo tras una recolección
+ * es un juego descargado que algo retiene.
+ *
+ * Las clases compartidas de cada plugin son las que trae en su JAR pero
+ * se resolvieron en la {@link SharedLibraryLoader}: clases y bytes de
+ * .class que ese plugin no ha tenido que definir.
+ */
+public class PluginMemoryReport {
+
+    /**
+     * Class loader de plugin todavía vivo.
+     */
+    public static final class Entry {
+        private final String gameName;
+        private final int classes;
+        private final int sharedClasses;
+        private final long sharedBytes;
+        private final boolean closed;
+
+        Entry(String gameName, int classes, int sharedClasses, long sharedBytes,
+              boolean closed) {
+            this.gameName = gameName;
+            this.classes = classes;
+            this.sharedClasses = sharedClasses;
+            this.sharedBytes = sharedBytes;
+            this.closed = closed;
+        }
+
+        public String getGameName() {
+            return gameName;
+        }
+
+        public int getClasses() {
+            return classes;
+        }
+
+        /**
+         * @return clases del JAR resueltas en la capa compartida
+         */
+        public int getSharedClasses() {
+            return sharedClasses;
+        }
+
+        /**
+         * @return bytes de .class que el plugin no ha tenido que definir
+         */
+        public long getSharedBytes() {
+            return sharedBytes;
+        }
+
+        /**
+         * @return true si el juego se descargó pero el loader no se ha recolectado
+         */
+        public boolean isClosed() {
+            return closed;
+        }
+    }
+
+    private final List<Entry> entries;
+    private final int sharedLibraryClasses;
+    private final long metaspaceUsed;
+    private final int loadedClasses;
+    private final long unloadedClasses;
+
+    private PluginMemoryReport(List<Entry> entries, int sharedLibraryClasses,
+                               long metaspaceUsed, int loadedClasses, long unloadedClasses) {
+        this.entries = entries;
+        this.sharedLibraryClasses = sharedLibraryClasses;
+        this.metaspaceUsed = metaspaceUsed;
+        this.loadedClasses = loadedClasses;
+        this.unloadedClasses = unloadedClasses;
+    }
+
+    /**
+     * Toma una foto del estado actual. No fuerza ninguna recolección.
+     */
+    public static PluginMemoryReport capture() {
+        List<Entry> entries = new ArrayList<>();
+        for (PluginClassLoader loader : PluginClassLoader.liveLoaders()) {
+            entries.add(new Entry(loader.getGameName(), loader.getDefinedClasses(),
+                    loader.getSharedClasses(), loader.getSharedBytes(), loader.isClosed()));
+        }
+
+        long metaspace = -1;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getName().equals("Metaspace")) {
+                metaspace = pool.getUsage().getUsed();
+            }
+        }
+
+        ClassLoadingMXBean classLoading = ManagementFactory.getClassLoadingMXBean();
+        SharedLibraryLoader sharedLibraries = SharedLibraryLoader.getInstance();
+        return new PluginMemoryReport(Collections.unmodifiableList(entries),
+                sharedLibraries != null ? sharedLibraries.getDefinedClasses() : 0, metaspace,
+                classLoading.getLoadedClassCount(), classLoading.getUnloadedClassCount());
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return clases definidas una sola vez en la capa de librerías compartidas
+     */
+    public int getSharedLibraryClasses() {
+        return sharedLibraryClasses;
+    }
+
+    /**
+     * @return bytes de metaspace usados por todo el proceso, o -1 si la JVM no lo informa
+     */
+    public long getMetaspaceUsed() {
+        return metaspaceUsed;
+    }
+
+    public int getLoadedClasses() {
+        return loadedClasses;
+    }
+
+    public long getUnloadedClasses() {
+        return unloadedClasses;
+    }
+
+    /**
+     * @return loaders de juegos descargados que aún no se han recolectado
+     */
+    public int getRetainedLoaders() {
+        int retained = 0;
+        for (Entry entry : entries) {
+            if (entry.isClosed()) {
+                retained++;
+            }
+        }
+        return retained;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("Metaspace: %,d KB, clases cargadas: %,d, descargadas: %,d, " +
+                        "en librerías compartidas: %,d%n",
+                metaspaceUsed / 1024, loadedClasses, unloadedClasses, sharedLibraryClasses));
+        for (Entry entry : entries) {
+            text.append(String.format("  %-30s %,6d clases, %,d compartidas (%,d KB)%s%n",
+                    entry.getGameName(), entry.getClasses(), entry.getSharedClasses(),
+                    entry.getSharedBytes() / 1024,
+                    entry.isClosed() ? "  (descargado, retenido)" : ""));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,131 @@
+package com.nintecdo.loader;
+
+import com.nintecdo.exception.GameLoadException;
+import com.nintecdo.persistence.PluginCacheEntry;
+import com.nintecdo.persistence.StatsStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Obtiene el {@link PluginDescriptor} de cada JAR usando la caché de
+ * metadatos del almacén (tabla plugin_cache).
+ *
+ * Un JAR con el mismo tamaño y fecha de modificación que su entrada no se
+ * abre: se usa lo guardado, incluido el error si no era válido. Si cambió,
+ * o no tenía entrada, se lee el manifest, se calcula el SHA-256 y se
+ * guarda la entrada nueva. La caché solo acelera el arranque: si no se
+ * puede leer o escribir, se escanea igualmente.
+ */
+final class PluginScanner {
+    private final StatsStore store;
+    private volatile Map<String, PluginCacheEntry> cache = new HashMap<>();
+    private final AtomicInteger cacheHits = new AtomicInteger();
+    private final AtomicInteger rescanned = new AtomicInteger();
+
+    PluginScanner(StatsStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Lee las entradas guardadas. Se llama una vez, antes de escanear.
+     */
+    void loadCache() {
+        try {
+            cache = store.getPluginCache();
+        } catch (SQLException e) {
+            System.err.println("✗ Caché de plugins no disponible: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @param jarFile JAR existente
+     * @return descriptor del juego
+     * @throws GameLoadException si el JAR no es válido (ahora o la última
+     *                           vez que se escaneó, si no ha cambiado)
+     */
+    PluginDescriptor scan(File jarFile) throws GameLoadException {
+        // Misma ruta que games.file_path, para poder cruzarlas
+        String path = jarFile.getPath();
+        long size = jarFile.length();
+        long lastModified = jarFile.lastModified();
+
+        PluginCacheEntry cached = cache.get(path);
+        if (cached != null && cached.matches(size, lastModified)) {
+            cacheHits.incrementAndGet();
+            if (!cached.isValid()) {
+                throw new GameLoadException(cached.getError());
+            }
+            return PluginDescriptor.fromCache(jarFile, cached);
+        }
+
+        rescanned.incrementAndGet();
+        String sha256 = sha256(jarFile);
+
+        PluginDescriptor descriptor = null;
+        GameLoadException error = null;
+        try {
+            descriptor = PluginDescriptor.read(jarFile);
+        } catch (GameLoadException e) {
+            error = e;
+        }
+
+        save(new PluginCacheEntry(
+                path, size, lastModified, sha256,
+                descriptor != null ? descriptor.getGameClass() : null,
+                descriptor != null ? descriptor.getTitle() : null,
+                descriptor != null ? descriptor.getVersion() : null,
+                descriptor != null ? descriptor.getCategory() : null,
+                error != null ? error.getMessage() : null
+        ));
+
+        if (error != null) {
+            throw error;
+        }
+        return descriptor;
+    }
+
+    int getCacheHits() {
+        return cacheHits.get();
+    }
+
+    int getRescanned() {
+        return rescanned.get();
+    }
+
+    private void save(PluginCacheEntry entry) {
+        try {
+            store.savePluginCacheEntry(entry);
+        } catch (SQLException e) {
+            System.err.println("✗ No se pudo guardar la caché de " +
+                    entry.getFilePath() + ": " + e.getMessage());
+        }
+    }
+
+    private static String sha256(File jarFile) throws GameLoadException {
+        try (InputStream in = Files.newInputStream(jarFile.toPath())) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            throw new GameLoadException(
+                    "No se pudo leer " + jarFile.getName() + ": " + e.getMessage(), e
+            );
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.nintecdo.loader;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+
+/**
+ * Comprueba que un juego descargado se puede recolectar: guarda una
+ * referencia débil a su class loader, que solo se limpia cuando no queda
+ * ninguna instancia ni clase del juego alcanzable.
+ */
+public class PluginUnloadProbe {
+    private final String gameName;
+    private final WeakReference<ClassLoader> loader;
+
+    /**
+     * @param loader loader del juego, o null si nunca llegó a activarse
+     */
+    PluginUnloadProbe(String gameName, ClassLoader loader) {
+        this.gameName = gameName;
+        this.loader = new WeakReference<>(loader);
+    }
+
+    public String getGameName() {
+        return gameName;
+    }
+
+    /**
+     * @return true si el class loader ya se ha recolectado
+     */
+    public boolean isUnloaded() {
+        return loader.get() == null;
+    }
+
+    /**
+     * Pide recolecciones hasta que se libere el class loader o pase el
+     * tiempo indicado. Pensado para diagnóstico, no para el arranque.
+     *
+     * @return true si se liberó; false indica que algo retiene el juego
+     */
+    public boolean awaitUnloaded(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!isUnloaded()) {
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return isUnloaded();
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,304 @@
+package com.nintecdo.loader;
+
+import com.nintecdo.core.IGame;
+import com.nintecdo.exception.GameLoadException;
+import com.nintecdo.launcher.CdsArchive;
+import com.nintecdo.manager.GameManager;
+import com.nintecdo.persistence.StatsStore;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vigila el directorio de plugins en un hilo en segundo plano y registra
+ * los JARs que aparecen o cambian mientras la consola está abierta.
+ *
+ * Los eventos de un mismo archivo se agrupan: el JAR se procesa cuando
+ * lleva {@code debounce} sin cambios, así que una copia lenta no se lee a
+ * medias. Un juego nuevo se registra como {@link LazyGame} y se guarda en
+ * el almacén. Si el título ya estaba registrado se sustituye por un
+ * LazyGame nuevo, que usará un class loader nuevo al jugar. El cambio pasa
+ * por {@link GameManager#replaceGame}, que lo aplaza si hay una partida en
+ * curso, y la ruta nueva se guarda para el siguiente arranque. Borrar un
+ * JAR no quita el juego hasta reiniciar.
+ */
+public class PluginWatcher implements AutoCloseable {
+    public static final String DIR_PROPERTY = "nintecdo.plugins.dir";
+    private static final Duration DEFAULT_DEBOUNCE = Duration.ofMillis(500);
+
+    /**
+     * Avisos del vigilante. Llegan desde su hilo.
+     */
+    public interface Listener {
+        void onGameAdded(String gameName);
+
+        /**
+         * @param applied false si el cambio espera a que termine la partida
+         */
+        void onGameUpdated(String gameName, boolean applied);
+
+        void onPluginFailed(Path jar, Exception error);
+    }
+
+    private final Path dir;
+    private final StatsStore statsRepository;
+    private final Listener listener;
+    private final long debounceNanos;
+    private final WatchService watchService;
+    private final Thread thread;
+    // Tamaño y fecha de cada JAR ya procesado, para ignorar eventos sin cambios
+    private final Map<Path, String> stamps = new HashMap<>();
+    private volatile boolean running = true;
+
+    public PluginWatcher(Path dir, StatsStore statsRepository, Listener listener)
+            throws IOException {
+        this(dir, statsRepository, listener, DEFAULT_DEBOUNCE);
+    }
+
+    /**
+     * Empieza a vigilar el directorio (lo crea si no existe) y registra los
+     * JARs que ya contiene y no estaban registrados.
+     *
+     * @param dir directorio de plugins
+     * @param statsRepository almacén donde se guardan los juegos nuevos
+     * @param listener avisos de juegos añadidos o actualizados
+     * @param debounce tiempo sin eventos antes de leer un JAR
+     * @throws IOException si no se puede crear o vigilar el directorio
+     */
+    public PluginWatcher(Path dir, StatsStore statsRepository, Listener listener,
+                         Duration debounce) throws IOException {
+        this.dir = dir.toAbsolutePath().normalize();
+        this.statsRepository = statsRepository;
+        this.listener = listener;
+        this.debounceNanos = debounce.toNanos();
+
+        Files.createDirectories(this.dir);
+        this.watchService = this.dir.getFileSystem().newWatchService();
+        this.dir.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+
+        this.thread = new Thread(this::run, "plugin-watcher");
+        thread.setDaemon(true);
+        thread.start();
+
+        System.out.println("✓ Vigilando plugins en " + this.dir);
+    }
+
+    /**
+     * Obtiene el directorio configurado en {@link #DIR_PROPERTY}, o
+     * {@code ./plugins}.
+     *
+     * @return directorio de plugins
+     */
+    public static Path dirFromSystemProperty() {
+        String value = System.getProperty(DIR_PROPERTY);
+        if (value == null || value.isBlank()) {
+            return Path.of(GameLoader.PLUGINS_DIR);
+        }
+        return Path.of(value.trim());
+    }
+
+    public Path getDir() {
+        return dir;
+    }
+
+    private void run() {
+        // Lo que ya había al arrancar: solo se añaden juegos que falten
+        for (Path jar : listJars()) {
+            process(jar, true);
+        }
+
+        Map<Path, Long> due = new HashMap<>();
+
+        try {
+            while (running) {
+                WatchKey key = due.isEmpty()
+                        ? watchService.take()
+                        : watchService.poll(nextWait(due), TimeUnit.NANOSECONDS);
+
+                if (key != null) {
+                    long deadline = System.nanoTime() + debounceNanos;
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            // Se perdieron eventos: se revisa todo el directorio
+                            for (Path jar : listJars()) {
+                                due.put(jar, deadline);
+                            }
+                        } else {
+                            Path file = dir.resolve((Path) event.context());
+                            if (isJar(file)) {
+                                due.put(file, deadline);
+                            }
+                        }
+                    }
+                    key.reset();
+                }
+
+                processDue(due);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // close()
+        }
+    }
+
+    private List<Path> listJars() {
+        List<Path> found = new ArrayList<>();
+        try (DirectoryStream<Path> jars = Files.newDirectoryStream(dir, "*.jar")) {
+            for (Path jar : jars) {
+                found.add(jar);
+            }
+        } catch (IOException e) {
+            System.err.println("✗ Error leyendo " + dir + ": " + e.getMessage());
+        }
+        return found;
+    }
+
+    private long nextWait(Map<Path, Long> due) {
+        long next = Long.MAX_VALUE;
+        for (long deadline : due.values()) {
+            next = Math.min(next, deadline);
+        }
+        return Math.max(1, next - System.nanoTime());
+    }
+
+    private void processDue(Map<Path, Long> due) {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Path, Long>> it = due.entrySet().iterator();
+
+        while (it.hasNext()) {
+            Map.Entry<Path, Long> entry = it.next();
+            if (entry.getValue() - now > 0) {
+                continue;
+            }
+            it.remove();
+
+            Path jar = entry.getKey();
+            if (Files.isRegularFile(jar)) {
+                process(jar, false);
+            }
+        }
+    }
+
+    /**
+     * @param initial JAR encontrado al arrancar: si su juego ya está
+     *                registrado solo se sustituye si el JAR lo reemplaza
+     *                (ver {@link #supersedes})
+     */
+    private void process(Path jar, boolean initial) {
+        String stamp;
+        try {
+            stamp = Files.size(jar) + "@" + Files.getLastModifiedTime(jar).toMillis();
+        } catch (IOException e) {
+            // Borrado o movido mientras tanto
+            return;
+        }
+        if (stamp.equals(stamps.get(jar))) {
+            return;
+        }
+
+        try {
+            PluginDescriptor descriptor = PluginDescriptor.read(jar.toFile());
+            stamps.put(jar, stamp);
+
+            String gameName = descriptor.getTitle();
+            GameManager manager = GameManager.getInstance();
+            LazyGame game = new LazyGame(descriptor);
+
+            if (!manager.hasGame(gameName)) {
+                manager.registerGame(gameName, game);
+                saveGame(gameName, jar);
+                CdsArchive.fromSystemProperty().markStale("juego nuevo: " + gameName);
+                System.out.println("✓ Juego nuevo en plugins: " + gameName);
+                listener.onGameAdded(gameName);
+            } else if (!initial || supersedes(manager.getGame(gameName), jar)) {
+                boolean applied = manager.replaceGame(gameName, game);
+                saveGame(gameName, jar);
+                CdsArchive.fromSystemProperty().markStale("juego actualizado: " + gameName);
+                System.out.println("✓ Juego " + gameName + (applied
+                        ? " actualizado desde " + jar.getFileName()
+                        : " se actualizará al terminar la partida"));
+                listener.onGameUpdated(gameName, applied);
+            }
+        } catch (GameLoadException e) {
+            // Puede ser una copia a medias: el siguiente evento lo reintenta
+            System.err.println("✗ Plugin no válido " + jar.getFileName() + ": " + e.getMessage());
+            listener.onPluginFailed(jar, e);
+        }
+    }
+
+    /**
+     * Al arrancar, el juego registrado puede venir de otra ruta (una
+     * importación o snake-1.0.jar) aunque en el directorio ya esté
+     * snake-1.1.jar. El JAR encontrado lo sustituye si esa ruta ya no existe
+     * o si el JAR es más reciente; si no, al reiniciar se volvería a la
+     * versión anterior.
+     */
+    private static boolean supersedes(IGame registered, Path jar) {
+        if (!(registered instanceof LazyGame)) {
+            return false;
+        }
+
+        Path current = ((LazyGame) registered).getDescriptor().getJarFile()
+                .toPath().toAbsolutePath().normalize();
+        if (current.equals(jar.toAbsolutePath().normalize())) {
+            return false;
+        }
+
+        try {
+            return !Files.isRegularFile(current) ||
+                    Files.getLastModifiedTime(jar).compareTo(Files.getLastModifiedTime(current)) > 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Guarda la ruta del JAR, también si el juego ya estaba guardado con otra.
+     */
+    private void saveGame(String gameName, Path jar) {
+        try {
+            statsRepository.updateGamePath(gameName, jar.toString());
+        } catch (SQLException e) {
+            System.err.println("✗ Error guardando " + gameName + ": " + e.getMessage());
+        }
+    }
+
+    private static boolean isJar(Path file) {
+        return file.getFileName().toString().endsWith(".jar");
+    }
+
+    /**
+     * Deja de vigilar y espera a que termine el hilo.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("✗ Error cerrando el vigilante de plugins: " + e.getMessage());
+        }
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
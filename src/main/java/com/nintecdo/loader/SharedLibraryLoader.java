@@ -0,0 +1,168 @@
+package com.nintecdo.loader;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Capa de librerías compartidas entre juegos: los JARs del directorio
+ * lib dentro del directorio de plugins.
+ *
+ * Los juegos empaquetados con jar-with-dependencies traen sus propias
+ * copias de las librerías. Un paquete del juego se resuelve en esta capa,
+ * una sola vez para todos los juegos, cuando cada clase que el juego trae
+ * en ese paquete es idéntica a la de la capa (mismo CRC32 y tamaño en el
+ * directorio del ZIP, sin descomprimir nada). Si alguna difiere, el juego
+ * trae otra versión y el paquete entero sigue aislado en su loader: no se
+ * parte un paquete entre dos loaders, porque el acceso de paquete dejaría
+ * de funcionar.
+ *
+ * Las clases de esta capa no se descargan con los juegos. Los JARs se leen
+ * una vez, la primera vez que se activa un juego; para cambiarlos hay que
+ * reiniciar.
+ */
+final class SharedLibraryLoader extends URLClassLoader {
+    static final String LIB_DIR = "lib";
+
+    private static SharedLibraryLoader instance;
+    private static boolean initialized;
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    // Clase -> (tamaño << 32) | CRC32 del .class
+    private final Map<String, Long> stamps;
+    private final AtomicInteger definedClasses = new AtomicInteger();
+
+    private SharedLibraryLoader(URL[] jars, Map<String, Long> stamps, ClassLoader parent) {
+        super("plugin-libs", jars, parent);
+        this.stamps = stamps;
+    }
+
+    /**
+     * @return capa del directorio lib de los plugins, o null si no hay JARs
+     */
+    static synchronized SharedLibraryLoader getInstance() {
+        if (!initialized) {
+            initialized = true;
+            File dir = PluginWatcher.dirFromSystemProperty().resolve(LIB_DIR).toFile();
+            instance = open(dir, GameLoader.class.getClassLoader());
+        }
+        return instance;
+    }
+
+    /**
+     * @param dir directorio con los JARs compartidos
+     * @param parent loader de la plataforma
+     * @return capa con los JARs del directorio, o null si no hay ninguno
+     */
+    static SharedLibraryLoader open(File dir, ClassLoader parent) {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".jar"));
+        if (files == null || files.length == 0) {
+            return null;
+        }
+        Arrays.sort(files);
+
+        List<URL> urls = new ArrayList<>();
+        Map<String, Long> stamps = new HashMap<>();
+        for (File jar : files) {
+            try (ZipFile zip = new ZipFile(jar)) {
+                // Con clases repetidas gana el primer JAR, igual que al cargar
+                forEachClass(zip, (className, stamp, size) -> stamps.putIfAbsent(className, stamp));
+                urls.add(jar.toURI().toURL());
+            } catch (IOException e) {
+                System.err.println("✗ Librería compartida no válida " + jar.getName() +
+                        ": " + e.getMessage());
+            }
+        }
+
+        if (urls.isEmpty()) {
+            return null;
+        }
+        System.out.println("✓ Librerías compartidas: " + urls.size() + " JARs, " +
+                stamps.size() + " clases");
+        return new SharedLibraryLoader(urls.toArray(new URL[0]), stamps, parent);
+    }
+
+    /**
+     * Busca las clases del JAR de un juego que se pueden resolver en esta
+     * capa.
+     *
+     * @param jarFile JAR del juego
+     * @return clases compartibles y el tamaño de su .class
+     * @throws IOException si no se puede leer el JAR
+     */
+    Map<String, Integer> sharedClassesOf(File jarFile) throws IOException {
+        Map<String, Integer> candidates = new HashMap<>();
+        Set<String> rejectedPackages = new HashSet<>();
+
+        try (ZipFile zip = new ZipFile(jarFile)) {
+            forEachClass(zip, (className, stamp, size) -> {
+                String packageName = packageOf(className);
+                if (stamp == stamps.getOrDefault(className, -1L)) {
+                    candidates.put(className, size);
+                } else {
+                    rejectedPackages.add(packageName);
+                }
+            });
+        }
+
+        candidates.keySet().removeIf(className -> rejectedPackages.contains(packageOf(className)));
+        return candidates;
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        Class<?> clazz = super.findClass(name);
+        definedClasses.incrementAndGet();
+        return clazz;
+    }
+
+    /**
+     * @return true si la clase ya está definida en esta capa
+     */
+    boolean isLoaded(String className) {
+        return findLoadedClass(className) != null;
+    }
+
+    int getDefinedClasses() {
+        return definedClasses.get();
+    }
+
+    static String packageOf(String className) {
+        int dot = className.lastIndexOf('.');
+        return dot < 0 ? "" : className.substring(0, dot);
+    }
+
+    private interface ClassEntryVisitor {
+        void visit(String className, long stamp, int size);
+    }
+
+    private static void forEachClass(ZipFile zip, ClassEntryVisitor visitor) {
+        for (ZipEntry entry : Collections.list(zip.entries())) {
+            String name = entry.getName();
+            if (entry.isDirectory() || !name.endsWith(".class")
+                    || name.startsWith("META-INF/") || name.endsWith("module-info.class")) {
+                continue;
+            }
+
+            String className = name.substring(0, name.length() - ".class".length())
+                    .replace('/', '.');
+            long stamp = (entry.getSize() << 32) | entry.getCrc();
+            visitor.visit(className, stamp, (int) entry.getSize());
+        }
+    }
+}
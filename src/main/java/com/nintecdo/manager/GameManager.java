@@ -3,18 +3,37 @@ package com.nintecdo.manager;
 import com.nintecdo.core.IGame;
 import com.nintecdo.core.IGameListener;
 import com.nintecdo.exception.GameLoadException;
+import com.nintecdo.loader.LazyGame;
+import javafx.application.Platform;
 import javafx.scene.layout.Pane;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * Registro de juegos cargados.
+ *
+ * Los juegos se registran desde los hilos de GameLoader mientras la
+ * interfaz ya los está listando e iniciando, así que las colecciones son
+ * concurrentes. Los juegos de plugins se registran como {@link LazyGame},
+ * que crea la instancia real la primera vez que se inician y la descarga
+ * cuando el juego se sustituye o se quita del registro.
+ *
+ * Una partida está en curso desde startGame hasta que el juego avisa con
+ * onGameFinished. Mientras tanto {@link #replaceGame} no cambia ningún
+ * juego: deja el cambio pendiente y lo aplica al terminar la partida.
+ */
 public class GameManager {
     private static GameManager instance;
-    private Map<String, IGame> games = new HashMap<>();
-    private List<IGameListener> listeners = new ArrayList<>();
-    private IGame currentGame;
+    private final Map<String, IGame> games = new ConcurrentHashMap<>();
+    private final List<IGameListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile IGame currentGame;
+    private final Map<String, IGame> pendingSwaps = new ConcurrentHashMap<>();
+    private final IGameListener sessionListener = stats -> endSession();
+    private boolean sessionActive;
 
     private GameManager() {}
 
@@ -25,23 +44,146 @@ public class GameManager {
         return instance;
     }
 
-    public void registerGame(String name, IGame game) {
-        games.put(name, game);
+    /**
+     * Registra un juego. Si ya había otro con ese nombre, lo descarga.
+     */
+    public synchronized void registerGame(String name, IGame game) {
+        IGame previous = games.put(name, game);
+        if (previous != null && previous != game) {
+            retire(previous);
+        }
+    }
+
+    /**
+     * Quita un juego del registro y lo descarga, deteniéndolo si es el de la
+     * partida en curso. También descarta un cambio pendiente de ese juego.
+     *
+     * @return juego quitado, o null si no estaba registrado
+     */
+    public synchronized IGame unregisterGame(String name) {
+        IGame pending = pendingSwaps.remove(name);
+        if (pending != null) {
+            retire(pending);
+        }
+
+        IGame game = games.remove(name);
+        if (game != null) {
+            retire(game);
+        }
+        return game;
+    }
+
+    /**
+     * Sustituye un juego ya registrado por una versión nueva, salvo que haya
+     * una partida en curso: entonces el cambio se aplica al terminarla.
+     *
+     * @return true si se sustituyó ya, false si quedó pendiente
+     */
+    public synchronized boolean replaceGame(String name, IGame game) {
+        if (sessionActive) {
+            IGame previous = pendingSwaps.put(name, game);
+            if (previous != null) {
+                retire(previous);
+            }
+            return false;
+        }
+
+        registerGame(name, game);
+        return true;
+    }
+
+    /**
+     * @return juego registrado con ese nombre, o null
+     */
+    public IGame getGame(String name) {
+        return games.get(name);
+    }
+
+    public boolean hasGame(String name) {
+        return games.containsKey(name);
+    }
+
+    public synchronized boolean isSessionActive() {
+        return sessionActive;
+    }
+
+    private synchronized void endSession() {
+        sessionActive = false;
+        currentGame = null;
+
+        for (Map.Entry<String, IGame> swap : pendingSwaps.entrySet()) {
+            IGame previous = games.put(swap.getKey(), swap.getValue());
+            // Se llega desde onGameFinished del juego que termina, con su
+            // código aún en la pila: se descarga cuando acabe el aviso
+            if (previous != null) {
+                Platform.runLater(() -> {
+                    synchronized (this) {
+                        retire(previous);
+                    }
+                });
+            }
+            System.out.println("✓ Juego actualizado: " + swap.getKey());
+        }
+        pendingSwaps.clear();
+    }
+
+    /**
+     * Suelta todas las referencias de la plataforma a un juego y, si es un
+     * LazyGame, lo detiene y cierra su class loader.
+     */
+    private void retire(IGame game) {
+        IGame instance = game instanceof LazyGame
+                ? ((LazyGame) game).getActiveInstance()
+                : game;
+
+        if (instance != null) {
+            if (instance == currentGame) {
+                currentGame = null;
+                sessionActive = false;
+            }
+            listeners.forEach(instance::removeGameListener);
+            instance.removeGameListener(sessionListener);
+        }
+
+        if (game instanceof LazyGame) {
+            ((LazyGame) game).unload();
+        } else {
+            game.stop();
+        }
     }
 
     public Pane startGame(String gameName) throws GameLoadException {
-        IGame game = games.get(gameName);
+        IGame game;
+        // La partida cuenta como empezada desde que se elige el juego: así el
+        // vigilante de plugins no puede sustituirlo mientras se activa
+        synchronized (this) {
+            game = games.get(gameName);
 
-        System.out.println("Starting game " + gameName + " Instance " + game);
+            System.out.println("Starting game " + gameName + " Instance " + game);
 
-        if (game == null) {
-            throw new GameLoadException("Juego no encontrado: " + gameName);
+            if (game == null) {
+                throw new GameLoadException("Juego no encontrado: " + gameName);
+            }
+            sessionActive = true;
         }
 
-        currentGame = game;
-        // Agregar listeners
-        listeners.forEach(game::addGameListener);
-        game.start();
+        try {
+            // Juegos registrados solo con su manifest: se cargan al jugar.
+            // El registro conserva el LazyGame, que es quien puede descargarlo
+            if (game instanceof LazyGame) {
+                game = ((LazyGame) game).activate();
+            }
+
+            currentGame = game;
+            // Agregar listeners
+            listeners.forEach(game::addGameListener);
+            game.addGameListener(sessionListener);
+
+            game.start();
+        } catch (GameLoadException | RuntimeException e) {
+            endSession();
+            throw e;
+        }
 
         return game.getGamePanel();
     }
@@ -0,0 +1,226 @@
+package com.nintecdo.persistence;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Capa de conexiones de larga duración para la base de datos SQLite.
+ *
+ * Mantiene una única conexión de escritura, serializada con un lock, y un pool
+ * de conexiones de lectura. La base se abre en modo WAL, de modo que las
+ * lecturas de rankings nunca bloquean la escritura de puntuaciones.
+ *
+ * Las conexiones entregadas son envoltorios: llamar a {@code close()} las
+ * devuelve al pool en lugar de cerrarlas, así que se usan igual que antes
+ * dentro de un try-with-resources.
+ */
+public class ConnectionManager implements AutoCloseable {
+    private static final int BUSY_TIMEOUT_MS = 5_000;
+
+    private final String dbUrl;
+    private final PragmaProfile profile;
+    private final BlockingQueue<Connection> idleReaders;
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private Connection writer;
+    private volatile boolean closed;
+
+    /**
+     * @param dbUrl URL JDBC de la base de datos
+     * @param profile perfil de PRAGMAs a aplicar a cada conexión
+     * @param maxIdleReaders número máximo de conexiones de lectura en reposo
+     */
+    public ConnectionManager(String dbUrl, PragmaProfile profile, int maxIdleReaders) {
+        this.dbUrl = dbUrl;
+        this.profile = profile;
+        this.idleReaders = new ArrayBlockingQueue<>(Math.max(1, maxIdleReaders));
+    }
+
+    public String getDbUrl() {
+        return dbUrl;
+    }
+
+    public PragmaProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Obtiene la conexión de escritura. Bloquea hasta que ningún otro hilo la
+     * esté usando; es reentrante dentro del mismo hilo.
+     * Debe cerrarse en el mismo hilo que la obtuvo.
+     *
+     * @return conexión de escritura
+     * @throws SQLException si no se puede abrir la conexión
+     */
+    public Connection getWriteConnection() throws SQLException {
+        ensureOpen();
+        writeLock.lock();
+        try {
+            if (writer == null || writer.isClosed()) {
+                writer = openConnection(true);
+            }
+            return lease(writer, true);
+        } catch (SQLException | RuntimeException e) {
+            writeLock.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * Obtiene una conexión de lectura del pool, o abre una nueva si no hay
+     * ninguna libre. Nunca bloquea esperando a otro lector.
+     *
+     * @return conexión de lectura
+     * @throws SQLException si no se puede abrir la conexión
+     */
+    public Connection getReadConnection() throws SQLException {
+        ensureOpen();
+        Connection conn = idleReaders.poll();
+        if (conn == null || conn.isClosed()) {
+            conn = openConnection(false);
+        }
+        return lease(conn, false);
+    }
+
+    /**
+     * Cierra todas las conexiones. Espera a que termine la escritura en curso.
+     */
+    @Override
+    public void close() {
+        closed = true;
+
+        Connection reader;
+        while ((reader = idleReaders.poll()) != null) {
+            closeQuietly(reader);
+        }
+
+        writeLock.lock();
+        try {
+            if (writer != null) {
+                closeQuietly(writer);
+                writer = null;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void ensureOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("El gestor de conexiones está cerrado: " + dbUrl);
+        }
+    }
+
+    private Connection openConnection(boolean forWriting) throws SQLException {
+        Connection conn = DriverManager.getConnection(dbUrl);
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MS);
+            if (forWriting) {
+                // journal_mode es persistente en el fichero; basta con la escritora
+                stmt.execute("PRAGMA journal_mode = WAL");
+            }
+            stmt.execute("PRAGMA synchronous = " + profile.getSynchronous());
+            stmt.execute("PRAGMA cache_size = " + profile.getCacheSize());
+            stmt.execute("PRAGMA mmap_size = " + profile.getMmapSize());
+            stmt.execute("PRAGMA temp_store = MEMORY");
+        } catch (SQLException e) {
+            closeQuietly(conn);
+            throw e;
+        }
+
+        return conn;
+    }
+
+    private void release(Connection conn, boolean isWriter) {
+        try {
+            // No devolver nunca al pool una transacción a medias
+            if (!conn.isClosed() && !conn.getAutoCommit()) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            closeQuietly(conn);
+        }
+
+        if (isWriter) {
+            writeLock.unlock();
+            return;
+        }
+
+        if (closed || !idleReaders.offer(conn)) {
+            closeQuietly(conn);
+        }
+    }
+
+    private Connection lease(Connection target, boolean isWriter) {
+        InvocationHandler handler = new LeaseHandler(target, isWriter);
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                handler
+        );
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            System.err.println("Error cerrando conexión: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Delegación de una conexión prestada. close() la devuelve al gestor.
+     */
+    private class LeaseHandler implements InvocationHandler {
+        private final Connection target;
+        private final boolean isWriter;
+        private boolean released;
+
+        LeaseHandler(Connection target, boolean isWriter) {
+            this.target = target;
+            this.isWriter = isWriter;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        release(target, isWriter);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || target.isClosed();
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                default:
+                    break;
+            }
+
+            if (released) {
+                throw new SQLException("La conexión ya fue devuelta al pool");
+            }
+
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
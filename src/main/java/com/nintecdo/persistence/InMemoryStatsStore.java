@@ -0,0 +1,1060 @@
+package com.nintecdo.persistence;
+
+import com.nintecdo.core.GameStats;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Motor de {@link StatsStore} en memoria, sin disco, para kioscos de
+ * demostración, benchmarks y pruebas.
+ *
+ * Cada juego guarda sus partidas en arrays primitivos paralelos (id, score,
+ * fecha en segundos UTC) ordenados por (fecha, id), de modo que los rangos
+ * de fechas y los cursores se resuelven con búsqueda binaria. Cada juego
+ * tiene su propio candado de lectura/escritura, así que distintos juegos no
+ * compiten entre sí.
+ *
+ * Devuelve lo mismo que el motor SQLite: mismos tipos en el mapa de
+ * estadísticas, mismo orden de ranking y fechas en UTC. Los datos se
+ * pierden al cerrar.
+ */
+public class InMemoryStatsStore implements StatsStore {
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int INITIAL_CAPACITY = 64;
+    private static final long SECONDS_PER_HOUR = 3600;
+    private static final long SECONDS_PER_DAY = 86400;
+
+    private final Map<String, GameData> games = new ConcurrentHashMap<>();
+    private final Map<String, PluginCacheEntry> pluginCache = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final LeaderboardCache leaderboardCache;
+    private final ScoreRankIndex rankIndex = new ScoreRankIndex();
+
+    public InMemoryStatsStore() {
+        this(StatsRepository.DEFAULT_LEADERBOARD_SIZE);
+    }
+
+    /**
+     * @param leaderboardSize posiciones por juego servidas sin recorrer las partidas
+     */
+    public InMemoryStatsStore(int leaderboardSize) {
+        this.leaderboardCache = new LeaderboardCache(leaderboardSize);
+    }
+
+    /**
+     * Partidas de un juego. Los arrays se leen y escriben con {@link #lock}.
+     */
+    private static final class GameData {
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        volatile String filePath;
+
+        int size;
+        long[] ids = new long[INITIAL_CAPACITY];
+        double[] scores = new double[INITIAL_CAPACITY];
+        long[] times = new long[INITIAL_CAPACITY];
+        /** Resto de claves normalizadas (o null), inmutables */
+        Object[] extras = new Object[INITIAL_CAPACITY];
+        /** Clave → proyección numérica de cada partida (NaN = sin valor numérico) */
+        final Map<String, double[]> numericColumns = new HashMap<>();
+
+        /** Inicio de la hora (segundos UTC) → resumen de esa hora */
+        final TreeMap<Long, StatAggregate> hourly = new TreeMap<>();
+        /** día|inicio|ancho → intervalo de partidas compactadas */
+        final Map<String, ScoreHistogramBin> histogram = new HashMap<>();
+
+        GameData(String filePath) {
+            this.filePath = filePath;
+        }
+
+        /**
+         * Inserta manteniendo el orden por (fecha, id). Lo normal es que la
+         * partida sea la más reciente y vaya al final.
+         */
+        void insert(long id, double score, long time, Map<String, Object> extra) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                scores = Arrays.copyOf(scores, capacity);
+                times = Arrays.copyOf(times, capacity);
+                extras = Arrays.copyOf(extras, capacity);
+                for (Map.Entry<String, double[]> column : numericColumns.entrySet()) {
+                    double[] grown = Arrays.copyOf(column.getValue(), capacity);
+                    Arrays.fill(grown, size, capacity, Double.NaN);
+                    column.setValue(grown);
+                }
+            }
+
+            int pos = size;
+            if (size > 0 && compare(times[size - 1], ids[size - 1], time, id) > 0) {
+                pos = lowerBound(time, id);
+                System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+                System.arraycopy(scores, pos, scores, pos + 1, size - pos);
+                System.arraycopy(times, pos, times, pos + 1, size - pos);
+                System.arraycopy(extras, pos, extras, pos + 1, size - pos);
+                for (double[] column : numericColumns.values()) {
+                    System.arraycopy(column, pos, column, pos + 1, size - pos);
+                }
+            }
+
+            ids[pos] = id;
+            scores[pos] = score;
+            times[pos] = time;
+            extras[pos] = extra;
+            for (double[] column : numericColumns.values()) {
+                column[pos] = Double.NaN;
+            }
+            if (extra != null) {
+                for (Map.Entry<String, Object> stat : extra.entrySet()) {
+                    Double numeric = StatValueStore.numericValue(stat.getValue());
+                    if (numeric != null) {
+                        numericColumns.computeIfAbsent(stat.getKey(), k -> {
+                            double[] column = new double[ids.length];
+                            Arrays.fill(column, Double.NaN);
+                            return column;
+                        })[pos] = numeric;
+                    }
+                }
+            }
+            size++;
+
+            hourly.merge(Math.floorDiv(time, SECONDS_PER_HOUR) * SECONDS_PER_HOUR,
+                    new StatAggregate(1, score, score, score, score * score),
+                    StatAggregate::merge);
+        }
+
+        /**
+         * Mueve la partida de la posición from a la posición to (to <= from).
+         */
+        void move(int from, int to) {
+            ids[to] = ids[from];
+            scores[to] = scores[from];
+            times[to] = times[from];
+            extras[to] = extras[from];
+            for (double[] column : numericColumns.values()) {
+                column[to] = column[from];
+            }
+        }
+
+        /**
+         * Deja solo las primeras n partidas.
+         */
+        void truncate(int n) {
+            Arrays.fill(extras, n, size, null);
+            for (double[] column : numericColumns.values()) {
+                Arrays.fill(column, n, size, Double.NaN);
+            }
+            size = n;
+        }
+
+        /**
+         * @return primera posición con (fecha, id) >= (time, id)
+         */
+        int lowerBound(long time, long id) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (compare(times[mid], ids[mid], time, id) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        /**
+         * Orden de ranking entre dos posiciones: score descendente, luego
+         * fecha e id ascendentes (igual que ORDER BY s.score DESC, s.date, s.id).
+         */
+        int compareRanking(int a, int b) {
+            int cmp = Double.compare(scores[b], scores[a]);
+            return cmp != 0 ? cmp : compare(times[a], ids[a], times[b], ids[b]);
+        }
+
+        private static int compare(long timeA, long idA, long timeB, long idB) {
+            int cmp = Long.compare(timeA, timeB);
+            return cmp != 0 ? cmp : Long.compare(idA, idB);
+        }
+    }
+
+    @Override
+    public void init() {
+        System.out.println("✓ Almacén de estadísticas en memoria inicializado");
+    }
+
+    @Override
+    public void addGame(String gameName, String filePath) throws SQLException {
+        GameData existing = games.putIfAbsent(gameName, new GameData(filePath));
+        if (existing != null) {
+            // Mismo error que la restricción UNIQUE de games.name en SQLite
+            throw new SQLException("UNIQUE constraint failed: games.name (" + gameName + ")");
+        }
+
+        System.out.println("✓ Juego Guardado: " + gameName + " - Path: " + filePath);
+    }
+
+    @Override
+    public void updateGamePath(String gameName, String filePath) {
+        GameData existing = games.putIfAbsent(gameName, new GameData(filePath));
+        if (existing != null) {
+            existing.filePath = filePath;
+        }
+
+        System.out.println("✓ Ruta de " + gameName + " guardada: " + filePath);
+    }
+
+    @Override
+    public Map<String, String> getAllGamesWithPaths() {
+        Map<String, String> paths = new HashMap<>();
+        for (Map.Entry<String, GameData> game : games.entrySet()) {
+            paths.put(game.getKey(), game.getValue().filePath);
+        }
+        return paths;
+    }
+
+    @Override
+    public List<String> getAllGames() {
+        List<String> names = new ArrayList<>(games.keySet());
+        names.sort(null);
+        return names;
+    }
+
+    @Override
+    public Map<String, PluginCacheEntry> getPluginCache() {
+        return new HashMap<>(pluginCache);
+    }
+
+    @Override
+    public void savePluginCacheEntry(PluginCacheEntry entry) {
+        pluginCache.put(entry.getFilePath(), entry);
+    }
+
+    @Override
+    public Map<String, List<String>> findDuplicatePlugins() {
+        Set<String> registered = new HashSet<>();
+        for (GameData game : games.values()) {
+            registered.add(game.filePath);
+        }
+
+        Map<String, List<String>> byHash = new TreeMap<>();
+        for (PluginCacheEntry entry : pluginCache.values()) {
+            if (registered.contains(entry.getFilePath())) {
+                byHash.computeIfAbsent(entry.getSha256(), k -> new ArrayList<>())
+                        .add(entry.getFilePath());
+            }
+        }
+
+        Map<String, List<String>> duplicates = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> group : byHash.entrySet()) {
+            if (group.getValue().size() > 1) {
+                group.getValue().sort(null);
+                duplicates.put(group.getKey(), group.getValue());
+            }
+        }
+        return duplicates;
+    }
+
+    @Override
+    public void saveStats(String gameName, Map<String, Object> stats) throws SQLException {
+        saveStatsBatch(List.of(new GameStats(gameName, stats)));
+    }
+
+    @Override
+    public void saveStatsBatch(List<GameStats> statsList) throws SQLException {
+        if (statsList.isEmpty()) {
+            return;
+        }
+
+        // Validar todo el lote antes de guardar nada
+        double[] scores = new double[statsList.size()];
+        long[] times = new long[statsList.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = extractScore(statsList.get(i).getStats());
+            times[i] = toEpochSecond(statsList.get(i).getTimestamp());
+        }
+
+        Set<String> writtenGames = new HashSet<>();
+        for (GameStats stats : statsList) {
+            writtenGames.add(stats.getGameName());
+        }
+
+        // Como en SQLite: una carga del índice entre insert y onInsert ya
+        // vería la partida y la contaría dos veces
+        rankIndex.beginWrite(writtenGames);
+        try {
+            for (int i = 0; i < scores.length; i++) {
+                GameStats stats = statsList.get(i);
+                GameData game = games.computeIfAbsent(stats.getGameName(), k -> new GameData(""));
+                long id = nextId.getAndIncrement();
+
+                game.lock.writeLock().lock();
+                try {
+                    game.insert(id, scores[i], times[i], normalizeExtras(stats.getStats()));
+                } finally {
+                    game.lock.writeLock().unlock();
+                }
+
+                leaderboardCache.onInsert(stats.getGameName(),
+                        new LeaderboardCache.Entry(id, scores[i], formatTime(times[i])));
+                rankIndex.onInsert(stats.getGameName(), scores[i]);
+            }
+        } finally {
+            rankIndex.endWrite(writtenGames);
+        }
+
+        if (statsList.size() == 1) {
+            System.out.println("✓ Estadística guardada: " +
+                    statsList.get(0).getGameName() + " - Score: " + scores[0]);
+        } else {
+            System.out.println("✓ " + statsList.size() + " estadísticas guardadas");
+        }
+    }
+
+    @Override
+    public List<GameStats> getTop3(String gameName) {
+        return getTopN(gameName, 3, 0);
+    }
+
+    @Override
+    public List<GameStats> getTopN(String gameName, int n, int offset) {
+        int end = offset + n;
+        int from = offset;
+        List<LeaderboardCache.Entry> entries = leaderboardCache.get(gameName, end);
+
+        if (entries == null) {
+            if (end > leaderboardCache.getCapacity()) {
+                entries = scanTopN(gameName, end);
+            } else {
+                long generation = leaderboardCache.generation(gameName);
+                entries = scanTopN(gameName, leaderboardCache.getCapacity());
+                leaderboardCache.fill(gameName, entries, generation);
+            }
+        }
+
+        List<GameStats> top = new ArrayList<>(n);
+        for (int i = from; i < Math.min(from + n, entries.size()); i++) {
+            LeaderboardCache.Entry entry = entries.get(i);
+            top.add(toGameStats(gameName, entry.getScore(),
+                    LocalDateTime.parse(entry.getDate(), TIMESTAMP_FORMAT), null));
+        }
+        return top;
+    }
+
+    @Override
+    public Map<String, List<GameStats>> getTop3AllGames() {
+        return getTopNAllGames(3);
+    }
+
+    @Override
+    public Map<String, List<GameStats>> getTopNAllGames(int n) {
+        Map<String, List<GameStats>> allTop = new LinkedHashMap<>();
+        for (String gameName : getAllGames()) {
+            allTop.put(gameName, getTopN(gameName, n, 0));
+        }
+        return allTop;
+    }
+
+    @Override
+    public StatsHistory getAllStats(String gameName) {
+        return queryStatsHistory(gameName, StatsFilter.all());
+    }
+
+    @Override
+    public StatsHistory getStatsByDateRange(String gameName, String startDate, String endDate)
+            throws SQLException {
+        return queryStatsHistory(gameName, StatsDates.dayRange(startDate, endDate));
+    }
+
+    /**
+     * Recorre una copia del rango tomada con el candado de lectura, de modo
+     * que el consumidor puede guardar partidas mientras recorre.
+     */
+    @Override
+    public int forEachStat(String gameName, StatsFilter filter, Consumer<GameStats> action) {
+        GameData game = games.get(gameName);
+        if (game == null) {
+            return 0;
+        }
+
+        long[] times;
+        double[] scores;
+        Object[] extras;
+        game.lock.readLock().lock();
+        try {
+            int[] range = range(game, filter, null);
+            times = Arrays.copyOfRange(game.times, range[0], range[1]);
+            scores = Arrays.copyOfRange(game.scores, range[0], range[1]);
+            extras = filter.isIncludeAllStats()
+                    ? Arrays.copyOfRange(game.extras, range[0], range[1]) : null;
+        } finally {
+            game.lock.readLock().unlock();
+        }
+
+        for (int i = times.length - 1; i >= 0; i--) {
+            action.accept(toGameStats(gameName, scores[i], toUtc(times[i]),
+                    extras == null ? null : extras[i]));
+        }
+        return times.length;
+    }
+
+    @Override
+    public ScoreColumn readScores(String gameName, StatsFilter range) {
+        GameData game = games.get(gameName);
+        if (game == null) {
+            return ScoreColumn.empty();
+        }
+
+        game.lock.readLock().lock();
+        try {
+            // Los arrays ya están en orden cronológico: basta copiar el rango
+            int[] bounds = range(game, range, null);
+            if (bounds[0] >= bounds[1]) {
+                return ScoreColumn.empty();
+            }
+            return new ScoreColumn(
+                    Arrays.copyOfRange(game.scores, bounds[0], bounds[1]),
+                    Arrays.copyOfRange(game.times, bounds[0], bounds[1]));
+        } finally {
+            game.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public StatsPage getStatsPage(String gameName, StatsFilter filter,
+                                  StatsCursor after, int limit) {
+        GameData game = games.get(gameName);
+        if (game == null) {
+            return new StatsPage(new ArrayList<>(), null);
+        }
+
+        List<GameStats> rows = new ArrayList<>(limit);
+        StatsCursor next = null;
+
+        game.lock.readLock().lock();
+        try {
+            int[] range = range(game, filter, after);
+            int stop = Math.max(range[0], range[1] - limit);
+
+            for (int i = range[1] - 1; i >= stop; i--) {
+                rows.add(toGameStats(gameName, game.scores[i], toUtc(game.times[i]),
+                        filter.isIncludeAllStats() ? game.extras[i] : null));
+            }
+            if (stop > range[0]) {
+                next = new StatsCursor(formatTime(game.times[stop]), game.ids[stop]);
+            }
+        } finally {
+            game.lock.readLock().unlock();
+        }
+
+        return new StatsPage(rows, next);
+    }
+
+    @Override
+    public List<GameStats> rankByStat(String gameName, String statKey, int n, boolean descending) {
+        if ("score".equals(statKey) && descending) {
+            return getTopN(gameName, n, 0);
+        }
+
+        GameData game = games.get(gameName);
+        if (game == null) {
+            return new ArrayList<>();
+        }
+
+        boolean isScore = "score".equals(statKey);
+        List<GameStats> ranking = new ArrayList<>(n);
+
+        game.lock.readLock().lock();
+        try {
+            double[] values = isScore ? game.scores : game.numericColumns.get(statKey);
+            if (values == null) {
+                return ranking;
+            }
+
+            Comparator<Integer> order;
+            if (isScore) {
+                // Menor score primero; empates por fecha e id
+                order = Comparator.<Integer>comparingDouble(i -> values[i])
+                        .thenComparingLong(i -> game.times[i])
+                        .thenComparingLong(i -> game.ids[i]);
+            } else {
+                Comparator<Integer> byValue = Comparator.comparingDouble(i -> values[i]);
+                order = (descending ? byValue.reversed() : byValue)
+                        .thenComparingLong(i -> game.ids[i]);
+            }
+
+            for (int i : select(game.size, n, order, i -> !Double.isNaN(values[i]))) {
+                Map<String, Object> stats = new HashMap<>();
+                if (!isScore) {
+                    stats.put(statKey, castExtras(game.extras[i]).get(statKey));
+                }
+                ranking.add(toGameStats(gameName, game.scores[i],
+                        toUtc(game.times[i]), stats));
+            }
+        } finally {
+            game.lock.readLock().unlock();
+        }
+
+        return ranking;
+    }
+
+    @Override
+    public StatAggregate aggregateStat(String gameName, String statKey) {
+        GameData game = games.get(gameName);
+        if (game == null) {
+            return StatAggregate.empty();
+        }
+
+        game.lock.readLock().lock();
+        try {
+            double[] values = "score".equals(statKey)
+                    ? game.scores : game.numericColumns.get(statKey);
+            if (values == null) {
+                return StatAggregate.empty();
+            }
+
+            long count = 0;
+            double sum = 0;
+            double sumOfSquares = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+
+            for (int i = 0; i < game.size; i++) {
+                double value = values[i];
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+
+                count++;
+                sum += value;
+                sumOfSquares += value * value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+
+            return count == 0 ? StatAggregate.empty()
+                    : new StatAggregate(count, sum, min, max, sumOfSquares);
+        } finally {
+            game.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Igual que en SQLite: horas completas desde los resúmenes por hora y
+     * partidas sueltas solo en los extremos.
+     */
+    @Override
+    public StatAggregate aggregateScores(String gameName, LocalDateTime from, LocalDateTime to) {
+        GameData game = games.get(gameName);
+        if (game == null || !from.isBefore(to)) {
+            return StatAggregate.empty();
+        }
+
+        long fromTime = from.toEpochSecond(ZoneOffset.UTC);
+        long toTime = to.toEpochSecond(ZoneOffset.UTC);
+        long firstHour = Math.floorDiv(fromTime + SECONDS_PER_HOUR - 1, SECONDS_PER_HOUR) * SECONDS_PER_HOUR;
+        long lastHour = Math.floorDiv(toTime, SECONDS_PER_HOUR) * SECONDS_PER_HOUR;
+
+        game.lock.readLock().lock();
+        try {
+            if (firstHour >= lastHour) {
+                return sumRaw(game, fromTime, toTime);
+            }
+
+            StatAggregate aggregate = sumRaw(game, fromTime, firstHour);
+            for (StatAggregate hour : game.hourly.subMap(firstHour, true, lastHour, false).values()) {
+                aggregate = aggregate.merge(hour);
+            }
+            return aggregate.merge(sumRaw(game, lastHour, toTime));
+        } finally {
+            game.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<ScoreBucket> getScoreTrend(String gameName, RollupPeriod period,
+                                           LocalDateTime from, LocalDateTime to) {
+        GameData game = games.get(gameName);
+        if (game == null) {
+            return new ArrayList<>();
+        }
+
+        long fromTime = from.toEpochSecond(ZoneOffset.UTC);
+        long toTime = to.toEpochSecond(ZoneOffset.UTC);
+        long unit = period == RollupPeriod.DAY ? SECONDS_PER_DAY : SECONDS_PER_HOUR;
+
+        // Periodos que empiezan en [from, to), como "bucket >= ? AND bucket < ?"
+        long first = Math.floorDiv(fromTime + unit - 1, unit) * unit;
+        long last = Math.floorDiv(toTime + unit - 1, unit) * unit;
+
+        TreeMap<Long, StatAggregate> buckets = new TreeMap<>();
+        game.lock.readLock().lock();
+        try {
+            NavigableMap<Long, StatAggregate> hours = game.hourly.subMap(first, true, last, false);
+            for (Map.Entry<Long, StatAggregate> hour : hours.entrySet()) {
+                buckets.merge(Math.floorDiv(hour.getKey(), unit) * unit,
+                        hour.getValue(), StatAggregate::merge);
+            }
+        } finally {
+            game.lock.readLock().unlock();
+        }
+
+        List<ScoreBucket> trend = new ArrayList<>(buckets.size());
+        for (Map.Entry<Long, StatAggregate> bucket : buckets.entrySet()) {
+            trend.add(new ScoreBucket(toUtc(bucket.getKey()), period, bucket.getValue()));
+        }
+        return trend;
+    }
+
+    @Override
+    public ScoreRank rankOf(String gameName, double score) throws SQLException {
+        return rankIndex.rankOf(gameName, score, this::loadScores);
+    }
+
+    @Override
+    public double scoreAtPercentile(String gameName, double percentile) throws SQLException {
+        if (percentile < 0 || percentile > 100 || Double.isNaN(percentile)) {
+            throw new IllegalArgumentException("El percentil debe estar entre 0 y 100");
+        }
+        return rankIndex.scoreAtPercentile(gameName, percentile, this::loadScores);
+    }
+
+    /**
+     * @return el score más alto, o -1 si no hay registros
+     */
+    @Override
+    public double getHighScore(String gameName) {
+        GameData game = games.get(gameName);
+        if (game == null) {
+            return -1;
+        }
+
+        game.lock.readLock().lock();
+        try {
+            if (game.size == 0) {
+                return -1;
+            }
+
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < game.size; i++) {
+                max = Math.max(max, game.scores[i]);
+            }
+            return max;
+        } finally {
+            game.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int deleteGameStats(String gameName) {
+        GameData game = games.get(gameName);
+        int deleted = 0;
+
+        if (game != null) {
+            game.lock.writeLock().lock();
+            try {
+                deleted = game.size;
+                game.size = 0;
+                game.ids = new long[INITIAL_CAPACITY];
+                game.scores = new double[INITIAL_CAPACITY];
+                game.times = new long[INITIAL_CAPACITY];
+                game.extras = new Object[INITIAL_CAPACITY];
+                game.numericColumns.clear();
+                game.hourly.clear();
+                game.histogram.clear();
+            } finally {
+                game.lock.writeLock().unlock();
+            }
+        }
+
+        leaderboardCache.invalidate(gameName);
+        rankIndex.invalidate(gameName);
+        System.out.println("✓ Eliminadas " + deleted + " estadísticas de " + gameName);
+        return deleted;
+    }
+
+    /**
+     * Compacta cada juego de una pasada con su candado de escritura: en
+     * memoria un recorrido por juego es más barato que lotes pequeños. Si se
+     * interrumpe el hilo, para al terminar el juego en curso.
+     */
+    @Override
+    public int compactOldStats(RetentionPolicy policy) {
+        long cutoff = LocalDateTime.now(ZoneOffset.UTC)
+                .minus(policy.getMaxAge())
+                .truncatedTo(ChronoUnit.DAYS)
+                .toEpochSecond(ZoneOffset.UTC);
+
+        int total = 0;
+        for (String gameName : getAllGames()) {
+            GameData game = games.get(gameName);
+            int compacted = 0;
+
+            game.lock.writeLock().lock();
+            try {
+                Set<Integer> keep = new HashSet<>(select(game.size, policy.getKeepTopN(),
+                        game::compareRanking, i -> true));
+
+                int kept = 0;
+                for (int i = 0; i < game.size; i++) {
+                    if (game.times[i] >= cutoff || keep.contains(i)) {
+                        game.move(i, kept++);
+                    } else {
+                        addToHistogram(game, game.times[i], game.scores[i], policy.getBinWidth());
+                        compacted++;
+                    }
+                }
+                game.truncate(kept);
+            } finally {
+                game.lock.writeLock().unlock();
+            }
+
+            if (compacted > 0) {
+                leaderboardCache.invalidate(gameName);
+                rankIndex.invalidate(gameName);
+                System.out.println("✓ Compactadas " + compacted + " estadísticas de " + gameName);
+            }
+            total += compacted;
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+        }
+
+        return total;
+    }
+
+    /**
+     * Exporta juego a juego, cada uno en orden cronológico (SQLite exporta
+     * en orden de inserción). Las partidas de cada juego se copian bajo su
+     * candado de lectura y se escriben después, sin bloquear a quien guarda.
+     */
+    @Override
+    public TransferReport exportStats(OutputStream out, TransferFormat format) throws IOException {
+        long start = System.nanoTime();
+        StatsTransfer.Sink sink = StatsTransfer.writer(out, format);
+        List<String> gameNames = getAllGames();
+        long rows = 0;
+
+        for (String gameName : gameNames) {
+            sink.game(gameName, games.get(gameName).filePath);
+        }
+
+        for (String gameName : gameNames) {
+            GameData game = games.get(gameName);
+            double[] scores;
+            long[] times;
+
+            game.lock.readLock().lock();
+            try {
+                scores = Arrays.copyOf(game.scores, game.size);
+                times = Arrays.copyOf(game.times, game.size);
+            } finally {
+                game.lock.readLock().unlock();
+            }
+
+            // Aquí todas las fechas son válidas: no se omite ninguna partida
+            for (int i = 0; i < scores.length; i++) {
+                sink.stat(gameName, scores[i], formatTime(times[i]));
+            }
+            rows += scores.length;
+        }
+
+        sink.finish();
+
+        TransferReport report = new TransferReport(gameNames.size(), rows, System.nanoTime() - start);
+        System.out.println("✓ Exportadas " + report);
+        return report;
+    }
+
+    /**
+     * Las partidas se insertan de una en una con el candado del juego; si el
+     * archivo está mal formado, las anteriores quedan importadas.
+     */
+    @Override
+    public TransferReport importStats(InputStream in, TransferFormat format) throws IOException {
+        long start = System.nanoTime();
+        StatsTransfer.Source source = StatsTransfer.reader(in, format);
+        Set<String> imported = new HashSet<>();
+        int gameCount = 0;
+        long rows = 0;
+
+        try {
+            StatsTransfer.Row row;
+            while ((row = source.next()) != null) {
+                imported.add(row.gameName);
+                if (row.isGame()) {
+                    games.putIfAbsent(row.gameName, new GameData(row.filePath));
+                    gameCount++;
+                    continue;
+                }
+
+                GameData game = games.computeIfAbsent(row.gameName, k -> new GameData(""));
+                game.lock.writeLock().lock();
+                try {
+                    game.insert(nextId.getAndIncrement(), row.score,
+                            StatsDates.parse(row.date), null);
+                } finally {
+                    game.lock.writeLock().unlock();
+                }
+                rows++;
+            }
+        } finally {
+            for (String gameName : imported) {
+                leaderboardCache.invalidate(gameName);
+                rankIndex.invalidate(gameName);
+            }
+        }
+
+        TransferReport report = new TransferReport(gameCount, rows, System.nanoTime() - start);
+        System.out.println("✓ Importadas " + report);
+        return report;
+    }
+
+    /**
+     * @return caché de rankings (para consultar aciertos y fallos)
+     */
+    public LeaderboardCache getLeaderboardCache() {
+        return leaderboardCache;
+    }
+
+    @Override
+    public void close() {
+        // Nada que liberar: los datos viven en el heap
+    }
+
+    private StatsHistory queryStatsHistory(String gameName, StatsFilter filter) {
+        List<GameStats> rows = new ArrayList<>();
+        forEachStat(gameName, filter, rows::add);
+
+        GameData game = games.get(gameName);
+        List<ScoreHistogramBin> bins = new ArrayList<>();
+        if (game != null) {
+            long from = filter.getFrom() == null ? Long.MIN_VALUE
+                    : filter.getFrom().truncatedTo(ChronoUnit.DAYS).toEpochSecond(ZoneOffset.UTC);
+            long to = filter.getTo() == null ? Long.MAX_VALUE
+                    : filter.getTo().toEpochSecond(ZoneOffset.UTC);
+
+            game.lock.readLock().lock();
+            try {
+                for (ScoreHistogramBin bin : game.histogram.values()) {
+                    long day = bin.getDay().toEpochSecond(ZoneOffset.UTC);
+                    if (day >= from && day < to) {
+                        bins.add(bin);
+                    }
+                }
+            } finally {
+                game.lock.readLock().unlock();
+            }
+
+            bins.sort(Comparator.comparing(ScoreHistogramBin::getDay)
+                    .thenComparingDouble(ScoreHistogramBin::getBinStart));
+        }
+
+        return new StatsHistory(rows, bins);
+    }
+
+    private void loadScores(String gameName, ScoreRankIndex.OrderStatisticTree into) {
+        GameData game = games.get(gameName);
+        if (game == null) {
+            return;
+        }
+
+        game.lock.readLock().lock();
+        try {
+            for (int i = 0; i < game.size; i++) {
+                into.add(game.scores[i]);
+            }
+            for (ScoreHistogramBin bin : game.histogram.values()) {
+                into.add(bin.getMean(), bin.getPlays());
+            }
+        } finally {
+            game.lock.readLock().unlock();
+        }
+    }
+
+    private List<LeaderboardCache.Entry> scanTopN(String gameName, int n) {
+        GameData game = games.get(gameName);
+        List<LeaderboardCache.Entry> entries = new ArrayList<>(n);
+        if (game == null) {
+            return entries;
+        }
+
+        game.lock.readLock().lock();
+        try {
+            for (int i : select(game.size, n, game::compareRanking, i -> true)) {
+                entries.add(new LeaderboardCache.Entry(
+                        game.ids[i], game.scores[i], formatTime(game.times[i])));
+            }
+        } finally {
+            game.lock.readLock().unlock();
+        }
+        return entries;
+    }
+
+    /**
+     * Selecciona las n primeras posiciones según el orden con un montículo
+     * acotado: O(size log n) en lugar de ordenar todo.
+     */
+    private static List<Integer> select(int size, int n, Comparator<Integer> order,
+                                        IntPredicate accept) {
+        if (n <= 0) {
+            return new ArrayList<>();
+        }
+
+        // La cabeza es la peor de las candidatas
+        PriorityQueue<Integer> heap = new PriorityQueue<>(n + 1, order.reversed());
+        for (int i = 0; i < size; i++) {
+            if (!accept.test(i)) {
+                continue;
+            }
+            if (heap.size() < n) {
+                heap.add(i);
+            } else if (order.compare(i, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(i);
+            }
+        }
+
+        List<Integer> selected = new ArrayList<>(heap);
+        selected.sort(order);
+        return selected;
+    }
+
+    /**
+     * @return posiciones [inicio, fin) del filtro y el cursor en orden ascendente
+     */
+    private static int[] range(GameData game, StatsFilter filter, StatsCursor after) {
+        int lo = filter.getFrom() == null ? 0
+                : game.lowerBound(filter.getFrom().toEpochSecond(ZoneOffset.UTC), Long.MIN_VALUE);
+        int hi = filter.getTo() == null ? game.size
+                : game.lowerBound(filter.getTo().toEpochSecond(ZoneOffset.UTC), Long.MIN_VALUE);
+
+        if (after != null) {
+            long cursorTime = LocalDateTime.parse(after.getDate(), TIMESTAMP_FORMAT)
+                    .toEpochSecond(ZoneOffset.UTC);
+            hi = Math.min(hi, game.lowerBound(cursorTime, after.getId()));
+        }
+
+        return new int[]{lo, Math.max(lo, hi)};
+    }
+
+    private static StatAggregate sumRaw(GameData game, long from, long to) {
+        if (from >= to) {
+            return StatAggregate.empty();
+        }
+
+        int lo = game.lowerBound(from, Long.MIN_VALUE);
+        int hi = game.lowerBound(to, Long.MIN_VALUE);
+        if (lo >= hi) {
+            return StatAggregate.empty();
+        }
+
+        double sum = 0;
+        double sumOfSquares = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = lo; i < hi; i++) {
+            double score = game.scores[i];
+            sum += score;
+            sumOfSquares += score * score;
+            min = Math.min(min, score);
+            max = Math.max(max, score);
+        }
+        return new StatAggregate(hi - lo, sum, min, max, sumOfSquares);
+    }
+
+    private static void addToHistogram(GameData game, long time, double score, double binWidth) {
+        long day = Math.floorDiv(time, SECONDS_PER_DAY) * SECONDS_PER_DAY;
+        double binStart = Math.floor(score / binWidth) * binWidth;
+
+        game.histogram.merge(day + "|" + binStart + "|" + binWidth,
+                new ScoreHistogramBin(toUtc(day), binStart, binWidth, 1, score),
+                (a, b) -> new ScoreHistogramBin(a.getDay(), a.getBinStart(), a.getBinWidth(),
+                        a.getPlays() + b.getPlays(), a.getScoreSum() + b.getScoreSum()));
+    }
+
+    private static GameStats toGameStats(String gameName, double score,
+                                         LocalDateTime date, Object extra) {
+        Map<String, Object> stats = extra == null ? new HashMap<>() : new HashMap<>(castExtras(extra));
+        stats.put("score", score);
+        return new GameStats(gameName, stats, date);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> castExtras(Object extra) {
+        return (Map<String, Object>) extra;
+    }
+
+    /**
+     * @return resto de claves con los tipos que devolvería SQLite, o null si no hay
+     */
+    private static Map<String, Object> normalizeExtras(Map<String, Object> stats) {
+        if (stats == null || stats.size() <= 1) {
+            return null;
+        }
+
+        Map<String, Object> extra = new HashMap<>();
+        for (Map.Entry<String, Object> stat : stats.entrySet()) {
+            if (!"score".equals(stat.getKey()) && stat.getValue() != null) {
+                extra.put(stat.getKey(), StatValueStore.normalize(stat.getValue()));
+            }
+        }
+        return extra.isEmpty() ? null : Map.copyOf(extra);
+    }
+
+    private static double extractScore(Map<String, Object> stats) throws SQLException {
+        Object scoreObj = stats == null ? null : stats.get("score");
+        if (scoreObj == null) {
+            throw new SQLException("El mapa de stats debe contener 'score'");
+        }
+
+        try {
+            if (scoreObj instanceof Number) {
+                return ((Number) scoreObj).doubleValue();
+            }
+            return Double.parseDouble(scoreObj.toString());
+        } catch (NumberFormatException e) {
+            throw new SQLException("El score no es un número válido: " + scoreObj);
+        }
+    }
+
+    private static long toEpochSecond(LocalDateTime timestamp) {
+        return timestamp == null
+                ? LocalDateTime.now(ZoneOffset.UTC).toEpochSecond(ZoneOffset.UTC)
+                : timestamp.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    private static LocalDateTime toUtc(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    private static String formatTime(long epochSecond) {
+        return toUtc(epochSecond).format(TIMESTAMP_FORMAT);
+    }
+}
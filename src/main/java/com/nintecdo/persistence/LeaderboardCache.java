@@ -0,0 +1,182 @@
+package com.nintecdo.persistence;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché en memoria de los N mejores resultados de cada juego.
+ *
+ * Se llena de forma perezosa desde SQLite la primera vez que se pide el
+ * ranking de un juego y después la mantiene al día StatsRepository en cada
+ * escritura, así que leer el top-N no vuelve a tocar el disco.
+ *
+ * El orden es el mismo que el de la consulta SQL (score descendente, luego
+ * fecha e id ascendentes), por lo que los empates se resuelven igual.
+ *
+ * Cada juego tiene un contador de generación que aumenta con cada escritura:
+ * un llenado que leyó la BD antes de una escritura concurrente se descarta
+ * en lugar de instalar un ranking desactualizado.
+ */
+public class LeaderboardCache {
+
+    /**
+     * Fila del ranking: lo mínimo para reconstruir el GameStats.
+     */
+    public static final class Entry {
+        private final long id;
+        private final double score;
+        private final String date;
+
+        public Entry(long id, double score, String date) {
+            this.id = id;
+            this.score = score;
+            this.date = date;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public String getDate() {
+            return date;
+        }
+    }
+
+    /** Mismo orden que ORDER BY s.score DESC, s.date, s.id */
+    static final Comparator<Entry> RANKING_ORDER = Comparator
+            .comparingDouble(Entry::getScore).reversed()
+            .thenComparing(Entry::getDate, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparingLong(Entry::getId);
+
+    private final int capacity;
+    private final Map<String, List<Entry>> boards = new HashMap<>();
+    private final Map<String, Long> generations = new HashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param capacity número de posiciones guardadas por juego (N)
+     */
+    public LeaderboardCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("El tamaño del ranking debe ser >= 1");
+        }
+        this.capacity = capacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Obtiene los n primeros de un juego si están en caché.
+     *
+     * @param gameName nombre del juego
+     * @param n número de posiciones (debe ser <= capacidad)
+     * @return copia de las entradas, o null si el juego no está en caché
+     */
+    synchronized List<Entry> get(String gameName, int n) {
+        List<Entry> board = boards.get(gameName);
+        if (board == null || n > capacity) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return new ArrayList<>(board.subList(0, Math.min(n, board.size())));
+    }
+
+    /**
+     * @return generación actual del juego; se pasa a {@link #fill} tras leer la BD
+     */
+    synchronized long generation(String gameName) {
+        return generations.getOrDefault(gameName, 0L);
+    }
+
+    /**
+     * Instala el ranking leído de la BD si no hubo escrituras desde que se
+     * tomó la generación.
+     *
+     * @param gameName nombre del juego
+     * @param entries hasta N filas en orden de ranking
+     * @param seenGeneration generación obtenida antes de la consulta
+     */
+    synchronized void fill(String gameName, List<Entry> entries, long seenGeneration) {
+        if (generation(gameName) != seenGeneration) {
+            return;
+        }
+
+        List<Entry> board = new ArrayList<>(capacity);
+        board.addAll(entries.subList(0, Math.min(capacity, entries.size())));
+        boards.put(gameName, board);
+    }
+
+    /**
+     * Registra una fila recién guardada.
+     * Debe llamarse después del commit.
+     *
+     * @param gameName nombre del juego
+     * @param entry fila insertada
+     */
+    synchronized void onInsert(String gameName, Entry entry) {
+        generations.merge(gameName, 1L, Long::sum);
+
+        List<Entry> board = boards.get(gameName);
+        if (board == null) {
+            return;
+        }
+
+        // Un llenado concurrente pudo haber leído ya esta fila
+        for (Entry existing : board) {
+            if (existing.id == entry.id) {
+                return;
+            }
+        }
+
+        int pos = 0;
+        while (pos < board.size() && RANKING_ORDER.compare(board.get(pos), entry) <= 0) {
+            pos++;
+        }
+
+        if (pos < capacity) {
+            board.add(pos, entry);
+            if (board.size() > capacity) {
+                board.remove(board.size() - 1);
+            }
+        }
+    }
+
+    /**
+     * Olvida el ranking de un juego (tras borrar filas).
+     *
+     * @param gameName nombre del juego
+     */
+    synchronized void invalidate(String gameName) {
+        generations.merge(gameName, 1L, Long::sum);
+        boards.remove(gameName);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return proporción de lecturas servidas desde memoria (0..1)
+     */
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+}
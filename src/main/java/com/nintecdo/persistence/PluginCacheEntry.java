@@ -0,0 +1,86 @@
+package com.nintecdo.persistence;
+
+/**
+ * Metadatos guardados de un JAR de juego: lo que se leyó de su
+ * manifest.properties, o el error de validación, junto con el tamaño, la
+ * fecha de modificación y el SHA-256 del archivo en ese momento.
+ */
+public class PluginCacheEntry {
+    private final String filePath;
+    private final long size;
+    private final long lastModified;
+    private final String sha256;
+    private final String gameClass;
+    private final String title;
+    private final String version;
+    private final String category;
+    private final String error;
+
+    /**
+     * @param lastModified fecha de modificación en milisegundos epoch
+     * @param sha256 hash del contenido en hexadecimal
+     * @param error motivo por el que el JAR no es válido, o null; con error
+     *              los campos del manifest pueden ser null
+     */
+    public PluginCacheEntry(String filePath, long size, long lastModified, String sha256,
+                            String gameClass, String title, String version,
+                            String category, String error) {
+        this.filePath = filePath;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.sha256 = sha256;
+        this.gameClass = gameClass;
+        this.title = title;
+        this.version = version;
+        this.category = category;
+        this.error = error;
+    }
+
+    /**
+     * Indica si la entrada sigue describiendo el archivo. Solo compara
+     * tamaño y fecha, sin leer el contenido.
+     */
+    public boolean matches(long size, long lastModified) {
+        return this.size == size && this.lastModified == lastModified;
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public String getGameClass() {
+        return gameClass;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,66 @@
+package com.nintecdo.persistence;
+
+/**
+ * Perfiles de configuración (PRAGMAs) para las conexiones SQLite.
+ * Todos usan journal WAL; cambian la durabilidad y la memoria dedicada a caché.
+ *
+ * Se puede elegir al arrancar con la propiedad de sistema
+ * {@code nintecdo.db.profile} (DURABLE, BALANCED o FAST).
+ */
+public enum PragmaProfile {
+    /** fsync en cada commit; nada de mmap. Para consolas con cortes de luz frecuentes. */
+    DURABLE("FULL", -8_000, 0L),
+
+    /** synchronous=NORMAL es seguro en WAL: solo se puede perder el último commit. */
+    BALANCED("NORMAL", -16_000, 64L * 1024 * 1024),
+
+    /** Sin fsync. Solo para kioscos de demostración o benchmarks. */
+    FAST("OFF", -64_000, 256L * 1024 * 1024);
+
+    public static final String SYSTEM_PROPERTY = "nintecdo.db.profile";
+
+    private final String synchronous;
+    private final int cacheSize;
+    private final long mmapSize;
+
+    PragmaProfile(String synchronous, int cacheSize, long mmapSize) {
+        this.synchronous = synchronous;
+        this.cacheSize = cacheSize;
+        this.mmapSize = mmapSize;
+    }
+
+    /** Valor de PRAGMA synchronous. */
+    public String getSynchronous() {
+        return synchronous;
+    }
+
+    /** Valor de PRAGMA cache_size (negativo = KiB, positivo = páginas). */
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    /** Valor de PRAGMA mmap_size en bytes. */
+    public long getMmapSize() {
+        return mmapSize;
+    }
+
+    /**
+     * Obtiene el perfil configurado en {@link #SYSTEM_PROPERTY}, o BALANCED.
+     *
+     * @return perfil a usar
+     */
+    public static PragmaProfile fromSystemProperty() {
+        String value = System.getProperty(SYSTEM_PROPERTY);
+        if (value == null || value.isBlank()) {
+            return BALANCED;
+        }
+
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Perfil de base de datos desconocido: " + value +
+                    ". Se usa " + BALANCED);
+            return BALANCED;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.nintecdo.persistence;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ejecuta periódicamente {@link StatsStore#compactOldStats} en un hilo
+ * en segundo plano.
+ */
+public class RetentionJob implements AutoCloseable {
+    private static final Duration DEFAULT_INITIAL_DELAY = Duration.ofMinutes(1);
+    private static final Duration DEFAULT_INTERVAL = Duration.ofHours(6);
+
+    private final StatsStore repository;
+    private final RetentionPolicy policy;
+    private final ScheduledExecutorService scheduler;
+
+    public RetentionJob(StatsStore repository, RetentionPolicy policy) {
+        this(repository, policy, DEFAULT_INITIAL_DELAY, DEFAULT_INTERVAL);
+    }
+
+    /**
+     * @param repository repositorio a compactar
+     * @param policy política de retención
+     * @param initialDelay espera antes de la primera ejecución
+     * @param interval espera entre el final de una ejecución y la siguiente
+     */
+    public RetentionJob(StatsStore repository, RetentionPolicy policy,
+                        Duration initialDelay, Duration interval) {
+        this.repository = repository;
+        this.policy = policy;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stats-retention");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        scheduler.scheduleWithFixedDelay(this::runOnce,
+                initialDelay.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void runOnce() {
+        try {
+            int compacted = repository.compactOldStats(policy);
+            if (compacted > 0) {
+                System.out.println("✓ Retención: " + compacted + " estadísticas compactadas");
+            }
+        } catch (SQLException e) {
+            System.err.println("✗ Error compactando estadísticas: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Detiene el job: interrumpe la compactación en curso, que para al
+     * confirmar su lote, y espera hasta 5 segundos a que termine.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.nintecdo.persistence;
+
+import java.time.Duration;
+
+/**
+ * Política de retención del historial de partidas.
+ *
+ * Las filas de stats más antiguas que {@link #getMaxAge()} se compactan en
+ * histogramas de score por juego y día (ancho de intervalo
+ * {@link #getBinWidth()}). Los N mejores resultados de cada juego se
+ * conservan siempre para que los rankings sigan siendo exactos.
+ *
+ * Se puede activar al arrancar con la propiedad de sistema
+ * {@code nintecdo.retention.days}.
+ */
+public class RetentionPolicy {
+    public static final String SYSTEM_PROPERTY = "nintecdo.retention.days";
+
+    private static final int DEFAULT_KEEP_TOP_N = 100;
+    private static final double DEFAULT_BIN_WIDTH = 100;
+    private static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final Duration maxAge;
+    private final int keepTopN;
+    private final double binWidth;
+    private final int batchSize;
+
+    private RetentionPolicy(Duration maxAge, int keepTopN, double binWidth, int batchSize) {
+        if (maxAge.isNegative() || maxAge.isZero()) {
+            throw new IllegalArgumentException("La antigüedad máxima debe ser positiva");
+        }
+        if (keepTopN < 0) {
+            throw new IllegalArgumentException("keepTopN debe ser >= 0");
+        }
+        if (!(binWidth > 0) || Double.isInfinite(binWidth)) {
+            throw new IllegalArgumentException("El ancho de intervalo debe ser positivo");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser >= 1");
+        }
+
+        this.maxAge = maxAge;
+        this.keepTopN = keepTopN;
+        this.binWidth = binWidth;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param maxAge antigüedad a partir de la cual se compactan las filas
+     * @return política con los valores por defecto
+     */
+    public static RetentionPolicy olderThan(Duration maxAge) {
+        return new RetentionPolicy(maxAge, DEFAULT_KEEP_TOP_N, DEFAULT_BIN_WIDTH, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param keepTopN mejores resultados de cada juego que nunca se compactan
+     */
+    public RetentionPolicy withKeepTopN(int keepTopN) {
+        return new RetentionPolicy(maxAge, keepTopN, binWidth, batchSize);
+    }
+
+    /**
+     * @param binWidth ancho de cada intervalo del histograma, en puntos
+     */
+    public RetentionPolicy withBinWidth(double binWidth) {
+        return new RetentionPolicy(maxAge, keepTopN, binWidth, batchSize);
+    }
+
+    /**
+     * @param batchSize filas compactadas por transacción
+     */
+    public RetentionPolicy withBatchSize(int batchSize) {
+        return new RetentionPolicy(maxAge, keepTopN, binWidth, batchSize);
+    }
+
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+
+    public int getKeepTopN() {
+        return keepTopN;
+    }
+
+    public double getBinWidth() {
+        return binWidth;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Obtiene la política configurada en {@link #SYSTEM_PROPERTY}.
+     *
+     * @return política con esa antigüedad en días, o null si no está configurada
+     */
+    public static RetentionPolicy fromSystemProperty() {
+        String value = System.getProperty(SYSTEM_PROPERTY);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+
+        try {
+            return olderThan(Duration.ofDays(Long.parseLong(value.trim())));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Retención desconocida: " + value +
+                    ". No se compactará el historial");
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RetentionPolicy{maxAge=" + maxAge + ", keepTopN=" + keepTopN +
+                ", binWidth=" + binWidth + ", batchSize=" + batchSize + "}";
+    }
+}
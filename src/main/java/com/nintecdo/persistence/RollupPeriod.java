@@ -0,0 +1,19 @@
+package com.nintecdo.persistence;
+
+/**
+ * Granularidad de las tablas de resumen de puntuaciones.
+ */
+public enum RollupPeriod {
+    HOUR("stats_rollup_hourly"),
+    DAY("stats_rollup_daily");
+
+    private final String table;
+
+    RollupPeriod(String table) {
+        this.table = table;
+    }
+
+    String getTable() {
+        return table;
+    }
+}
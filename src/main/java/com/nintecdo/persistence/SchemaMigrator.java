@@ -0,0 +1,292 @@
+package com.nintecdo.persistence;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ejecuta las migraciones versionadas del esquema de stats.db.
+ *
+ * La versión aplicada se guarda en la tabla {@code schema_version}. Cada
+ * migración se ejecuta en su propia transacción junto con su registro de
+ * versión, de modo que un fichero existente se actualiza en su sitio y una
+ * migración a medias nunca queda marcada como aplicada.
+ */
+public class SchemaMigrator {
+
+    /**
+     * Paso de migración sobre una conexión dentro de una transacción.
+     */
+    @FunctionalInterface
+    interface MigrationStep {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Migración con versión y descripción.
+     */
+    static class Migration {
+        private final int version;
+        private final String description;
+        private final MigrationStep step;
+
+        Migration(int version, String description, MigrationStep step) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+        }
+
+        static Migration of(int version, String description, String... statements) {
+            return new Migration(version, description, conn -> {
+                try (Statement stmt = conn.createStatement()) {
+                    for (String sql : statements) {
+                        stmt.execute(sql);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Migraciones en orden. Nunca modificar una ya publicada: añadir otra.
+     */
+    private static final List<Migration> MIGRATIONS = List.of(
+            Migration.of(1, "Tablas games y stats",
+                    "CREATE TABLE IF NOT EXISTS games (" +
+                            "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                            "name TEXT UNIQUE NOT NULL," +
+                            "file_path TEXT NOT NULL)",
+                    "CREATE TABLE IF NOT EXISTS stats (" +
+                            "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                            "game_id INTEGER NOT NULL, " +
+                            "score REAL NOT NULL, " +
+                            "date TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                            "FOREIGN KEY(game_id) REFERENCES games(id))"),
+
+            // Cubre getTop3 y getHighScore: filtra por juego y ya viene
+            // ordenado por score; date evita volver a la tabla
+            Migration.of(2, "Índice de rankings (game_id, score, date)",
+                    "CREATE INDEX IF NOT EXISTS idx_stats_game_score " +
+                            "ON stats(game_id, score DESC, date)"),
+
+            // Cubre getAllStats, getStatsByDateRange y el historial paginado
+            // por (date, id): el id en el índice evita ordenar las filas con
+            // la misma fecha
+            Migration.of(3, "Índice de historial (game_id, date, id, score)",
+                    "CREATE INDEX IF NOT EXISTS idx_stats_game_history " +
+                            "ON stats(game_id, date DESC, id DESC, score)"),
+
+            // Resto de claves del mapa de stats, tipadas. double_value guarda
+            // la proyección numérica para ordenar y agregar con un índice
+            Migration.of(4, "Estadísticas tipadas (stat_keys, stat_values)",
+                    "CREATE TABLE IF NOT EXISTS stat_keys (" +
+                            "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                            "name TEXT UNIQUE NOT NULL)",
+                    "CREATE TABLE IF NOT EXISTS stat_values (" +
+                            "stat_id INTEGER NOT NULL, " +
+                            "key_id INTEGER NOT NULL, " +
+                            "game_id INTEGER NOT NULL, " +
+                            "type INTEGER NOT NULL, " +
+                            "long_value INTEGER, " +
+                            "double_value REAL, " +
+                            "text_value TEXT, " +
+                            "PRIMARY KEY (stat_id, key_id), " +
+                            "FOREIGN KEY(stat_id) REFERENCES stats(id), " +
+                            "FOREIGN KEY(key_id) REFERENCES stat_keys(id)" +
+                            ") WITHOUT ROWID",
+                    "CREATE INDEX IF NOT EXISTS idx_stat_values_rank " +
+                            "ON stat_values(game_id, key_id, double_value DESC)"),
+
+            // Resúmenes por hora y día; se rellenan con el historial existente
+            // y después los mantiene saveStatsBatch en cada transacción
+            Migration.of(5, "Resúmenes por hora y día (stats_rollup_hourly, stats_rollup_daily)",
+                    rollupTableSql(RollupPeriod.HOUR),
+                    rollupTableSql(RollupPeriod.DAY),
+                    rollupBackfillSql(RollupPeriod.HOUR, "strftime('%Y-%m-%d %H:00:00', date)"),
+                    rollupBackfillSql(RollupPeriod.DAY, "strftime('%Y-%m-%d 00:00:00', date)")),
+
+            // Partidas antiguas compactadas por la política de retención:
+            // cuántas por juego, día e intervalo de score
+            Migration.of(6, "Histogramas de partidas compactadas (stats_histogram)",
+                    "CREATE TABLE IF NOT EXISTS stats_histogram (" +
+                            "game_id INTEGER NOT NULL, " +
+                            "bucket TEXT NOT NULL, " +
+                            "bin_start REAL NOT NULL, " +
+                            "bin_width REAL NOT NULL, " +
+                            "plays INTEGER NOT NULL, " +
+                            "score_sum REAL NOT NULL, " +
+                            "PRIMARY KEY (game_id, bucket, bin_start, bin_width)" +
+                            ") WITHOUT ROWID"),
+
+            // Última secuencia del diario de puntuaciones ya guardada en
+            // stats; se actualiza en la misma transacción que las filas
+            Migration.of(7, "Punto de control del diario de puntuaciones (journal_checkpoint)",
+                    "CREATE TABLE IF NOT EXISTS journal_checkpoint (" +
+                            "id INTEGER PRIMARY KEY CHECK (id = 1), " +
+                            "sequence INTEGER NOT NULL)",
+                    "INSERT OR IGNORE INTO journal_checkpoint (id, sequence) VALUES (1, 0)"),
+
+            // Manifest ya leído de cada JAR: si tamaño y fecha no cambian no
+            // se vuelve a abrir. El hash permite ver JARs repetidos
+            Migration.of(8, "Caché de metadatos de plugins (plugin_cache)",
+                    "CREATE TABLE IF NOT EXISTS plugin_cache (" +
+                            "file_path TEXT PRIMARY KEY, " +
+                            "size INTEGER NOT NULL, " +
+                            "last_modified INTEGER NOT NULL, " +
+                            "sha256 TEXT NOT NULL, " +
+                            "game_class TEXT, " +
+                            "title TEXT, " +
+                            "version TEXT, " +
+                            "category TEXT, " +
+                            "error TEXT, " +
+                            "scanned_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)",
+                    "CREATE INDEX IF NOT EXISTS idx_plugin_cache_sha256 ON plugin_cache(sha256)")
+    );
+
+    private static String rollupTableSql(RollupPeriod period) {
+        return "CREATE TABLE IF NOT EXISTS " + period.getTable() + " (" +
+                "game_id INTEGER NOT NULL, " +
+                "bucket TEXT NOT NULL, " +
+                "plays INTEGER NOT NULL, " +
+                "score_sum REAL NOT NULL, " +
+                "score_min REAL NOT NULL, " +
+                "score_max REAL NOT NULL, " +
+                "score_sum_sq REAL NOT NULL, " +
+                "PRIMARY KEY (game_id, bucket)" +
+                ") WITHOUT ROWID";
+    }
+
+    private static String rollupBackfillSql(RollupPeriod period, String bucketExpr) {
+        return "INSERT INTO " + period.getTable() +
+                " (game_id, bucket, plays, score_sum, score_min, score_max, score_sum_sq) " +
+                "SELECT game_id, " + bucketExpr + " AS bucket, COUNT(*), SUM(score), " +
+                "MIN(score), MAX(score), SUM(score * score) " +
+                "FROM stats " +
+                "WHERE " + bucketExpr + " IS NOT NULL " +
+                "GROUP BY game_id, bucket";
+    }
+
+    /**
+     * Aplica las migraciones pendientes.
+     *
+     * @param conn conexión de escritura
+     * @return número de migraciones aplicadas
+     * @throws SQLException si falla alguna migración (las anteriores quedan aplicadas)
+     */
+    public int migrate(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                    "version INTEGER PRIMARY KEY, " +
+                    "description TEXT NOT NULL, " +
+                    "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        }
+
+        int current = getCurrentVersion(conn);
+        int applied = 0;
+
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version <= current) {
+                continue;
+            }
+
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                migration.step.apply(conn);
+
+                String sql = "INSERT INTO schema_version (version, description) VALUES (?, ?)";
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setInt(1, migration.version);
+                    pstmt.setString(2, migration.description);
+                    pstmt.executeUpdate();
+                }
+
+                conn.commit();
+                applied++;
+                System.out.println("✓ Migración " + migration.version +
+                        " aplicada: " + migration.description);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw new SQLException("Error en la migración " + migration.version +
+                        " (" + migration.description + "): " + e.getMessage(), e);
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+
+        if (applied > 0) {
+            // Refrescar estadísticas del planificador tras crear índices
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("PRAGMA optimize");
+            }
+        }
+
+        return applied;
+    }
+
+    /**
+     * Obtiene la versión de esquema aplicada.
+     *
+     * @param conn conexión a la BD
+     * @return versión actual, o 0 si no hay ninguna
+     * @throws SQLException si hay error en la base de datos
+     */
+    public int getCurrentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * @return versión más reciente conocida por esta versión de la plataforma
+     */
+    public int getLatestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+    }
+
+    /**
+     * Comprueba con EXPLAIN QUERY PLAN que cada consulta recorre la tabla
+     * stats mediante un índice y no con un escaneo completo.
+     *
+     * @param conn conexión a la BD
+     * @param queries nombre de la consulta → SQL
+     * @return lista de problemas encontrados (vacía si todo usa índices)
+     * @throws SQLException si hay error en la base de datos
+     */
+    public List<String> verifyQueryPlans(Connection conn, Map<String, String> queries)
+            throws SQLException {
+
+        List<String> problems = new ArrayList<>();
+
+        for (Map.Entry<String, String> query : queries.entrySet()) {
+            List<String> plan = new ArrayList<>();
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "EXPLAIN QUERY PLAN " + query.getValue());
+                 ResultSet rs = pstmt.executeQuery()) {
+
+                while (rs.next()) {
+                    plan.add(rs.getString("detail"));
+                }
+            }
+
+            for (String detail : plan) {
+                // "SCAN s" sin "USING ... INDEX" = recorrido completo de stats
+                // (alias s/t = stats, v = stat_values en las consultas)
+                boolean statsAccess = detail.matches("(SCAN|SEARCH) [stv]( .*)?");
+                if (statsAccess && !detail.contains("INDEX") &&
+                        !detail.contains("PRIMARY KEY")) {
+                    problems.add(query.getKey() + ": " + String.join(" | ", plan));
+                    break;
+                }
+            }
+        }
+
+        return problems;
+    }
+}
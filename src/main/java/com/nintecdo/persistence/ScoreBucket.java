@@ -0,0 +1,33 @@
+package com.nintecdo.persistence;
+
+import java.time.LocalDateTime;
+
+/**
+ * Resumen de puntuaciones de un juego en una hora o un día.
+ */
+public class ScoreBucket {
+    private final LocalDateTime start;
+    private final RollupPeriod period;
+    private final StatAggregate aggregate;
+
+    public ScoreBucket(LocalDateTime start, RollupPeriod period, StatAggregate aggregate) {
+        this.start = start;
+        this.period = period;
+        this.aggregate = aggregate;
+    }
+
+    /**
+     * @return inicio del periodo (UTC, como stats.date)
+     */
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public RollupPeriod getPeriod() {
+        return period;
+    }
+
+    public StatAggregate getAggregate() {
+        return aggregate;
+    }
+}
@@ -0,0 +1,70 @@
+package com.nintecdo.persistence;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Partidas de un juego en columnas de tipos primitivos, en orden
+ * cronológico: un double[] con los scores y un long[] con las fechas en
+ * segundos epoch (UTC, como stats.date).
+ *
+ * Pensado para análisis sobre muchas filas: leerlo no crea ningún objeto
+ * por partida. Los arrays se devuelven sin copiar; no deben modificarse.
+ * Las partidas ya compactadas por la política de retención no se incluyen.
+ */
+public class ScoreColumn {
+    private static final ScoreColumn EMPTY = new ScoreColumn(new double[0], new long[0]);
+
+    private final double[] scores;
+    private final long[] epochSeconds;
+
+    /**
+     * @param scores puntuaciones
+     * @param epochSeconds fechas en segundos epoch, de la misma longitud
+     */
+    public ScoreColumn(double[] scores, long[] epochSeconds) {
+        if (scores.length != epochSeconds.length) {
+            throw new IllegalArgumentException("Las columnas deben tener la misma longitud");
+        }
+        this.scores = scores;
+        this.epochSeconds = epochSeconds;
+    }
+
+    public static ScoreColumn empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return scores.length;
+    }
+
+    public double getScore(int i) {
+        return scores[i];
+    }
+
+    public long getEpochSecond(int i) {
+        return epochSeconds[i];
+    }
+
+    /**
+     * @return fecha de la partida i (crea un objeto; para bucles usar
+     *         {@link #getEpochSecond(int)})
+     */
+    public LocalDateTime getTimestamp(int i) {
+        return LocalDateTime.ofEpochSecond(epochSeconds[i], 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * @return scores, de longitud {@link #size()}
+     */
+    public double[] getScores() {
+        return scores;
+    }
+
+    /**
+     * @return fechas en segundos epoch, de longitud {@link #size()}
+     */
+    public long[] getEpochSeconds() {
+        return epochSeconds;
+    }
+}
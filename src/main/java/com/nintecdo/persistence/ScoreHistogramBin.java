@@ -0,0 +1,54 @@
+package com.nintecdo.persistence;
+
+import java.time.LocalDateTime;
+
+/**
+ * Intervalo de un histograma de partidas ya compactadas: cuántas partidas
+ * de un día tuvieron un score en [binStart, binStart + binWidth).
+ */
+public class ScoreHistogramBin {
+    private final LocalDateTime day;
+    private final double binStart;
+    private final double binWidth;
+    private final long plays;
+    private final double scoreSum;
+
+    public ScoreHistogramBin(LocalDateTime day, double binStart, double binWidth,
+                             long plays, double scoreSum) {
+        this.day = day;
+        this.binStart = binStart;
+        this.binWidth = binWidth;
+        this.plays = plays;
+        this.scoreSum = scoreSum;
+    }
+
+    /**
+     * @return inicio del día (UTC, como stats.date)
+     */
+    public LocalDateTime getDay() {
+        return day;
+    }
+
+    public double getBinStart() {
+        return binStart;
+    }
+
+    public double getBinWidth() {
+        return binWidth;
+    }
+
+    public long getPlays() {
+        return plays;
+    }
+
+    public double getScoreSum() {
+        return scoreSum;
+    }
+
+    /**
+     * @return score medio de las partidas del intervalo
+     */
+    public double getMean() {
+        return plays == 0 ? Double.NaN : scoreSum / plays;
+    }
+}
@@ -0,0 +1,347 @@
+package com.nintecdo.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Diario binario de puntuaciones, solo de anexar, sobre un
+ * {@link MappedByteBuffer}.
+ *
+ * Cada partida es un registro fijo de 32 bytes:
+ * <pre>
+ *   0  long   secuencia (consecutiva)
+ *   8  int    id del juego (games.id)
+ *  12  double score
+ *  20  long   fecha en milisegundos epoch
+ *  28  int    CRC32C de los 28 bytes anteriores
+ * </pre>
+ *
+ * Anexar es escribir en memoria: no hay transacción. StatsRepository
+ * vuelca los registros a stats en segundo plano y guarda en
+ * journal_checkpoint, en la misma transacción, la última secuencia volcada.
+ * Al arrancar, {@link #recover(long)} recorre el archivo hasta el primer
+ * registro roto o fuera de secuencia y deja pendiente lo que falta por volcar.
+ *
+ * Cuando todo está volcado el siguiente registro vuelve al principio del
+ * archivo; los restos de la vuelta anterior tienen secuencias menores y la
+ * recuperación se detiene en ellos. Si se llena sin haber volcado, el
+ * llamador debe guardar por otra vía ({@link #tryAppend} devuelve false).
+ */
+class ScoreJournal implements AutoCloseable {
+    static final int RECORD_SIZE = 32;
+    static final int DEFAULT_CAPACITY = 1 << 18;
+    static final String SYSTEM_PROPERTY = "nintecdo.stats.journal";
+
+    private static final int GAME_ID = 8;
+    private static final int SCORE = 12;
+    private static final int TIME = 20;
+    private static final int CRC = 28;
+
+    /**
+     * Partida leída del diario.
+     */
+    static final class Record {
+        final long sequence;
+        final int gameId;
+        final double score;
+        final long epochMillis;
+
+        Record(long sequence, int gameId, double score, long epochMillis) {
+            this.sequence = sequence;
+            this.gameId = gameId;
+            this.score = score;
+            this.epochMillis = epochMillis;
+        }
+    }
+
+    // Mismo orden que el ranking: score, fecha y después orden de llegada
+    static final Comparator<Record> RANKING_ORDER = Comparator
+            .comparingDouble((Record r) -> r.score).reversed()
+            .thenComparingLong(r -> r.epochMillis / 1000)
+            .thenComparingLong(r -> r.sequence);
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final boolean forceEachAppend;
+    private final CRC32C crc = new CRC32C();
+
+    // Registros [replayPos, writePos) pendientes de volcar
+    private int writePos;
+    private int replayPos;
+    private long nextSequence = 1;
+    private boolean closed;
+
+    /**
+     * @param path archivo del diario (se crea si no existe)
+     * @param capacity número de registros
+     * @param forceEachAppend hacer fsync de cada registro (perfil DURABLE);
+     *                        si no, un cierre inesperado de la JVM no pierde
+     *                        nada pero un corte de luz sí puede
+     * @throws IOException si no se puede abrir o proyectar el archivo
+     */
+    ScoreJournal(Path path, int capacity, boolean forceEachAppend) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        // Un archivo de una sesión con más capacidad se respeta entero
+        long records = Math.max(capacity, channel.size() / RECORD_SIZE);
+        this.capacity = (int) records;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, records * RECORD_SIZE);
+        this.forceEachAppend = forceEachAppend;
+    }
+
+    /**
+     * Obtiene la ruta configurada en {@link #SYSTEM_PROPERTY}, o null si el
+     * diario está desactivado.
+     *
+     * @return ruta del diario o null
+     */
+    static Path pathFromSystemProperty() {
+        String value = System.getProperty(SYSTEM_PROPERTY);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return Path.of(value.trim());
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    /**
+     * Recorre el archivo desde el principio y deja pendientes los registros
+     * válidos posteriores al punto de control. Se llama una vez, antes de
+     * anexar.
+     *
+     * @param checkpoint última secuencia ya guardada en stats
+     * @return número de registros por volcar
+     */
+    synchronized int recover(long checkpoint) {
+        int pending = 0;
+        long lastSequence = checkpoint;
+        int firstPending = -1;
+        int end = 0;
+
+        for (int i = 0; i < capacity; i++) {
+            Record record = read(i);
+            if (record == null || (i > 0 && record.sequence != lastSequence + 1)) {
+                break;
+            }
+
+            // En la posición 0 la secuencia puede ser anterior al punto de control
+            if (i == 0) {
+                lastSequence = record.sequence;
+            } else {
+                lastSequence++;
+            }
+            end = i + 1;
+
+            if (record.sequence > checkpoint) {
+                if (firstPending < 0) {
+                    firstPending = i;
+                }
+                pending++;
+            }
+        }
+
+        writePos = end;
+        replayPos = firstPending < 0 ? end : firstPending;
+        nextSequence = Math.max(lastSequence, checkpoint) + 1;
+
+        return pending;
+    }
+
+    /**
+     * Anexa una partida.
+     *
+     * @return false si el diario está lleno de registros sin volcar
+     */
+    synchronized boolean tryAppend(int gameId, double score, long epochMillis) {
+        if (closed) {
+            throw new IllegalStateException("El diario de puntuaciones está cerrado");
+        }
+
+        if (replayPos == writePos) {
+            // Todo volcado: se reutiliza el archivo desde el principio
+            replayPos = 0;
+            writePos = 0;
+        } else if (writePos == capacity) {
+            return false;
+        }
+
+        int offset = writePos * RECORD_SIZE;
+        buffer.putLong(offset, nextSequence);
+        buffer.putInt(offset + GAME_ID, gameId);
+        buffer.putDouble(offset + SCORE, score);
+        buffer.putLong(offset + TIME, epochMillis);
+        buffer.putInt(offset + CRC, checksum(offset));
+
+        if (forceEachAppend) {
+            buffer.force(offset, RECORD_SIZE);
+        }
+
+        writePos++;
+        nextSequence++;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Espera a que haya registros pendientes o a que se detenga el diario.
+     *
+     * @param timeoutMs espera máxima
+     * @return true si hay registros pendientes
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    synchronized boolean awaitPending(long timeoutMs) throws InterruptedException {
+        if (replayPos == writePos && !closed) {
+            wait(timeoutMs);
+        }
+        return replayPos < writePos;
+    }
+
+    /**
+     * Si un registro pendiente no pasa el CRC se descarta junto con los
+     * posteriores: el lote termina antes de él.
+     *
+     * @param max número máximo de registros
+     * @return primeros registros pendientes, en orden
+     */
+    synchronized List<Record> pending(int max) {
+        int end = Math.min(writePos, replayPos + max);
+        List<Record> records = new ArrayList<>(end - replayPos);
+        for (int i = replayPos; i < end; i++) {
+            Record record = read(i);
+            if (record == null) {
+                // Igual que en recover: el diario termina en el primer registro roto
+                truncate(i);
+                break;
+            }
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * Marca como volcados los primeros registros pendientes.
+     * Debe llamarse después del commit que los guarda.
+     *
+     * @param count número de registros volcados
+     */
+    synchronized void markReplayed(int count) {
+        replayPos += count;
+    }
+
+    /**
+     * @return número de registros pendientes de volcar
+     */
+    synchronized int getPendingCount() {
+        return writePos - replayPos;
+    }
+
+    /**
+     * Mejores registros pendientes de un juego.
+     *
+     * @param gameId id del juego
+     * @param n número máximo de registros
+     * @return registros en orden de ranking
+     */
+    synchronized List<Record> topN(int gameId, int n) {
+        List<Record> top = new ArrayList<>();
+        for (int i = replayPos; i < writePos; i++) {
+            if (buffer.getInt(i * RECORD_SIZE + GAME_ID) == gameId) {
+                Record record = read(i);
+                if (record != null) {
+                    top.add(record);
+                }
+            }
+        }
+
+        top.sort(RANKING_ORDER);
+        return top.size() > n ? new ArrayList<>(top.subList(0, n)) : top;
+    }
+
+    /**
+     * @param gameId id del juego
+     * @return mayor score pendiente del juego, o NaN si no hay
+     */
+    synchronized double highScore(int gameId) {
+        double max = Double.NaN;
+        for (int i = replayPos; i < writePos; i++) {
+            int offset = i * RECORD_SIZE;
+            if (buffer.getInt(offset + GAME_ID) == gameId) {
+                double score = buffer.getDouble(offset + SCORE);
+                if (Double.isNaN(max) || score > max) {
+                    max = score;
+                }
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Deja de aceptar registros y despierta a quien espere en
+     * {@link #awaitPending}. Lo pendiente sigue legible hasta {@link #close()}.
+     */
+    synchronized void stop() {
+        closed = true;
+        notifyAll();
+    }
+
+    @Override
+    public void close() throws IOException {
+        stop();
+        synchronized (this) {
+            buffer.force();
+        }
+        channel.close();
+    }
+
+    /**
+     * Descarta los registros pendientes desde la posición i. El siguiente
+     * registro reutiliza la secuencia del primero descartado para que la
+     * recuperación no vea un salto.
+     */
+    private void truncate(int i) {
+        int dropped = writePos - i;
+        System.err.println("✗ Diario de puntuaciones: registro " + i +
+                " dañado, se descartan " + dropped + " partidas sin volcar");
+        nextSequence -= dropped;
+        writePos = i;
+    }
+
+    /**
+     * @return registro en la posición i, o null si está vacío o roto
+     */
+    private Record read(int i) {
+        int offset = i * RECORD_SIZE;
+        if (buffer.getInt(offset + CRC) != checksum(offset)) {
+            return null;
+        }
+
+        return new Record(
+                buffer.getLong(offset),
+                buffer.getInt(offset + GAME_ID),
+                buffer.getDouble(offset + SCORE),
+                buffer.getLong(offset + TIME)
+        );
+    }
+
+    private int checksum(int offset) {
+        ByteBuffer record = buffer.slice(offset, CRC);
+        crc.reset();
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,40 @@
+package com.nintecdo.persistence;
+
+/**
+ * Posición de una puntuación dentro del ranking de un juego.
+ */
+public class ScoreRank {
+    private final long rank;
+    private final long total;
+
+    public ScoreRank(long rank, long total) {
+        this.rank = rank;
+        this.total = total;
+    }
+
+    /**
+     * @return puesto (1 = mejor); los empates comparten puesto
+     */
+    public long getRank() {
+        return rank;
+    }
+
+    /**
+     * @return número total de partidas del juego
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * @return porcentaje de partidas por delante o empatadas (p. ej. 2.0 = top 2%)
+     */
+    public double getTopPercent() {
+        return total == 0 ? 0 : 100.0 * rank / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("#%d de %d (top %.1f%%)", rank, total, getTopPercent());
+    }
+}
@@ -0,0 +1,285 @@
+package com.nintecdo.persistence;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Índice en memoria de todas las puntuaciones de cada juego para responder
+ * "qué puesto es este score" y percentiles en O(log n).
+ *
+ * Cada juego es un árbol de estadísticas de orden (treap con tamaño de
+ * subárbol en cada nodo). Se carga de forma perezosa desde stats la primera
+ * vez que se consulta y StatsRepository le añade cada score tras el commit.
+ * Las partidas ya compactadas entran con la media de su intervalo de
+ * histograma, así que el total sigue contando todas las partidas.
+ *
+ * Igual que en LeaderboardCache, un contador de generación por juego evita
+ * instalar un árbol leído antes de una escritura concurrente. El árbol no
+ * puede descartar duplicados por id como el ranking, así que además no se
+ * instala ningún árbol mientras haya una escritura del juego entre su
+ * commit y {@link #onInsert}: esa lectura ya vería la fila que onInsert
+ * añade después.
+ */
+class ScoreRankIndex {
+
+    /**
+     * Lee todas las puntuaciones de un juego en el árbol dado.
+     */
+    @FunctionalInterface
+    interface Loader {
+        void load(String gameName, OrderStatisticTree into) throws SQLException;
+    }
+
+    private final Map<String, OrderStatisticTree> trees = new HashMap<>();
+    private final Map<String, Long> generations = new HashMap<>();
+    // Escrituras entre beginWrite y endWrite, por juego
+    private final Map<String, Integer> writesInFlight = new HashMap<>();
+
+    /**
+     * @param gameName nombre del juego
+     * @param score puntuación a situar
+     * @param loader carga las puntuaciones si el juego no está en memoria
+     * @return puesto de la puntuación entre las guardadas
+     * @throws SQLException si falla la carga
+     */
+    ScoreRank rankOf(String gameName, double score, Loader loader) throws SQLException {
+        return query(gameName, loader,
+                tree -> new ScoreRank(tree.countGreater(score) + 1, tree.size()));
+    }
+
+    /**
+     * @param gameName nombre del juego
+     * @param percentile percentil entre 0 y 100
+     * @param loader carga las puntuaciones si el juego no está en memoria
+     * @return menor score con al menos ese porcentaje de partidas por debajo
+     *         o iguales, o NaN si no hay partidas
+     * @throws SQLException si falla la carga
+     */
+    double scoreAtPercentile(String gameName, double percentile, Loader loader)
+            throws SQLException {
+
+        return query(gameName, loader, tree -> {
+            long total = tree.size();
+            if (total == 0) {
+                return Double.NaN;
+            }
+
+            // Rango más cercano: el k-ésimo menor con k = ceil(p * n)
+            long k = (long) Math.ceil(percentile / 100.0 * total);
+            return tree.kthSmallest(Math.max(1, Math.min(total, k)));
+        });
+    }
+
+    /**
+     * Marca el comienzo de una escritura en los juegos dados. Debe llamarse
+     * antes del commit y emparejarse con {@link #endWrite}, también si la
+     * escritura falla.
+     */
+    synchronized void beginWrite(Collection<String> gameNames) {
+        for (String gameName : gameNames) {
+            generations.merge(gameName, 1L, Long::sum);
+            writesInFlight.merge(gameName, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Marca el final de una escritura, después de sus {@link #onInsert}.
+     */
+    synchronized void endWrite(Collection<String> gameNames) {
+        for (String gameName : gameNames) {
+            generations.merge(gameName, 1L, Long::sum);
+            writesInFlight.computeIfPresent(gameName, (name, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    /**
+     * Registra una puntuación recién guardada.
+     * Debe llamarse después del commit, dentro de beginWrite / endWrite.
+     */
+    synchronized void onInsert(String gameName, double score) {
+        generations.merge(gameName, 1L, Long::sum);
+
+        OrderStatisticTree tree = trees.get(gameName);
+        if (tree != null) {
+            tree.add(score);
+        }
+    }
+
+    /**
+     * Olvida las puntuaciones de un juego (tras borrar filas).
+     */
+    synchronized void invalidate(String gameName) {
+        generations.merge(gameName, 1L, Long::sum);
+        trees.remove(gameName);
+    }
+
+    private synchronized long generation(String gameName) {
+        return generations.getOrDefault(gameName, 0L);
+    }
+
+    private <T> T query(String gameName, Loader loader, Function<OrderStatisticTree, T> reader)
+            throws SQLException {
+
+        synchronized (this) {
+            OrderStatisticTree tree = trees.get(gameName);
+            if (tree != null) {
+                return reader.apply(tree);
+            }
+        }
+
+        // Cargar fuera del candado para no bloquear al escritor
+        long seenGeneration = generation(gameName);
+        OrderStatisticTree loaded = new OrderStatisticTree();
+        loader.load(gameName, loaded);
+
+        synchronized (this) {
+            if (generation(gameName) == seenGeneration && !writesInFlight.containsKey(gameName)) {
+                trees.put(gameName, loaded);
+            }
+            // Si hubo una escritura entretanto se responde con la lectura
+            // (coherente en sí misma) y se recargará en la próxima consulta
+            return reader.apply(loaded);
+        }
+    }
+
+    /**
+     * Multiconjunto ordenado de puntuaciones. Cada nodo guarda un valor
+     * distinto, sus repeticiones y el total de su subárbol.
+     */
+    static final class OrderStatisticTree {
+        private static final class Node {
+            final double key;
+            final int priority;
+            long count;
+            long size;
+            Node left;
+            Node right;
+
+            Node(double key, long count, int priority) {
+                this.key = key;
+                this.count = count;
+                this.size = count;
+                this.priority = priority;
+            }
+        }
+
+        private final Random random = new Random();
+        private Node root;
+
+        void add(double score) {
+            add(score, 1);
+        }
+
+        /**
+         * @param score valor
+         * @param count repeticiones a añadir (p. ej. un intervalo de histograma)
+         */
+        void add(double score, long count) {
+            if (count > 0) {
+                root = insert(root, score, count);
+            }
+        }
+
+        long size() {
+            return size(root);
+        }
+
+        /**
+         * @return número de valores estrictamente mayores que score
+         */
+        long countGreater(double score) {
+            long greater = 0;
+            Node node = root;
+            while (node != null) {
+                int cmp = Double.compare(score, node.key);
+                if (cmp < 0) {
+                    greater += node.count + size(node.right);
+                    node = node.left;
+                } else if (cmp > 0) {
+                    node = node.right;
+                } else {
+                    return greater + size(node.right);
+                }
+            }
+            return greater;
+        }
+
+        /**
+         * @param k posición empezando en 1 (1 = menor)
+         * @return el k-ésimo menor valor
+         */
+        double kthSmallest(long k) {
+            Node node = root;
+            while (node != null) {
+                long leftSize = size(node.left);
+                if (k <= leftSize) {
+                    node = node.left;
+                } else if (k <= leftSize + node.count) {
+                    return node.key;
+                } else {
+                    k -= leftSize + node.count;
+                    node = node.right;
+                }
+            }
+            throw new IllegalArgumentException("Posición fuera de rango: " + k);
+        }
+
+        private Node insert(Node node, double key, long count) {
+            if (node == null) {
+                return new Node(key, count, random.nextInt());
+            }
+
+            int cmp = Double.compare(key, node.key);
+            if (cmp == 0) {
+                node.count += count;
+                node.size += count;
+                return node;
+            }
+
+            if (cmp < 0) {
+                node.left = insert(node.left, key, count);
+                if (node.left.priority > node.priority) {
+                    node = rotateRight(node);
+                }
+            } else {
+                node.right = insert(node.right, key, count);
+                if (node.right.priority > node.priority) {
+                    node = rotateLeft(node);
+                }
+            }
+
+            update(node);
+            return node;
+        }
+
+        private static Node rotateRight(Node node) {
+            Node left = node.left;
+            node.left = left.right;
+            left.right = node;
+            update(node);
+            update(left);
+            return left;
+        }
+
+        private static Node rotateLeft(Node node) {
+            Node right = node.right;
+            node.right = right.left;
+            right.left = node;
+            update(node);
+            update(right);
+            return right;
+        }
+
+        private static void update(Node node) {
+            node.size = node.count + size(node.left) + size(node.right);
+        }
+
+        private static long size(Node node) {
+            return node == null ? 0 : node.size;
+        }
+    }
+}
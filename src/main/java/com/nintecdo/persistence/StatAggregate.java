@@ -0,0 +1,103 @@
+package com.nintecdo.persistence;
+
+/**
+ * Agregado de una estadística numérica: número de valores, suma, mínimo,
+ * máximo y suma de cuadrados. Con esto se obtienen media y desviación.
+ */
+public class StatAggregate {
+    private static final StatAggregate EMPTY = new StatAggregate(0, 0, Double.NaN, Double.NaN, 0);
+
+    private final long count;
+    private final double sum;
+    private final double min;
+    private final double max;
+    private final double sumOfSquares;
+
+    public StatAggregate(long count, double sum, double min, double max, double sumOfSquares) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+        this.sumOfSquares = sumOfSquares;
+    }
+
+    /**
+     * @return agregado sin valores
+     */
+    public static StatAggregate empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Combina dos agregados de conjuntos disjuntos.
+     *
+     * @param other otro agregado
+     * @return agregado de la unión
+     */
+    public StatAggregate merge(StatAggregate other) {
+        if (other.count == 0) {
+            return this;
+        }
+        if (count == 0) {
+            return other;
+        }
+
+        return new StatAggregate(
+                count + other.count,
+                sum + other.sum,
+                Math.min(min, other.min),
+                Math.max(max, other.max),
+                sumOfSquares + other.sumOfSquares
+        );
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * @return mínimo, o NaN si no hay valores
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * @return máximo, o NaN si no hay valores
+     */
+    public double getMax() {
+        return max;
+    }
+
+    public double getSumOfSquares() {
+        return sumOfSquares;
+    }
+
+    /**
+     * @return media, o NaN si no hay valores
+     */
+    public double getMean() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    /**
+     * @return desviación típica poblacional, o NaN si no hay valores
+     */
+    public double getStdDev() {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        double mean = getMean();
+        return Math.sqrt(Math.max(0, sumOfSquares / count - mean * mean));
+    }
+
+    @Override
+    public String toString() {
+        return "StatAggregate{count=" + count + ", sum=" + sum + ", min=" + min +
+                ", max=" + max + ", mean=" + getMean() + "}";
+    }
+}
@@ -0,0 +1,237 @@
+package com.nintecdo.persistence;
+
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Almacenamiento tipado del resto de claves del mapa de estadísticas
+ * (todo lo que no es "score", que vive en stats.score).
+ *
+ * Cada valor es una fila de stat_values con columnas long / double / texto,
+ * indexada por (juego, clave, double_value). Los enteros se guardan exactos
+ * en long_value y además proyectados en double_value, de modo que ordenar o
+ * agregar cualquier estadística numérica usa un único índice.
+ *
+ * El tipo Java no se conserva tal cual: cada valor se normaliza al
+ * guardarlo (ver {@link #normalize}) y se lee con el tipo normalizado.
+ * Byte, Short, Integer y Long vuelven como Long; Float, BigDecimal y los
+ * BigInteger de más de 63 bits como Double; NaN, infinitos y cualquier otro
+ * objeto como String (su toString()). Boolean se conserva. El motor en
+ * memoria aplica la misma normalización.
+ */
+class StatValueStore {
+    static final int TYPE_LONG = 0;
+    static final int TYPE_DOUBLE = 1;
+    static final int TYPE_TEXT = 2;
+    static final int TYPE_BOOLEAN = 3;
+
+    private static final String INSERT_SQL = "INSERT INTO stat_values " +
+            "(stat_id, key_id, game_id, type, long_value, double_value, text_value) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String LOAD_SQL = "SELECT k.name, v.type, v.long_value, " +
+            "v.double_value, v.text_value " +
+            "FROM stat_values v " +
+            "INNER JOIN stat_keys k ON k.id = v.key_id " +
+            "WHERE v.stat_id = ?";
+
+    /** Claves ya confirmadas en la BD: nombre → id */
+    private final Map<String, Integer> keyIds = new ConcurrentHashMap<>();
+
+    /**
+     * Guarda las claves extra de una estadística dentro de la transacción
+     * en curso.
+     *
+     * @param conn conexión de escritura (transacción abierta)
+     * @param statId id de la fila en stats
+     * @param gameId id del juego
+     * @param stats mapa completo de estadísticas
+     * @param txKeys claves creadas en esta transacción; se publican con
+     *               {@link #publishKeys} tras el commit
+     * @throws SQLException si hay error en la base de datos
+     */
+    void insertValues(Connection conn, long statId, int gameId,
+                      Map<String, Object> stats, Map<String, Integer> txKeys)
+            throws SQLException {
+
+        if (stats == null || stats.size() <= 1) {
+            return;
+        }
+
+        try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+            for (Map.Entry<String, Object> stat : stats.entrySet()) {
+                if ("score".equals(stat.getKey()) || stat.getValue() == null) {
+                    continue;
+                }
+
+                pstmt.setLong(1, statId);
+                pstmt.setInt(2, getOrCreateKey(conn, stat.getKey(), txKeys));
+                pstmt.setInt(3, gameId);
+                bindValue(pstmt, stat.getValue());
+                pstmt.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Hace visibles para otros hilos las claves creadas en una transacción
+     * ya confirmada.
+     */
+    void publishKeys(Map<String, Integer> txKeys) {
+        keyIds.putAll(txKeys);
+    }
+
+    /**
+     * Carga las claves extra de una estadística en el mapa dado.
+     *
+     * @param pstmt sentencia preparada con {@link #prepareLoad}
+     * @param statId id de la fila en stats
+     * @param into mapa donde se añaden los valores
+     * @throws SQLException si hay error en la base de datos
+     */
+    void loadValues(PreparedStatement pstmt, long statId, Map<String, Object> into)
+            throws SQLException {
+
+        pstmt.setLong(1, statId);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                into.put(rs.getString(1), readValue(rs, 2));
+            }
+        }
+    }
+
+    PreparedStatement prepareLoad(Connection conn) throws SQLException {
+        return conn.prepareStatement(LOAD_SQL);
+    }
+
+    /**
+     * Lee un valor tipado a partir de la columna type y las tres siguientes
+     * (long_value, double_value, text_value).
+     */
+    static Object readValue(ResultSet rs, int typeColumn) throws SQLException {
+        int type = rs.getInt(typeColumn);
+        switch (type) {
+            case TYPE_LONG:
+                return rs.getLong(typeColumn + 1);
+            case TYPE_BOOLEAN:
+                return rs.getLong(typeColumn + 1) != 0;
+            case TYPE_DOUBLE:
+                return rs.getDouble(typeColumn + 2);
+            default:
+                return rs.getString(typeColumn + 3);
+        }
+    }
+
+    private int getOrCreateKey(Connection conn, String name, Map<String, Integer> txKeys)
+            throws SQLException {
+
+        Integer id = keyIds.get(name);
+        if (id == null) {
+            id = txKeys.get(name);
+        }
+        if (id != null) {
+            return id;
+        }
+
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT OR IGNORE INTO stat_keys (name) VALUES (?)")) {
+            pstmt.setString(1, name);
+            pstmt.executeUpdate();
+        }
+
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT id FROM stat_keys WHERE name = ?")) {
+            pstmt.setString(1, name);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("No se pudo crear la clave de estadística: " + name);
+                }
+                id = rs.getInt(1);
+            }
+        }
+
+        txKeys.put(name, id);
+        return id;
+    }
+
+    /**
+     * Convierte un valor al tipo con el que se guarda y se vuelve a leer:
+     * Boolean, Long (enteros), Double (decimales finitos) o String (resto).
+     */
+    static Object normalize(Object value) {
+        if (value instanceof Boolean) {
+            return value;
+        } else if (value instanceof Byte || value instanceof Short ||
+                value instanceof Integer || value instanceof Long) {
+            return ((Number) value).longValue();
+        } else if (value instanceof BigInteger && ((BigInteger) value).bitLength() < 64) {
+            return ((BigInteger) value).longValue();
+        } else if (value instanceof Number && Double.isFinite(((Number) value).doubleValue())) {
+            // Float, Double, BigDecimal, BigInteger grandes...
+            return ((Number) value).doubleValue();
+        }
+        // NaN/Infinity no ordenan bien en SQL: se guardan como texto
+        return value.toString();
+    }
+
+    /**
+     * Proyección numérica de un valor normalizado (columna double_value).
+     *
+     * @return el valor como double, o null si es texto
+     */
+    static Double numericValue(Object normalized) {
+        if (normalized instanceof Boolean) {
+            return ((Boolean) normalized) ? 1.0 : 0.0;
+        } else if (normalized instanceof Number) {
+            return ((Number) normalized).doubleValue();
+        }
+        return null;
+    }
+
+    private static void bindValue(PreparedStatement pstmt, Object value) throws SQLException {
+        Object normalized = normalize(value);
+
+        if (normalized instanceof Boolean) {
+            long bit = ((Boolean) normalized) ? 1 : 0;
+            bind(pstmt, TYPE_BOOLEAN, bit, (double) bit, null);
+        } else if (normalized instanceof Long) {
+            long l = (Long) normalized;
+            bind(pstmt, TYPE_LONG, l, (double) l, null);
+        } else if (normalized instanceof Double) {
+            bind(pstmt, TYPE_DOUBLE, null, (Double) normalized, null);
+        } else {
+            bind(pstmt, TYPE_TEXT, null, null, (String) normalized);
+        }
+    }
+
+    private static void bind(PreparedStatement pstmt, int type,
+                             Long longValue, Double doubleValue, String textValue)
+            throws SQLException {
+
+        pstmt.setInt(4, type);
+
+        if (longValue != null) {
+            pstmt.setLong(5, longValue);
+        } else {
+            pstmt.setNull(5, Types.INTEGER);
+        }
+
+        if (doubleValue != null) {
+            pstmt.setDouble(6, doubleValue);
+        } else {
+            pstmt.setNull(6, Types.REAL);
+        }
+
+        if (textValue != null) {
+            pstmt.setString(7, textValue);
+        } else {
+            pstmt.setNull(7, Types.VARCHAR);
+        }
+    }
+}
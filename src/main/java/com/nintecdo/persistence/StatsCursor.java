@@ -0,0 +1,29 @@
+package com.nintecdo.persistence;
+
+/**
+ * Posición en el historial para la paginación por clave (keyset).
+ * La página siguiente empieza justo después de la fila (date, id),
+ * sin OFFSET, así que cuesta lo mismo la primera página que la última.
+ */
+public class StatsCursor {
+    private final String date;
+    private final long id;
+
+    public StatsCursor(String date, long id) {
+        this.date = date;
+        this.id = id;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return date + "#" + id;
+    }
+}
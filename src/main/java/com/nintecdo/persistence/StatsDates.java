@@ -0,0 +1,109 @@
+package com.nintecdo.persistence;
+
+import java.sql.SQLException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * Conversión entre el texto de stats.date y segundos epoch.
+ *
+ * Se hace a mano, sin DateTimeFormatter: al leer o exportar millones de
+ * filas el formateador era lo más caro de cada fila.
+ */
+final class StatsDates {
+
+    private StatsDates() {
+    }
+
+    /**
+     * Lee una fecha con el formato de stats.date (yyyy-MM-dd HH:mm:ss, UTC).
+     *
+     * @return segundos epoch
+     * @throws DateTimeException si la fecha no es válida
+     */
+    static long parse(String date) {
+        if (date.length() != 19 || date.charAt(4) != '-' || date.charAt(7) != '-' ||
+                date.charAt(10) != ' ' || date.charAt(13) != ':' || date.charAt(16) != ':') {
+            throw new DateTimeException("Formato de fecha no válido: " + date);
+        }
+
+        int hour = digits(date, 11, 2);
+        int minute = digits(date, 14, 2);
+        int second = digits(date, 17, 2);
+        if (hour > 23 || minute > 59 || second > 59) {
+            throw new DateTimeException("Hora no válida: " + date);
+        }
+
+        // LocalDate.of valida mes y día
+        long day = LocalDate.of(digits(date, 0, 4), digits(date, 5, 2), digits(date, 8, 2))
+                .toEpochDay();
+        return day * 86_400 + hour * 3_600 + minute * 60 + second;
+    }
+
+    /**
+     * @param epochSecond segundos epoch
+     * @return fecha con el formato de stats.date
+     */
+    static String format(long epochSecond) {
+        LocalDate day = LocalDate.ofEpochDay(Math.floorDiv(epochSecond, 86_400L));
+        int seconds = (int) Math.floorMod(epochSecond, 86_400L);
+
+        char[] date = new char[19];
+        put(date, 0, 4, day.getYear());
+        date[4] = '-';
+        put(date, 5, 2, day.getMonthValue());
+        date[7] = '-';
+        put(date, 8, 2, day.getDayOfMonth());
+        date[10] = ' ';
+        put(date, 11, 2, seconds / 3_600);
+        date[13] = ':';
+        put(date, 14, 2, seconds / 60 % 60);
+        date[16] = ':';
+        put(date, 17, 2, seconds % 60);
+        return new String(date);
+    }
+
+    /**
+     * Filtro de {@link StatsStore#getStatsByDateRange}: del inicio del
+     * primer día al inicio del día siguiente al último, comparable con el
+     * índice, a diferencia de DATE(s.date) BETWEEN ? AND ?.
+     *
+     * @param startDate fecha inicio (YYYY-MM-DD), incluida
+     * @param endDate fecha fin (YYYY-MM-DD), incluida
+     * @throws SQLException si alguna fecha no es válida, igual en los dos motores
+     */
+    static StatsFilter dayRange(String startDate, String endDate) throws SQLException {
+        if (startDate == null || endDate == null) {
+            throw new SQLException("Rango de fechas incompleto: " + startDate + " - " + endDate);
+        }
+
+        try {
+            return StatsFilter.between(
+                    LocalDate.parse(startDate).atStartOfDay(),
+                    LocalDate.parse(endDate).plusDays(1).atStartOfDay()
+            );
+        } catch (DateTimeException e) {
+            throw new SQLException("Fecha no válida (se espera YYYY-MM-DD): " +
+                    startDate + " - " + endDate, e);
+        }
+    }
+
+    private static int digits(String text, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new DateTimeException("Fecha no válida: " + text);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static void put(char[] into, int from, int count, int value) {
+        for (int i = from + count - 1; i >= from; i--) {
+            into[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.nintecdo.persistence;
+
+/**
+ * Motores disponibles para {@link StatsStore}.
+ *
+ * Se puede elegir al arrancar con la propiedad de sistema
+ * {@code nintecdo.stats.engine} (SQLITE o MEMORY).
+ */
+public enum StatsEngine {
+    /** stats.db en disco; los datos persisten entre sesiones. */
+    SQLITE,
+
+    /** Todo en memoria, sin disco. Para kioscos de demostración y pruebas. */
+    MEMORY;
+
+    public static final String SYSTEM_PROPERTY = "nintecdo.stats.engine";
+
+    /**
+     * Crea un almacén de este motor con la configuración por defecto.
+     * Hay que llamar a {@link StatsStore#init()} antes de usarlo.
+     *
+     * @return almacén nuevo
+     */
+    public StatsStore create() {
+        switch (this) {
+            case MEMORY:
+                return new InMemoryStatsStore();
+            default:
+                return new StatsRepository();
+        }
+    }
+
+    /**
+     * Obtiene el motor configurado en {@link #SYSTEM_PROPERTY}, o SQLITE.
+     *
+     * @return motor a usar
+     */
+    public static StatsEngine fromSystemProperty() {
+        String value = System.getProperty(SYSTEM_PROPERTY);
+        if (value == null || value.isBlank()) {
+            return SQLITE;
+        }
+
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Motor de estadísticas desconocido: " + value +
+                    ". Se usa " + SQLITE);
+            return SQLITE;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.nintecdo.persistence;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filtro para recorrer el historial de un juego.
+ * Las fechas están en el mismo reloj que la columna stats.date (UTC).
+ * El rango es [desde, hasta): incluye el inicio y excluye el final.
+ */
+public class StatsFilter {
+    private static final StatsFilter ALL = new StatsFilter(null, null, false);
+
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final boolean includeAllStats;
+
+    private StatsFilter(LocalDateTime from, LocalDateTime to, boolean includeAllStats) {
+        this.from = from;
+        this.to = to;
+        this.includeAllStats = includeAllStats;
+    }
+
+    /**
+     * @return filtro sin restricciones
+     */
+    public static StatsFilter all() {
+        return ALL;
+    }
+
+    /**
+     * @param from inicio incluido (null = sin límite)
+     * @param to final excluido (null = sin límite)
+     * @return filtro por rango de fechas
+     */
+    public static StatsFilter between(LocalDateTime from, LocalDateTime to) {
+        return new StatsFilter(from, to, false);
+    }
+
+    /**
+     * Devuelve el mismo filtro pero cargando todas las claves del mapa de
+     * estadísticas, no solo "score". Cuesta una búsqueda por fila.
+     *
+     * @return filtro con todas las estadísticas
+     */
+    public StatsFilter withAllStats() {
+        return new StatsFilter(from, to, true);
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public boolean isIncludeAllStats() {
+        return includeAllStats;
+    }
+}
@@ -0,0 +1,61 @@
+package com.nintecdo.persistence;
+
+import com.nintecdo.core.GameStats;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Resultado de una consulta de historial.
+ *
+ * Es la lista de partidas conservadas fila a fila. Si la política de
+ * retención ya compactó parte del rango, {@link #isExact()} es false y las
+ * partidas que faltan están resumidas en {@link #getHistogram()}. Los
+ * histogramas son por día completo, así que en un rango que empieza o
+ * termina a mitad de un día compactado pueden incluir partidas de fuera
+ * del rango.
+ */
+public class StatsHistory extends AbstractList<GameStats> {
+    private final List<GameStats> rows;
+    private final List<ScoreHistogramBin> histogram;
+
+    public StatsHistory(List<GameStats> rows, List<ScoreHistogramBin> histogram) {
+        this.rows = rows;
+        this.histogram = List.copyOf(histogram);
+    }
+
+    @Override
+    public GameStats get(int index) {
+        return rows.get(index);
+    }
+
+    @Override
+    public int size() {
+        return rows.size();
+    }
+
+    /**
+     * @return true si todas las partidas del rango están fila a fila
+     */
+    public boolean isExact() {
+        return histogram.isEmpty();
+    }
+
+    /**
+     * @return histogramas de los días compactados del rango (vacío si es exacto)
+     */
+    public List<ScoreHistogramBin> getHistogram() {
+        return histogram;
+    }
+
+    /**
+     * @return número de partidas que solo están en los histogramas
+     */
+    public long getCompactedPlays() {
+        long plays = 0;
+        for (ScoreHistogramBin bin : histogram) {
+            plays += bin.getPlays();
+        }
+        return plays;
+    }
+}
@@ -0,0 +1,33 @@
+package com.nintecdo.persistence;
+
+import com.nintecdo.core.GameStats;
+
+import java.util.List;
+
+/**
+ * Página del historial de un juego, del más reciente al más antiguo.
+ */
+public class StatsPage {
+    private final List<GameStats> rows;
+    private final StatsCursor nextCursor;
+
+    public StatsPage(List<GameStats> rows, StatsCursor nextCursor) {
+        this.rows = rows;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<GameStats> getRows() {
+        return rows;
+    }
+
+    /**
+     * @return cursor para pedir la página siguiente, o null si es la última
+     */
+    public StatsCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
@@ -2,49 +2,343 @@ package com.nintecdo.persistence;
 
 import com.nintecdo.core.GameStats;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
 import java.sql.*;
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 
 /**
  * Repositorio para persistencia de estadísticas de juegos en SQLite.
- * Implementa el patrón DAO (Data Access Object).
+ * Implementa el patrón DAO (Data Access Object); es el motor SQLite de {@link StatsStore}.
+ *
+ * Las conexiones las gestiona un {@link ConnectionManager}: una conexión de
+ * escritura y un pool de lectura que se reutilizan durante toda la sesión.
+ *
+ * Con un {@link ScoreJournal} configurado, {@link #saveStats} anexa al diario
+ * en lugar de abrir una transacción y un hilo en segundo plano lo vuelca a
+ * stats. Los rankings y el mejor score incluyen lo pendiente del diario; el
+ * resto de consultas lo ven cuando se ha volcado.
  */
-public class StatsRepository {
+public class StatsRepository implements StatsStore {
     private static final String DB_URL = "jdbc:sqlite:stats.db";
+    private static final int READ_POOL_SIZE = 4;
+    static final int DEFAULT_LEADERBOARD_SIZE = 10;
+    private static final int HISTORY_FETCH_SIZE = 512;
+    private static final int JOURNAL_REPLAY_BATCH = 1024;
+    private static final long JOURNAL_POLL_MS = 100;
+    static final int IMPORT_CHUNK_SIZE = 20000;
+    private static final int SCORE_COLUMN_INITIAL_SIZE = 1024;
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // Empates: primero el que lo consiguió antes (mismo orden que el índice)
+    static final String TOP_N_SQL = "SELECT s.id, s.score, s.date " +
+            "FROM stats s " +
+            "INNER JOIN games g ON s.game_id = g.id " +
+            "WHERE g.name = ? " +
+            "ORDER BY s.score DESC, s.date, s.id " +
+            "LIMIT ? OFFSET ?";
+
+    // Los candidatos de cada juego salen del índice (LIMIT por juego) y
+    // ROW_NUMBER los numera; ventanear toda la tabla obligaría a leerla entera
+    static final String TOP_N_ALL_GAMES_SQL = "SELECT g.name, r.id, r.score, r.date " +
+            "FROM games g " +
+            "LEFT JOIN (" +
+            "SELECT s.id, s.game_id, s.score, s.date, " +
+            "ROW_NUMBER() OVER (PARTITION BY s.game_id " +
+            "ORDER BY s.score DESC, s.date, s.id) AS rn " +
+            "FROM games g2 " +
+            "INNER JOIN stats s ON s.id IN (" +
+            "SELECT t.id FROM stats t WHERE t.game_id = g2.id " +
+            "ORDER BY t.score DESC, t.date, t.id LIMIT ?)" +
+            ") r ON r.game_id = g.id " +
+            "ORDER BY g.name, r.rn";
+
+    static final String ALL_SCORES_SQL = "SELECT s.score FROM stats s " +
+            "WHERE s.game_id = (SELECT id FROM games WHERE name = ?)";
+
+    static final String HIGH_SCORE_SQL = "SELECT MAX(s.score) as max_score " +
+            "FROM stats s " +
+            "INNER JOIN games g ON s.game_id = g.id " +
+            "WHERE g.name = ?";
+
+    static final String RANK_BY_STAT_SQL = "SELECT s.id, s.score, s.date, " +
+            "v.type, v.long_value, v.double_value, v.text_value " +
+            "FROM stat_values v " +
+            "INNER JOIN stats s ON s.id = v.stat_id " +
+            "WHERE v.game_id = (SELECT id FROM games WHERE name = ?) " +
+            "AND v.key_id = (SELECT id FROM stat_keys WHERE name = ?) " +
+            "AND v.double_value IS NOT NULL ";
+
+    static final String AGGREGATE_STAT_SQL = "SELECT COUNT(v.double_value), " +
+            "SUM(v.double_value), MIN(v.double_value), MAX(v.double_value), " +
+            "SUM(v.double_value * v.double_value) " +
+            "FROM stat_values v " +
+            "WHERE v.game_id = (SELECT id FROM games WHERE name = ?) " +
+            "AND v.key_id = (SELECT id FROM stat_keys WHERE name = ?)";
+
+    static final String AGGREGATE_SCORE_SQL = "SELECT COUNT(s.score), " +
+            "SUM(s.score), MIN(s.score), MAX(s.score), SUM(s.score * s.score) " +
+            "FROM stats s " +
+            "WHERE s.game_id = (SELECT id FROM games WHERE name = ?)";
+
+    static final String EXPORT_SQL = "SELECT g.name, s.score, s.date " +
+            "FROM stats s " +
+            "INNER JOIN games g ON s.game_id = g.id " +
+            "ORDER BY s.id";
 
     /**
-     * Inicializa la base de datos creando las tablas si no existen.
+     * Consultas de ranking que deben resolverse con índices
+     * (se comprueban con EXPLAIN QUERY PLAN en init()).
+     */
+    static final Map<String, String> RANKING_QUERIES = Map.of(
+            "getTopN", TOP_N_SQL,
+            "getTopNAllGames", TOP_N_ALL_GAMES_SQL,
+            "getStatsPage", historySql(true, true, true, true),
+            "getHighScore", HIGH_SCORE_SQL,
+            "rankByStat", RANK_BY_STAT_SQL + "ORDER BY v.double_value DESC, v.stat_id LIMIT ?",
+            "aggregateStat", AGGREGATE_STAT_SQL,
+            "aggregateScores", StatsRollups.RAW_SQL,
+            "rankOf", ALL_SCORES_SQL,
+            "compactOldStats", StatsRetention.CANDIDATES_SQL,
+            "readScores", readScoresSql(true, true)
+    );
+
+    private final ConnectionManager connections;
+    private final SchemaMigrator migrator = new SchemaMigrator();
+    private final LeaderboardCache leaderboardCache;
+    private final StatValueStore statValues = new StatValueStore();
+    private final StatsRollups rollups = new StatsRollups();
+    private final ScoreRankIndex rankIndex = new ScoreRankIndex();
+    private final StatsRetention retention = new StatsRetention();
+
+    // Diario de puntuaciones (null = desactivado)
+    private final Path journalPath;
+    private ScoreJournal journal;
+    private Thread journalReplayer;
+    private volatile boolean replaying;
+    // Lectores: ranking de stats + pendientes del diario; escritor: el volcado
+    private final ReentrantReadWriteLock replayLock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> gameIds = new ConcurrentHashMap<>();
+    private final Map<Integer, String> gameNames = new ConcurrentHashMap<>();
+
+    public StatsRepository() {
+        this(DB_URL, PragmaProfile.fromSystemProperty(), DEFAULT_LEADERBOARD_SIZE,
+                ScoreJournal.pathFromSystemProperty());
+    }
+
+    /**
+     * @param dbUrl URL JDBC de la base de datos
+     * @param profile perfil de PRAGMAs (durabilidad / caché)
+     */
+    public StatsRepository(String dbUrl, PragmaProfile profile) {
+        this(dbUrl, profile, DEFAULT_LEADERBOARD_SIZE);
+    }
+
+    /**
+     * @param dbUrl URL JDBC de la base de datos
+     * @param profile perfil de PRAGMAs (durabilidad / caché)
+     * @param leaderboardSize posiciones por juego guardadas en memoria
+     */
+    public StatsRepository(String dbUrl, PragmaProfile profile, int leaderboardSize) {
+        this(dbUrl, profile, leaderboardSize, null);
+    }
+
+    /**
+     * @param dbUrl URL JDBC de la base de datos
+     * @param profile perfil de PRAGMAs (durabilidad / caché)
+     * @param leaderboardSize posiciones por juego guardadas en memoria
+     * @param journalPath archivo del diario de puntuaciones, o null para
+     *                    guardar cada partida directamente en stats
+     */
+    public StatsRepository(String dbUrl, PragmaProfile profile, int leaderboardSize,
+                           Path journalPath) {
+        this.connections = new ConnectionManager(dbUrl, profile, READ_POOL_SIZE);
+        this.leaderboardCache = new LeaderboardCache(leaderboardSize);
+        this.journalPath = journalPath;
+    }
+
+    /**
+     * Inicializa la base de datos aplicando las migraciones pendientes y
+     * comprueba que las consultas de ranking usan índices.
      *
      * @throws SQLException si hay error en la base de datos
      */
+    @Override
     public void init() throws SQLException {
-        try (
-                Connection conn = DriverManager.getConnection(DB_URL);
-                Statement stmt = conn.createStatement()
-        ) {
+        try (Connection conn = connections.getWriteConnection()) {
+
+            migrator.migrate(conn);
+
+            List<String> problems = migrator.verifyQueryPlans(conn, RANKING_QUERIES);
+            for (String problem : problems) {
+                System.err.println("✗ Consulta sin índice: " + problem);
+            }
+
+            System.out.println("✓ Base de datos inicializada: " +
+                    connections.getDbUrl() + " (" + connections.getProfile() +
+                    ", esquema v" + migrator.getCurrentVersion(conn) + ")");
+        }
+
+        if (journalPath != null) {
+            openJournal();
+        }
+    }
+
+    /**
+     * Abre el diario, vuelca lo que quedó pendiente de la sesión anterior y
+     * arranca el hilo de volcado.
+     */
+    private void openJournal() throws SQLException {
+        long checkpoint;
+        try (Connection conn = connections.getWriteConnection();
+             Statement stmt = conn.createStatement()) {
+
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT sequence FROM journal_checkpoint WHERE id = 1")) {
+                checkpoint = rs.next() ? rs.getLong(1) : 0;
+            }
+
+            try (ResultSet rs = stmt.executeQuery("SELECT id, name FROM games")) {
+                while (rs.next()) {
+                    rememberGame(rs.getInt("id"), rs.getString("name"));
+                }
+            }
+        }
+
+        try {
+            journal = new ScoreJournal(journalPath, ScoreJournal.DEFAULT_CAPACITY,
+                    connections.getProfile() == PragmaProfile.DURABLE);
+        } catch (IOException e) {
+            throw new SQLException("No se pudo abrir el diario de puntuaciones: " +
+                    journalPath, e);
+        }
+
+        int recovered = journal.recover(checkpoint);
+        drainJournal();
+        if (recovered > 0) {
+            System.out.println("✓ Diario de puntuaciones: " + recovered +
+                    " partidas recuperadas");
+        }
+
+        replaying = true;
+        journalReplayer = new Thread(this::replayLoop, "stats-journal");
+        journalReplayer.setDaemon(true);
+        journalReplayer.start();
+    }
+
+    private void replayLoop() {
+        while (replaying) {
+            try {
+                if (journal.awaitPending(JOURNAL_POLL_MS)) {
+                    replayJournalBatch();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (SQLException | RuntimeException e) {
+                // Los registros siguen en el diario: se reintenta en la próxima vuelta
+                System.err.println("✗ Error volcando el diario de puntuaciones: " +
+                        e.getMessage());
+                try {
+                    Thread.sleep(JOURNAL_POLL_MS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Vuelca a stats todo lo pendiente del diario.
+     */
+    private void drainJournal() throws SQLException {
+        while (replayJournalBatch() > 0) {
+            // siguiente lote
+        }
+    }
+
+    /**
+     * Guarda en stats el siguiente lote del diario y avanza el punto de
+     * control en la misma transacción.
+     *
+     * @return número de registros volcados
+     */
+    private int replayJournalBatch() throws SQLException {
+        replayLock.writeLock().lock();
+        try {
+            List<ScoreJournal.Record> records = journal.pending(JOURNAL_REPLAY_BATCH);
+            if (records.isEmpty()) {
+                return 0;
+            }
+
+            List<GameStats> statsList = new ArrayList<>(records.size());
+            double[] scores = new double[records.size()];
+            String[] dates = new String[records.size()];
+            for (int i = 0; i < scores.length; i++) {
+                ScoreJournal.Record record = records.get(i);
+                String gameName = gameNames.get(record.gameId);
+                if (gameName == null) {
+                    throw new SQLException("Juego desconocido en el diario: id " +
+                            record.gameId);
+                }
+
+                scores[i] = record.score;
+                LocalDateTime utc = toUtc(record.epochMillis);
+                dates[i] = utc.format(TIMESTAMP_FORMAT);
+                statsList.add(new GameStats(gameName,
+                        new HashMap<>(Map.of("score", record.score)), utc));
+            }
 
-            stmt.execute("CREATE TABLE IF NOT EXISTS games (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                    "name TEXT UNIQUE NOT NULL," +
-                    "file_path TEXT NOT NULL)");
+            writeBatch(statsList, scores, dates, records.get(records.size() - 1).sequence);
+            journal.markReplayed(records.size());
+            return records.size();
+        } finally {
+            replayLock.writeLock().unlock();
+        }
+    }
 
-            stmt.execute("CREATE TABLE IF NOT EXISTS stats (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                    "game_id INTEGER NOT NULL, " +
-                    "score REAL NOT NULL, " +
-                    "date TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
-                    "FOREIGN KEY(game_id) REFERENCES games(id))");
+    private void rememberGame(int gameId, String gameName) {
+        gameIds.put(gameName, gameId);
+        gameNames.put(gameId, gameName);
+    }
 
-            System.out.println("✓ Base de datos inicializada: " + DB_URL);
+    /**
+     * @return id del juego para el diario; lo crea si no existe
+     */
+    private int journalGameId(String gameName) throws SQLException {
+        Integer gameId = gameIds.get(gameName);
+        if (gameId == null) {
+            try (Connection conn = connections.getWriteConnection()) {
+                gameId = getOrCreateGame(conn, gameName, "");
+            }
+            rememberGame(gameId, gameName);
         }
+        return gameId;
     }
 
+    @Override
     public void addGame(String gameName, String filePath) throws SQLException {
-        try (Connection conn = DriverManager.getConnection(DB_URL)) {
+        try (Connection conn = connections.getWriteConnection()) {
 
             String sql = "INSERT INTO games (name, file_path) VALUES (?, ?)";
             try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -58,332 +352,1471 @@ public class StatsRepository {
         }
     }
 
+    @Override
+    public void updateGamePath(String gameName, String filePath) throws SQLException {
+        try (Connection conn = connections.getWriteConnection()) {
+
+            String sql = "INSERT INTO games (name, file_path) VALUES (?, ?) " +
+                    "ON CONFLICT(name) DO UPDATE SET file_path = excluded.file_path";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, gameName);
+                pstmt.setString(2, filePath);
+                pstmt.executeUpdate();
+
+                System.out.println("✓ Ruta de " + gameName + " guardada: " + filePath);
+            }
+
+        }
+    }
+
     /**
      * Obtiene todos los juegos con sus rutas de archivo.
      *
      * @return mapa: nombre del juego → ruta del archivo
      * @throws SQLException si hay error en la base de datos
      */
+    @Override
     public Map<String, String> getAllGamesWithPaths() throws SQLException {
         Map<String, String> games = new HashMap<>();
 
-        try (Connection conn = DriverManager.getConnection(DB_URL)) {
+        try (Connection conn = connections.getReadConnection()) {
+
+            String sql = "SELECT name, file_path FROM games ORDER BY name";
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+
+                while (rs.next()) {
+                    games.put(
+                            rs.getString("name"),
+                            rs.getString("file_path")
+                    );
+                }
+            }
+        }
+
+        return games;
+    }
+
+    /**
+     * Guarda las estadísticas de un juego en la base de datos.
+     * Crea el juego si no existe.
+     *
+     * Con el diario activado, una partida que solo trae "score" se anexa al
+     * diario y se vuelca a stats en segundo plano. Con más claves, o si el
+     * diario está lleno, se guarda directamente.
+     *
+     * @param gameName nombre del juego
+     * @param stats mapa con estadísticas (debe contener "score")
+     * @throws SQLException si hay error en la base de datos
+     */
+    @Override
+    public void saveStats(String gameName, Map<String, Object> stats)
+            throws SQLException {
+
+        if (journal != null && stats != null && stats.size() == 1) {
+            double score = extractScore(stats);
+            if (journal.tryAppend(journalGameId(gameName), score, System.currentTimeMillis())) {
+                return;
+            }
+        }
+
+        saveStatsBatch(List.of(new GameStats(gameName, stats)));
+    }
+
+    /**
+     * Guarda varias estadísticas en una sola transacción (group commit).
+     * Crea los juegos que no existan. La fecha de cada registro es el
+     * timestamp de su GameStats, guardado en UTC igual que CURRENT_TIMESTAMP.
+     * Además de "score" se guardan, tipadas, el resto de claves del mapa.
+     *
+     * Con el diario activado, las partidas que solo traen "score" se anexan al
+     * diario como en {@link #saveStats}; el resto, y las que no quepan, van a
+     * la transacción.
+     *
+     * @param statsList estadísticas a guardar (cada mapa debe contener "score")
+     * @throws SQLException si hay error en la base de datos; en ese caso no se
+     *                      guarda ninguna estadística de la transacción (las ya
+     *                      anexadas al diario se conservan)
+     */
+    @Override
+    public void saveStatsBatch(List<GameStats> statsList) throws SQLException {
+        if (statsList.isEmpty()) {
+            return;
+        }
+
+        // Validar todo el lote antes de abrir la transacción
+        double[] scores = new double[statsList.size()];
+        String[] dates = new String[statsList.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = extractScore(statsList.get(i).getStats());
+            dates[i] = formatTimestamp(statsList.get(i).getTimestamp());
+        }
+
+        if (journal != null) {
+            appendToJournal(statsList, scores, dates);
+        } else {
+            writeBatch(statsList, scores, dates, -1);
+        }
+    }
+
+    /**
+     * Anexa al diario las partidas del lote que solo traen "score" y guarda
+     * el resto directamente. Si el diario se llena, lo que queda va también
+     * a la transacción.
+     */
+    private void appendToJournal(List<GameStats> statsList, double[] scores, String[] dates)
+            throws SQLException {
+
+        List<GameStats> direct = new ArrayList<>();
+        List<Integer> directIndexes = new ArrayList<>();
+        boolean full = false;
+        for (int i = 0; i < scores.length; i++) {
+            GameStats stats = statsList.get(i);
+            if (!full && stats.getStats().size() == 1) {
+                full = !journal.tryAppend(journalGameId(stats.getGameName()), scores[i],
+                        toEpochMillis(stats.getTimestamp()));
+                if (!full) {
+                    continue;
+                }
+            }
+            direct.add(stats);
+            directIndexes.add(i);
+        }
+
+        if (direct.isEmpty()) {
+            return;
+        }
+
+        double[] directScores = new double[direct.size()];
+        String[] directDates = new String[direct.size()];
+        for (int i = 0; i < directScores.length; i++) {
+            directScores[i] = scores[directIndexes.get(i)];
+            directDates[i] = dates[directIndexes.get(i)];
+        }
+        writeBatch(direct, directScores, directDates, -1);
+    }
+
+    /**
+     * @param journalSequence secuencia del diario a guardar como punto de
+     *                        control en la misma transacción, o -1
+     */
+    private void writeBatch(List<GameStats> statsList, double[] scores, String[] dates,
+                            long journalSequence) throws SQLException {
+        long[] ids = new long[scores.length];
+        Set<String> writtenGames = new HashSet<>();
+        for (GameStats stats : statsList) {
+            writtenGames.add(stats.getGameName());
+        }
+
+        // Una carga del índice entre el commit y onInsert ya vería las filas
+        rankIndex.beginWrite(writtenGames);
+        try {
+            insertBatch(statsList, scores, dates, journalSequence, ids);
+
+            for (int i = 0; i < scores.length; i++) {
+                leaderboardCache.onInsert(
+                        statsList.get(i).getGameName(),
+                        new LeaderboardCache.Entry(ids[i], scores[i], dates[i])
+                );
+                rankIndex.onInsert(statsList.get(i).getGameName(), scores[i]);
+            }
+        } finally {
+            rankIndex.endWrite(writtenGames);
+        }
+
+        if (statsList.size() == 1) {
+            System.out.println("✓ Estadística guardada: " +
+                    statsList.get(0).getGameName() + " - Score: " + scores[0]);
+        } else {
+            System.out.println("✓ " + statsList.size() + " estadísticas guardadas");
+        }
+    }
+
+    /**
+     * Inserta el lote en una transacción y deja en ids el id de cada fila.
+     */
+    private void insertBatch(List<GameStats> statsList, double[] scores, String[] dates,
+                             long journalSequence, long[] ids) throws SQLException {
+        try (Connection conn = connections.getWriteConnection()) {
+            conn.setAutoCommit(false);
+
+            Map<String, Integer> gameIds = new HashMap<>();
+            Map<String, Integer> txKeys = new HashMap<>();
+            StatsRollups.Batch rollupBatch = new StatsRollups.Batch();
+            String sql = "INSERT INTO stats (game_id, score, date) VALUES (?, ?, ?)";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < scores.length; i++) {
+                    GameStats stats = statsList.get(i);
+
+                    Integer gameId = gameIds.get(stats.getGameName());
+                    if (gameId == null) {
+                        gameId = getOrCreateGame(conn, stats.getGameName(), "");
+                        gameIds.put(stats.getGameName(), gameId);
+                    }
+
+                    pstmt.setInt(1, gameId);
+                    pstmt.setDouble(2, scores[i]);
+                    pstmt.setString(3, dates[i]);
+                    pstmt.executeUpdate();
+                    ids[i] = lastInsertId(conn);
+
+                    // Resto de claves (tiempo, nivel, precisión...)
+                    statValues.insertValues(conn, ids[i], gameId, stats.getStats(), txKeys);
+                    rollupBatch.add(gameId, dates[i], scores[i]);
+                }
+            }
+
+            // Resúmenes por hora y día en la misma transacción
+            rollupBatch.write(conn);
+
+            if (journalSequence >= 0) {
+                try (PreparedStatement checkpoint = conn.prepareStatement(
+                        "UPDATE journal_checkpoint SET sequence = ? WHERE id = 1")) {
+                    checkpoint.setLong(1, journalSequence);
+                    checkpoint.executeUpdate();
+                }
+            }
+
+            conn.commit();
+            conn.setAutoCommit(true);
+            statValues.publishKeys(txKeys);
+        }
+    }
+
+    /**
+     * Obtiene los 3 mejores resultados de un juego.
+     *
+     * @param gameName nombre del juego
+     * @return lista de GameStats ordenada por score descendente (máximo 3)
+     * @throws SQLException si hay error en la base de datos
+     */
+    @Override
+    public List<GameStats> getTop3(String gameName) throws SQLException {
+        return getTopN(gameName, 3, 0);
+    }
+
+    /**
+     * Obtiene una página del ranking de un juego.
+     * Si cae dentro de las N posiciones de la caché se sirve desde memoria;
+     * solo la primera vez va a la BD.
+     *
+     * @param gameName nombre del juego
+     * @param n número máximo de resultados
+     * @param offset posiciones a saltar (0 = desde el primero)
+     * @return lista de GameStats ordenada por score descendente
+     * @throws SQLException si hay error en la base de datos
+     */
+    @Override
+    public List<GameStats> getTopN(String gameName, int n, int offset)
+            throws SQLException {
+
+        if (journal == null) {
+            return storedTopN(gameName, n, offset);
+        }
+
+        replayLock.readLock().lock();
+        try {
+            List<ScoreJournal.Record> pending = pendingTopN(gameName, offset + n);
+            if (pending.isEmpty()) {
+                return storedTopN(gameName, n, offset);
+            }
+
+            // El diario puede colar partidas en cualquier posición de la página
+            List<GameStats> merged = mergePending(gameName,
+                    storedTopN(gameName, offset + n, 0), pending, offset + n);
+            return new ArrayList<>(merged.subList(Math.min(offset, merged.size()), merged.size()));
+        } finally {
+            replayLock.readLock().unlock();
+        }
+    }
+
+    private List<GameStats> storedTopN(String gameName, int n, int offset)
+            throws SQLException {
+
+        int end = offset + n;
+        int from = offset;
+        List<LeaderboardCache.Entry> entries = leaderboardCache.get(gameName, end);
+
+        if (entries == null) {
+            if (end > leaderboardCache.getCapacity()) {
+                // Fuera de la caché: la BD hace el salto
+                entries = queryTopN(gameName, n, offset);
+                from = 0;
+            } else {
+                long generation = leaderboardCache.generation(gameName);
+                entries = queryTopN(gameName, leaderboardCache.getCapacity(), 0);
+                leaderboardCache.fill(gameName, entries, generation);
+            }
+        }
+
+        List<GameStats> top = new ArrayList<>(n);
+        for (int i = from; i < Math.min(from + n, entries.size()); i++) {
+            top.add(toGameStats(gameName, entries.get(i)));
+        }
+
+        return top;
+    }
+
+    /**
+     * @return mejores partidas del juego pendientes de volcar del diario
+     */
+    private List<ScoreJournal.Record> pendingTopN(String gameName, int n) {
+        Integer gameId = gameIds.get(gameName);
+        return gameId == null ? List.of() : journal.topN(gameId, n);
+    }
+
+    /**
+     * Mezcla un ranking de stats con partidas del diario, ambos ya ordenados.
+     * A igual score y fecha va antes la de stats, que tendrá un id menor.
+     *
+     * @return como mucho limit partidas en orden de ranking
+     */
+    private List<GameStats> mergePending(String gameName, List<GameStats> stored,
+                                         List<ScoreJournal.Record> pending, int limit) {
+        List<GameStats> merged = new ArrayList<>(Math.min(limit, stored.size() + pending.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < stored.size() || j < pending.size())) {
+            if (j == pending.size()) {
+                merged.add(stored.get(i++));
+                continue;
+            }
+
+            ScoreJournal.Record record = pending.get(j);
+            LocalDateTime date = toUtc(record.epochMillis);
+            if (i < stored.size()) {
+                GameStats next = stored.get(i);
+                double score = ((Number) next.getStats().get("score")).doubleValue();
+                int cmp = Double.compare(record.score, score);
+                if (cmp < 0 || (cmp == 0 && (next.getTimestamp() == null
+                        || !date.isBefore(next.getTimestamp())))) {
+                    merged.add(next);
+                    i++;
+                    continue;
+                }
+            }
+
+            Map<String, Object> statsMap = new HashMap<>();
+            statsMap.put("score", record.score);
+            merged.add(new GameStats(gameName, statsMap, date));
+            j++;
+        }
+
+        return merged;
+    }
+
+    /**
+     * @return caché de rankings (para consultar aciertos y fallos)
+     */
+    public LeaderboardCache getLeaderboardCache() {
+        return leaderboardCache;
+    }
+
+    /**
+     * Lee de la BD los n mejores resultados de un juego.
+     *
+     * @param gameName nombre del juego
+     * @param n número máximo de filas
+     * @param offset posiciones a saltar
+     * @return filas en orden de ranking
+     * @throws SQLException si hay error en la base de datos
+     */
+    private List<LeaderboardCache.Entry> queryTopN(String gameName, int n, int offset)
+            throws SQLException {
+
+        List<LeaderboardCache.Entry> entries = new ArrayList<>(n);
+
+        try (Connection conn = connections.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(TOP_N_SQL)) {
+
+            pstmt.setString(1, gameName);
+            pstmt.setInt(2, n);
+            pstmt.setInt(3, offset);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    entries.add(new LeaderboardCache.Entry(
+                            rs.getLong("id"),
+                            rs.getDouble("score"),
+                            rs.getString("date")
+                    ));
+                }
+            }
+        }
+
+        return entries;
+    }
+
+    private GameStats toGameStats(String gameName, LeaderboardCache.Entry entry) {
+        return toGameStats(gameName, entry, null);
+    }
+
+    private GameStats toGameStats(String gameName,
+                                  LeaderboardCache.Entry entry,
+                                  Map<String, Object> extra) {
+        Map<String, Object> statsMap = extra == null ? new HashMap<>() : extra;
+        statsMap.put("score", entry.getScore());
+
+        return new GameStats(gameName, statsMap, parseTimestamp(entry.getDate()));
+    }
+
+    /**
+     * Obtiene todos los top 3 de TODOS los juegos.
+     * Útil para mostrar rankings globales.
+     *
+     * @return mapa: nombre del juego → lista de top 3
+     * @throws SQLException si hay error en la base de datos
+     */
+    @Override
+    public Map<String, List<GameStats>> getTop3AllGames()
+            throws SQLException {
+
+        return getTopNAllGames(3);
+    }
+
+    /**
+     * Obtiene el top N de todos los juegos con una sola consulta.
+     * Los juegos sin registros aparecen con una lista vacía.
+     *
+     * @param n número máximo de resultados por juego
+     * @return mapa ordenado por nombre: juego → lista ordenada por score descendente
+     * @throws SQLException si hay error en la base de datos
+     */
+    @Override
+    public Map<String, List<GameStats>> getTopNAllGames(int n)
+            throws SQLException {
+
+        if (journal == null) {
+            return storedTopNAllGames(n);
+        }
+
+        replayLock.readLock().lock();
+        try {
+            Map<String, List<GameStats>> allTop = storedTopNAllGames(n);
+            for (Map.Entry<String, List<GameStats>> entry : allTop.entrySet()) {
+                List<ScoreJournal.Record> pending = pendingTopN(entry.getKey(), n);
+                if (!pending.isEmpty()) {
+                    entry.setValue(mergePending(entry.getKey(), entry.getValue(), pending, n));
+                }
+            }
+            return allTop;
+        } finally {
+            replayLock.readLock().unlock();
+        }
+    }
+
+    private Map<String, List<GameStats>> storedTopNAllGames(int n) throws SQLException {
+        Map<String, List<GameStats>> allTop = new LinkedHashMap<>();
+
+        try (Connection conn = connections.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(TOP_N_ALL_GAMES_SQL)) {
+
+            pstmt.setInt(1, n);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String gameName = rs.getString("name");
+                    List<GameStats> top = allTop.computeIfAbsent(
+                            gameName, k -> new ArrayList<>(n)
+                    );
+
+                    // LEFT JOIN: fila sin stats para juegos sin registros
+                    rs.getLong("id");
+                    if (!rs.wasNull()) {
+                        top.add(toGameStats(gameName, new LeaderboardCache.Entry(
+                                rs.getLong("id"),
+                                rs.getDouble("score"),
+                                rs.getString("date")
+                        )));
+                    }
+                }
+            }
+        }
+
+        return allTop;
+    }
+
+    /**
+     * Obtiene todas las estadísticas de un juego (sin límite).
+     * Para historiales grandes usar {@link #forEachStat} o {@link #getStatsPage}.
+     * Si la política de retención ya compactó partidas, el resultado no es
+     * exacto: {@link StatsHistory#isExact()} lo indica y las partidas que
+     * faltan vienen resumidas en sus histogramas.
+     *
+     * @param gameName nombre del juego
+     * @return partidas conservadas del juego más los histogramas de las compactadas
+     * @throws SQLException si hay error en la base de datos
+     */
+    @Override
+    public StatsHistory getAllStats(String gameName)
+            throws SQLException {
+
+        return queryStatsHistory(gameName, StatsFilter.all());
+    }
+
+    /**
+     * Recorre el historial de un juego, del más reciente al más antiguo, sin
+     * cargarlo en memoria: cada fila se entrega al consumidor según se lee.
+     * La conexión de lectura queda ocupada hasta que termina el recorrido.
+     *
+     * @param gameName nombre del juego
+     * @param filter rango de fechas
+     * @param action consumidor de cada estadística
+     * @return número de filas recorridas
+     * @throws SQLException si hay error en la base de datos
+     */
+    @Override
+    public int forEachStat(String gameName,
+                           StatsFilter filter,
+                           Consumer<GameStats> action)
+            throws SQLException {
+
+        return queryHistory(gameName, filter, null, 0, (id, score, date, extra) ->
+                action.accept(toGameStats(gameName, new LeaderboardCache.Entry(id, score, date), extra))
+        );
+    }
+
+    /**
+     * Obtiene una página del historial de un juego con paginación por clave.
+     *
+     * @param gameName nombre del juego
+     * @param filter rango de fechas
+     * @param after cursor de la página anterior (null = primera página)
+     * @param limit tamaño de página
+     * @return página con las filas y el cursor de la siguiente
+     * @throws SQLException si hay error en la base de datos
+     */
+    @Override
+    public StatsPage getStatsPage(String gameName,
+                                  StatsFilter filter,
+                                  StatsCursor after,
+                                  int limit)
+            throws SQLException {
+
+        List<GameStats> rows = new ArrayList<>(limit + 1);
+        List<LeaderboardCache.Entry> entries = new ArrayList<>(limit + 1);
+
+        // Se pide una fila de más para saber si hay página siguiente
+        queryHistory(gameName, filter, after, limit + 1, (id, score, date, extra) -> {
+            LeaderboardCache.Entry entry = new LeaderboardCache.Entry(id, score, date);
+            entries.add(entry);
+            rows.add(toGameStats(gameName, entry, extra));
+        });
+
+        StatsCursor next = null;
+        if (rows.size() > limit) {
+            rows.remove(limit);
+            LeaderboardCache.Entry last = entries.get(limit - 1);
+            next = new StatsCursor(last.getDate(), last.getId());
+        }
+
+        return new StatsPage(rows, next);
+    }
+
+    /**
+     * Obtiene la lista de todos los juegos registrados.
+     *
+     * @return lista de nombres de juegos
+     * @throws SQLException si hay error en la base de datos
+     */
+    @Override
+    public List<String> getAllGames() throws SQLException {
+        List<String> games = new ArrayList<>();
+
+        try (Connection conn = connections.getReadConnection()) {
+
+            String sql = "SELECT DISTINCT name FROM games ORDER BY name";
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+
+                while (rs.next()) {
+                    games.add(rs.getString("name"));
+                }
+            }
+        }
+
+        return games;
+    }
+
+    /**
+     * Obtiene los metadatos guardados de los JARs de juegos.
+     *
+     * @return mapa: ruta del JAR → entrada
+     * @throws SQLException si hay error en la base de datos
+     */
+    @Override
+    public Map<String, PluginCacheEntry> getPluginCache() throws SQLException {
+        Map<String, PluginCacheEntry> cache = new HashMap<>();
+
+        try (Connection conn = connections.getReadConnection()) {
+
+            String sql = "SELECT file_path, size, last_modified, sha256, game_class, " +
+                    "title, version, category, error FROM plugin_cache";
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+
+                while (rs.next()) {
+                    PluginCacheEntry entry = new PluginCacheEntry(
+                            rs.getString("file_path"),
+                            rs.getLong("size"),
+                            rs.getLong("last_modified"),
+                            rs.getString("sha256"),
+                            rs.getString("game_class"),
+                            rs.getString("title"),
+                            rs.getString("version"),
+                            rs.getString("category"),
+                            rs.getString("error")
+                    );
+                    cache.put(entry.getFilePath(), entry);
+                }
+            }
+        }
+
+        return cache;
+    }
+
+    /**
+     * Guarda los metadatos de un JAR, reemplazando los anteriores de esa ruta.
+     *
+     * @param entry metadatos leídos del JAR
+     * @throws SQLException si hay error en la base de datos
+     */
+    @Override
+    public void savePluginCacheEntry(PluginCacheEntry entry) throws SQLException {
+        try (Connection conn = connections.getWriteConnection()) {
+
+            String sql = "INSERT OR REPLACE INTO plugin_cache (file_path, size, last_modified, " +
+                    "sha256, game_class, title, version, category, error) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, entry.getFilePath());
+                pstmt.setLong(2, entry.getSize());
+                pstmt.setLong(3, entry.getLastModified());
+                pstmt.setString(4, entry.getSha256());
+                pstmt.setString(5, entry.getGameClass());
+                pstmt.setString(6, entry.getTitle());
+                pstmt.setString(7, entry.getVersion());
+                pstmt.setString(8, entry.getCategory());
+                pstmt.setString(9, entry.getError());
+                pstmt.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Busca JARs de juegos registrados con el mismo contenido en rutas
+     * distintas.
+     *
+     * @return mapa: SHA-256 → rutas (dos o más), ordenadas
+     * @throws SQLException si hay error en la base de datos
+     */
+    @Override
+    public Map<String, List<String>> findDuplicatePlugins() throws SQLException {
+        Map<String, List<String>> duplicates = new LinkedHashMap<>();
+
+        try (Connection conn = connections.getReadConnection()) {
+
+            // Solo rutas de juegos registrados: la caché puede tener JARs viejos
+            String sql = "WITH registered AS (" +
+                    "SELECT p.sha256, p.file_path FROM plugin_cache p " +
+                    "JOIN games g ON g.file_path = p.file_path) " +
+                    "SELECT sha256, file_path FROM registered WHERE sha256 IN (" +
+                    "SELECT sha256 FROM registered GROUP BY sha256 " +
+                    "HAVING COUNT(DISTINCT file_path) > 1) " +
+                    "ORDER BY sha256, file_path";
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+
+                while (rs.next()) {
+                    duplicates.computeIfAbsent(rs.getString("sha256"), k -> new ArrayList<>())
+                            .add(rs.getString("file_path"));
+                }
+            }
+        }
+
+        return duplicates;
+    }
+
+    /**
+     * Obtiene estadísticas de un juego en un rango de fechas.
+     * Igual que {@link #getAllStats}, indica si el rango es exacto o si
+     * incluye días compactados en histogramas.
+     *
+     * @param gameName nombre del juego
+     * @param startDate fecha inicio (formato: YYYY-MM-DD)
+     * @param endDate fecha fin (formato: YYYY-MM-DD)
+     * @return partidas conservadas del rango más los histogramas de los días compactados
+     * @throws SQLException si hay error en la base de datos
+     */
+    @Override
+    public StatsHistory getStatsByDateRange(String gameName,
+                                               String startDate,
+                                               String endDate)
+            throws SQLException {
+
+        return queryStatsHistory(gameName, StatsDates.dayRange(startDate, endDate));
+    }
+
+    private StatsHistory queryStatsHistory(String gameName, StatsFilter filter)
+            throws SQLException {
+
+        List<GameStats> stats = new ArrayList<>();
+        forEachStat(gameName, filter, stats::add);
+
+        // Filas antes que histogramas: una compactación entre ambas lecturas
+        // puede contar una partida dos veces, pero nunca perderla
+        try (Connection conn = connections.getReadConnection()) {
+            return new StatsHistory(stats, retention.histogram(conn, gameName, filter));
+        }
+    }
+
+    /**
+     * Lee las partidas de un juego en columnas primitivas, en orden
+     * cronológico. No crea objetos por fila: para análisis sobre historiales
+     * grandes es mucho más barato que {@link #forEachStat}.
+     *
+     * @param gameName nombre del juego
+     * @param range rango de fechas (solo se usan desde y hasta)
+     * @return scores y fechas en segundos epoch
+     * @throws SQLException si hay error en la base de datos
+     */
+    @Override
+    public ScoreColumn readScores(String gameName, StatsFilter range) throws SQLException {
+        boolean hasFrom = range.getFrom() != null;
+        boolean hasTo = range.getTo() != null;
+        int size = 0;
+        double[] scores;
+        long[] epochSeconds;
+
+        try (Connection conn = connections.getReadConnection();
+             PreparedStatement countStmt = conn.prepareStatement(
+                     "SELECT COUNT(*) FROM (" + readScoresSql(hasFrom, hasTo) + ")");
+             PreparedStatement pstmt = conn.prepareStatement(readScoresSql(hasFrom, hasTo))) {
+
+            bindScoreRange(countStmt, gameName, range);
+            bindScoreRange(pstmt, gameName, range);
+            pstmt.setFetchSize(HISTORY_FETCH_SIZE);
+
+            // Contar primero (solo índice) evita ir duplicando los arrays;
+            // si entretanto llegan partidas, se crece igualmente
+            int expected;
+            try (ResultSet rs = countStmt.executeQuery()) {
+                expected = rs.next() ? rs.getInt(1) : 0;
+            }
+            scores = new double[Math.max(expected, SCORE_COLUMN_INITIAL_SIZE)];
+            epochSeconds = new long[scores.length];
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    if (size == scores.length) {
+                        scores = Arrays.copyOf(scores, size * 2);
+                        epochSeconds = Arrays.copyOf(epochSeconds, size * 2);
+                    }
+                    scores[size] = rs.getDouble(1);
+                    epochSeconds[size] = rs.getLong(2);
+                    size++;
+                }
+            }
+        }
+
+        if (size == 0) {
+            return ScoreColumn.empty();
+        }
+        if (size < scores.length) {
+            scores = Arrays.copyOf(scores, size);
+            epochSeconds = Arrays.copyOf(epochSeconds, size);
+        }
+        return new ScoreColumn(scores, epochSeconds);
+    }
+
+    private void bindScoreRange(PreparedStatement pstmt, String gameName, StatsFilter range)
+            throws SQLException {
+
+        int param = 1;
+        pstmt.setString(param++, gameName);
+        if (range.getFrom() != null) {
+            pstmt.setString(param++, range.getFrom().format(TIMESTAMP_FORMAT));
+        }
+        if (range.getTo() != null) {
+            pstmt.setString(param, range.getTo().format(TIMESTAMP_FORMAT));
+        }
+    }
+
+    /**
+     * Ordena las partidas de un juego por cualquier estadística numérica
+     * guardada (p. ej. "level" o "accuracy"). Con "score" equivale a getTopN.
+     * Cada GameStats trae "score" y la estadística pedida.
+     *
+     * @param gameName nombre del juego
+     * @param statKey clave del mapa de estadísticas
+     * @param n número máximo de resultados
+     * @param descending true = mayor primero, false = menor primero (p. ej. tiempos)
+     * @return partidas ordenadas por la estadística
+     * @throws SQLException si hay error en la base de datos
+     */
+    @Override
+    public List<GameStats> rankByStat(String gameName, String statKey,
+                                      int n, boolean descending)
+            throws SQLException {
+
+        if ("score".equals(statKey) && descending) {
+            return getTopN(gameName, n, 0);
+        }
 
-            String sql = "SELECT name, file_path FROM games ORDER BY name";
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
+        List<GameStats> ranking = new ArrayList<>(n);
+        String sql = "score".equals(statKey)
+                ? "SELECT s.id, s.score, s.date FROM stats s " +
+                "WHERE s.game_id = (SELECT id FROM games WHERE name = ?) " +
+                "ORDER BY s.score, s.date, s.id LIMIT ?"
+                : RANK_BY_STAT_SQL + (descending
+                ? "ORDER BY v.double_value DESC, v.stat_id LIMIT ?"
+                : "ORDER BY v.double_value, v.stat_id LIMIT ?");
+
+        try (Connection conn = connections.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            int param = 1;
+            pstmt.setString(param++, gameName);
+            if (!"score".equals(statKey)) {
+                pstmt.setString(param++, statKey);
+            }
+            pstmt.setInt(param, n);
 
+            try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    games.put(
-                            rs.getString("name"),
-                            rs.getString("file_path")
-                    );
+                    Map<String, Object> extra = new HashMap<>();
+                    if (!"score".equals(statKey)) {
+                        extra.put(statKey, StatValueStore.readValue(rs, 4));
+                    }
+
+                    ranking.add(toGameStats(gameName, new LeaderboardCache.Entry(
+                            rs.getLong("id"),
+                            rs.getDouble("score"),
+                            rs.getString("date")
+                    ), extra));
                 }
             }
         }
 
-        return games;
+        return ranking;
     }
 
     /**
-     * Guarda las estadísticas de un juego en la base de datos.
-     * Crea el juego si no existe.
+     * Agrega una estadística numérica de todas las partidas de un juego.
      *
      * @param gameName nombre del juego
-     * @param stats mapa con estadísticas (debe contener "score")
+     * @param statKey clave del mapa de estadísticas ("score" incluido)
+     * @return número de valores, suma, mínimo, máximo y media
      * @throws SQLException si hay error en la base de datos
      */
-    public void saveStats(String gameName, Map<String, Object> stats)
+    @Override
+    public StatAggregate aggregateStat(String gameName, String statKey)
             throws SQLException {
 
-        try (Connection conn = DriverManager.getConnection(DB_URL)) {
+        boolean isScore = "score".equals(statKey);
 
-            // 1. Obtener o crear el juego
-            int gameId = getOrCreateGame(conn, gameName, "");
+        try (Connection conn = connections.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     isScore ? AGGREGATE_SCORE_SQL : AGGREGATE_STAT_SQL)) {
 
-            // 2. Extraer el score
-            Object scoreObj = stats.get("score");
-            if (scoreObj == null) {
-                throw new SQLException("El mapa de stats debe contener 'score'");
+            pstmt.setString(1, gameName);
+            if (!isScore) {
+                pstmt.setString(2, statKey);
             }
 
-            double score = 0;
-            try {
-                if (scoreObj instanceof Number) {
-                    score = ((Number) scoreObj).doubleValue();
-                } else {
-                    score = Double.parseDouble(scoreObj.toString());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next() || rs.getLong(1) == 0) {
+                    return StatAggregate.empty();
                 }
-            } catch (NumberFormatException e) {
-                throw new SQLException("El score no es un número válido: " + scoreObj);
+
+                return new StatAggregate(
+                        rs.getLong(1),
+                        rs.getDouble(2),
+                        rs.getDouble(3),
+                        rs.getDouble(4),
+                        rs.getDouble(5)
+                );
             }
+        }
+    }
 
-            // 3. Insertar estadísticas
-            String sql = "INSERT INTO stats (game_id, score) VALUES (?, ?)";
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setInt(1, gameId);
-                pstmt.setDouble(2, score);
-                pstmt.executeUpdate();
+    /**
+     * Agrega las puntuaciones de un juego en un rango de fechas.
+     * Los días y horas completos se leen de las tablas de resumen; solo los
+     * trozos parciales de los extremos recorren filas de stats (en días ya
+     * compactados por la retención, esos trozos solo ven el top-N conservado).
+     *
+     * @param gameName nombre del juego
+     * @param from inicio incluido (UTC)
+     * @param to final excluido (UTC)
+     * @return número de partidas, suma, mínimo, máximo y media del rango
+     * @throws SQLException si hay error en la base de datos
+     */
+    @Override
+    public StatAggregate aggregateScores(String gameName, LocalDateTime from, LocalDateTime to)
+            throws SQLException {
 
-                System.out.println("✓ Estadística guardada: " + gameName +
-                        " - Score: " + score);
-            }
+        try (Connection conn = connections.getReadConnection()) {
+            return rollups.aggregate(conn, gameName, from, to);
+        }
+    }
+
+    /**
+     * Obtiene la evolución de las puntuaciones de un juego por hora o por día.
+     * Solo se devuelven los periodos con alguna partida.
+     *
+     * @param gameName nombre del juego
+     * @param period granularidad
+     * @param from inicio incluido (UTC)
+     * @param to final excluido (UTC)
+     * @return un resumen por periodo, en orden cronológico
+     * @throws SQLException si hay error en la base de datos
+     */
+    @Override
+    public List<ScoreBucket> getScoreTrend(String gameName, RollupPeriod period,
+                                           LocalDateTime from, LocalDateTime to)
+            throws SQLException {
 
+        try (Connection conn = connections.getReadConnection()) {
+            return rollups.trend(conn, gameName, period, from, to);
         }
     }
 
     /**
-     * Obtiene los 3 mejores resultados de un juego.
+     * Calcula el puesto de una puntuación en el ranking de un juego
+     * (1 + partidas con score estrictamente mayor).
+     * La primera consulta de cada juego carga sus puntuaciones en memoria;
+     * las siguientes son O(log n).
      *
      * @param gameName nombre del juego
-     * @return lista de GameStats ordenada por score descendente (máximo 3)
+     * @param score puntuación a situar
+     * @return puesto, total de partidas y porcentaje
      * @throws SQLException si hay error en la base de datos
      */
-    public List<GameStats> getTop3(String gameName) throws SQLException {
-        List<GameStats> top3 = new ArrayList<>();
+    @Override
+    public ScoreRank rankOf(String gameName, double score) throws SQLException {
+        return rankIndex.rankOf(gameName, score, this::loadScores);
+    }
 
-        try (Connection conn = DriverManager.getConnection(DB_URL)) {
+    /**
+     * Obtiene la puntuación en un percentil del juego (rango más cercano):
+     * 50 es la mediana, 100 el máximo.
+     *
+     * @param gameName nombre del juego
+     * @param percentile percentil entre 0 y 100
+     * @return puntuación en ese percentil, o NaN si no hay partidas
+     * @throws SQLException si hay error en la base de datos
+     */
+    @Override
+    public double scoreAtPercentile(String gameName, double percentile) throws SQLException {
+        if (percentile < 0 || percentile > 100 || Double.isNaN(percentile)) {
+            throw new IllegalArgumentException("El percentil debe estar entre 0 y 100");
+        }
+        return rankIndex.scoreAtPercentile(gameName, percentile, this::loadScores);
+    }
 
-            // SQL para obtener top 3
-            String sql = "SELECT s.score, s.date " +
-                    "FROM stats s " +
-                    "INNER JOIN games g ON s.game_id = g.id " +
-                    "WHERE g.name = ? " +
-                    "ORDER BY s.score DESC " +
-                    "LIMIT 3";
+    private void loadScores(String gameName, ScoreRankIndex.OrderStatisticTree into)
+            throws SQLException {
 
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = connections.getReadConnection()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(ALL_SCORES_SQL)) {
                 pstmt.setString(1, gameName);
+                pstmt.setFetchSize(HISTORY_FETCH_SIZE);
 
                 try (ResultSet rs = pstmt.executeQuery()) {
                     while (rs.next()) {
-                        double score = rs.getDouble("score");
-                        String dateStr = rs.getString("date");
-
-                        // Crear GameStats
-                        Map<String, Object> statsMap = new HashMap<>();
-                        statsMap.put("score", score);
-
-                        GameStats gameStats = new GameStats(
-                                gameName,
-                                statsMap,
-                                parseTimestamp(dateStr)
-                        );
-
-                        top3.add(gameStats);
+                        into.add(rs.getDouble(1));
                     }
                 }
             }
 
+            // Partidas compactadas: cada intervalo cuenta con su media
+            for (ScoreHistogramBin bin : retention.histogram(conn, gameName, StatsFilter.all())) {
+                into.add(bin.getMean(), bin.getPlays());
+            }
         }
-
-        return top3;
     }
 
     /**
-     * Obtiene todos los top 3 de TODOS los juegos.
-     * Útil para mostrar rankings globales.
+     * Obtiene el mejor score de un juego, incluido lo pendiente del diario.
      *
-     * @return mapa: nombre del juego → lista de top 3
+     * @param gameName nombre del juego
+     * @return el score más alto, o -1 si no hay registros
      * @throws SQLException si hay error en la base de datos
      */
-    public Map<String, List<GameStats>> getTop3AllGames()
-            throws SQLException {
+    @Override
+    public double getHighScore(String gameName) throws SQLException {
+        if (journal == null) {
+            return storedHighScore(gameName);
+        }
 
-        Map<String, List<GameStats>> allTop3 = new HashMap<>();
+        replayLock.readLock().lock();
+        try {
+            double stored = storedHighScore(gameName);
+            Integer gameId = gameIds.get(gameName);
+            double pending = gameId == null ? Double.NaN : journal.highScore(gameId);
+            return Double.isNaN(pending) || (stored != -1 && stored >= pending)
+                    ? stored : pending;
+        } finally {
+            replayLock.readLock().unlock();
+        }
+    }
 
-        try (Connection conn = DriverManager.getConnection(DB_URL)) {
+    private double storedHighScore(String gameName) throws SQLException {
+        try (Connection conn = connections.getReadConnection()) {
 
-            // Primero obtener todos los juegos
-            String gamesSql = "SELECT DISTINCT name FROM games ORDER BY name";
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(gamesSql)) {
+            try (PreparedStatement pstmt = conn.prepareStatement(HIGH_SCORE_SQL)) {
+                pstmt.setString(1, gameName);
 
-                while (rs.next()) {
-                    String gameName = rs.getString("name");
-                    List<GameStats> top3 = getTop3(gameName);
-                    allTop3.put(gameName, top3);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    // MAX() de un juego sin partidas es NULL, no una fila vacía
+                    if (rs.next()) {
+                        double maxScore = rs.getDouble("max_score");
+                        if (!rs.wasNull()) {
+                            return maxScore;
+                        }
+                    }
                 }
             }
         }
 
-        return allTop3;
+        return -1;
     }
 
     /**
-     * Obtiene todas las estadísticas de un juego (sin límite).
+     * Elimina todas las estadísticas de un juego.
      *
      * @param gameName nombre del juego
-     * @return lista de todas las estadísticas del juego
+     * @return número de registros eliminados
      * @throws SQLException si hay error en la base de datos
      */
-    public List<GameStats> getAllStats(String gameName)
-            throws SQLException {
+    @Override
+    public int deleteGameStats(String gameName) throws SQLException {
+        // Lo pendiente del diario también se borra
+        if (journal != null) {
+            drainJournal();
+        }
+
+        try (Connection conn = connections.getWriteConnection()) {
+            conn.setAutoCommit(false);
+
+            String valuesSql = "DELETE FROM stat_values " +
+                    "WHERE game_id = (SELECT id FROM games WHERE name = ?)";
+            try (PreparedStatement pstmt = conn.prepareStatement(valuesSql)) {
+                pstmt.setString(1, gameName);
+                pstmt.executeUpdate();
+            }
 
-        List<GameStats> allStats = new ArrayList<>();
+            String histogramSql = "DELETE FROM stats_histogram " +
+                    "WHERE game_id = (SELECT id FROM games WHERE name = ?)";
+            try (PreparedStatement pstmt = conn.prepareStatement(histogramSql)) {
+                pstmt.setString(1, gameName);
+                pstmt.executeUpdate();
+            }
 
-        try (Connection conn = DriverManager.getConnection(DB_URL)) {
+            for (RollupPeriod period : RollupPeriod.values()) {
+                String rollupSql = "DELETE FROM " + period.getTable() + " " +
+                        "WHERE game_id = (SELECT id FROM games WHERE name = ?)";
+                try (PreparedStatement pstmt = conn.prepareStatement(rollupSql)) {
+                    pstmt.setString(1, gameName);
+                    pstmt.executeUpdate();
+                }
+            }
 
-            String sql = "SELECT s.score, s.date " +
-                    "FROM stats s " +
-                    "INNER JOIN games g ON s.game_id = g.id " +
-                    "WHERE g.name = ? " +
-                    "ORDER BY s.date DESC";
+            String sql = "DELETE FROM stats " +
+                    "WHERE game_id = (SELECT id FROM games WHERE name = ?)";
 
             try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
                 pstmt.setString(1, gameName);
+                int deleted = pstmt.executeUpdate();
+                conn.commit();
+                conn.setAutoCommit(true);
+                leaderboardCache.invalidate(gameName);
+                rankIndex.invalidate(gameName);
 
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    while (rs.next()) {
-                        double score = rs.getDouble("score");
-                        String dateStr = rs.getString("date");
+                System.out.println("✓ Eliminadas " + deleted +
+                        " estadísticas de " + gameName);
 
-                        Map<String, Object> statsMap = new HashMap<>();
-                        statsMap.put("score", score);
+                return deleted;
+            }
+        }
+    }
 
-                        GameStats gameStats = new GameStats(
-                                gameName,
-                                statsMap,
-                                parseTimestamp(dateStr)
-                        );
+    /**
+     * Compacta las partidas más antiguas que la política en histogramas por
+     * juego y día, conservando siempre los mejores resultados de cada juego.
+     * Trabaja en transacciones pequeñas (un lote por transacción), de modo
+     * que las escrituras de partidas nuevas no esperan a que termine.
+     * Las tablas de resumen por hora y día no cambian. Si se interrumpe el
+     * hilo, termina al confirmar el lote en curso.
+     *
+     * @param policy política de retención
+     * @return número de filas compactadas
+     * @throws SQLException si hay error en la base de datos; los lotes ya
+     *                      confirmados quedan compactados
+     */
+    @Override
+    public int compactOldStats(RetentionPolicy policy) throws SQLException {
+        LocalDateTime cutoff = LocalDateTime.now(ZoneOffset.UTC)
+                .minus(policy.getMaxAge())
+                .truncatedTo(ChronoUnit.DAYS);
+
+        Map<Integer, String> games = new LinkedHashMap<>();
+        try (Connection conn = connections.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id, name FROM games ORDER BY id")) {
+
+            while (rs.next()) {
+                games.put(rs.getInt("id"), rs.getString("name"));
+            }
+        }
 
-                        allStats.add(gameStats);
-                    }
+        int total = 0;
+        boolean interrupted = false;
+        for (Map.Entry<Integer, String> game : games.entrySet()) {
+            int compacted = 0;
+            int batch;
+            do {
+                try (Connection conn = connections.getWriteConnection()) {
+                    conn.setAutoCommit(false);
+                    batch = retention.compactBatch(conn, game.getKey(), cutoff, policy);
+                    conn.commit();
+                    conn.setAutoCommit(true);
                 }
+                compacted += batch;
+                // RetentionJob.close interrumpe el hilo para que pare entre lotes
+                interrupted = Thread.currentThread().isInterrupted();
+            } while (batch == policy.getBatchSize() && !interrupted);
+
+            if (compacted > 0) {
+                // Las filas compactadas pasan a contar por la media de su intervalo
+                leaderboardCache.invalidate(game.getValue());
+                rankIndex.invalidate(game.getValue());
+                System.out.println("✓ Compactadas " + compacted +
+                        " estadísticas de " + game.getValue());
+            }
+            total += compacted;
+            if (interrupted) {
+                break;
             }
         }
 
-        return allStats;
+        return total;
     }
 
     /**
-     * Obtiene la lista de todos los juegos registrados.
+     * Exporta el catálogo de juegos y todas las partidas de stats.
+     * Las filas se leen y se escriben de una en una, así que la memoria no
+     * depende del tamaño del historial. Las estadísticas tipadas y los
+     * histogramas de partidas compactadas no se exportan. Las partidas con
+     * la fecha nula o ilegible se omiten y se cuentan en el informe.
      *
-     * @return lista de nombres de juegos
+     * @param out destino (no se cierra)
+     * @param format formato del archivo
+     * @return partidas exportadas y filas por segundo
      * @throws SQLException si hay error en la base de datos
+     * @throws IOException si falla la escritura
      */
-    public List<String> getAllGames() throws SQLException {
-        List<String> games = new ArrayList<>();
+    @Override
+    public TransferReport exportStats(OutputStream out, TransferFormat format)
+            throws SQLException, IOException {
 
-        try (Connection conn = DriverManager.getConnection(DB_URL)) {
+        long start = System.nanoTime();
+        StatsTransfer.Sink sink = StatsTransfer.writer(out, format);
+        int games = 0;
+        long rows = 0;
+        long skipped = 0;
 
-            String sql = "SELECT DISTINCT name FROM games ORDER BY name";
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
+        try (Connection conn = connections.getReadConnection();
+             Statement stmt = conn.createStatement()) {
 
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT name, file_path FROM games ORDER BY id")) {
                 while (rs.next()) {
-                    games.add(rs.getString("name"));
+                    sink.game(rs.getString("name"), rs.getString("file_path"));
+                    games++;
+                }
+            }
+
+            stmt.setFetchSize(HISTORY_FETCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery(EXPORT_SQL)) {
+                while (rs.next()) {
+                    if (sink.stat(rs.getString(1), rs.getDouble(2), rs.getString(3))) {
+                        rows++;
+                    } else {
+                        skipped++;
+                    }
                 }
             }
         }
 
-        return games;
+        sink.finish();
+
+        TransferReport report = new TransferReport(games, rows, skipped,
+                System.nanoTime() - start);
+        if (skipped > 0) {
+            System.err.println("✗ Exportación: " + skipped +
+                    " partidas omitidas por fecha no válida");
+        }
+        System.out.println("✓ Exportadas " + report);
+        return report;
     }
 
     /**
-     * Obtiene estadísticas de un juego en un rango de fechas.
+     * Importa juegos y partidas exportados con {@link #exportStats}, por
+     * ejemplo desde otra consola. Los juegos se emparejan por nombre: los
+     * que ya existen conservan su ruta y los nuevos se crean. Las partidas
+     * se añaden (no se buscan duplicados) en transacciones de
+     * {@value #IMPORT_CHUNK_SIZE} filas con INSERT por lotes, junto con sus
+     * resúmenes por hora y día.
      *
-     * @param gameName nombre del juego
-     * @param startDate fecha inicio (formato: YYYY-MM-DD)
-     * @param endDate fecha fin (formato: YYYY-MM-DD)
-     * @return lista de estadísticas en el rango
+     * @param in origen (no se cierra)
+     * @param format formato del archivo
+     * @return partidas importadas y filas por segundo
      * @throws SQLException si hay error en la base de datos
+     * @throws IOException si el archivo está mal formado o falla la lectura;
+     *                     los bloques ya confirmados quedan importados
      */
-    public List<GameStats> getStatsByDateRange(String gameName,
-                                               String startDate,
-                                               String endDate)
-            throws SQLException {
-
-        List<GameStats> stats = new ArrayList<>();
+    @Override
+    public TransferReport importStats(InputStream in, TransferFormat format)
+            throws SQLException, IOException {
+
+        long start = System.nanoTime();
+        StatsTransfer.Source source = StatsTransfer.reader(in, format);
+        Map<String, Integer> importIds = new HashMap<>();
+        Set<String> imported = new HashSet<>();
+        List<StatsTransfer.Row> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        int games = 0;
+        long rows = 0;
 
-        try (Connection conn = DriverManager.getConnection(DB_URL)) {
+        try {
+            StatsTransfer.Row row;
+            do {
+                row = source.next();
+                if (row != null) {
+                    chunk.add(row);
+                    imported.add(row.gameName);
+                    if (row.isGame()) {
+                        games++;
+                    } else {
+                        rows++;
+                    }
+                }
 
-            String sql = "SELECT s.score, s.date " +
-                    "FROM stats s " +
-                    "INNER JOIN games g ON s.game_id = g.id " +
-                    "WHERE g.name = ? " +
-                    "AND DATE(s.date) BETWEEN ? AND ? " +
-                    "ORDER BY s.date DESC";
+                // Cada bloque suelta la conexión de escritura: las partidas
+                // nuevas no esperan a que termine toda la importación
+                if (chunk.size() == IMPORT_CHUNK_SIZE || (row == null && !chunk.isEmpty())) {
+                    importChunk(chunk, importIds);
+                    chunk.clear();
+                }
+            } while (row != null);
+        } finally {
+            for (String gameName : imported) {
+                leaderboardCache.invalidate(gameName);
+                rankIndex.invalidate(gameName);
+            }
+        }
 
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setString(1, gameName);
-                pstmt.setString(2, startDate);
-                pstmt.setString(3, endDate);
+        TransferReport report = new TransferReport(games, rows, System.nanoTime() - start);
+        System.out.println("✓ Importadas " + report);
+        return report;
+    }
 
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    while (rs.next()) {
-                        double score = rs.getDouble("score");
-                        String dateStr = rs.getString("date");
+    private void importChunk(List<StatsTransfer.Row> chunk, Map<String, Integer> importIds)
+            throws SQLException {
 
-                        Map<String, Object> statsMap = new HashMap<>();
-                        statsMap.put("score", score);
+        try (Connection conn = connections.getWriteConnection()) {
+            conn.setAutoCommit(false);
 
-                        GameStats gameStats = new GameStats(
-                                gameName,
-                                statsMap,
-                                parseTimestamp(dateStr)
-                        );
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO stats (game_id, score, date) VALUES (?, ?, ?)")) {
 
-                        stats.add(gameStats);
+                StatsRollups.Batch rollupBatch = new StatsRollups.Batch();
+                for (StatsTransfer.Row row : chunk) {
+                    Integer gameId = importIds.get(row.gameName);
+                    if (gameId == null) {
+                        gameId = getOrCreateGame(conn, row.gameName,
+                                row.isGame() ? row.filePath : "");
+                        importIds.put(row.gameName, gameId);
+                    }
+                    if (row.isGame()) {
+                        continue;
                     }
+
+                    pstmt.setInt(1, gameId);
+                    pstmt.setDouble(2, row.score);
+                    pstmt.setString(3, row.date);
+                    pstmt.addBatch();
+                    rollupBatch.add(gameId, row.date, row.score);
                 }
+
+                pstmt.executeBatch();
+                rollupBatch.write(conn);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                // Los juegos creados en este bloque se han deshecho
+                importIds.clear();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
         }
-
-        return stats;
     }
 
     /**
-     * Obtiene el mejor score de un juego.
-     *
-     * @param gameName nombre del juego
-     * @return el score más alto, o -1 si no hay registros
-     * @throws SQLException si hay error en la base de datos
+     * Cierra todas las conexiones con la base de datos.
      */
-    public double getHighScore(String gameName) throws SQLException {
-        try (Connection conn = DriverManager.getConnection(DB_URL)) {
+    @Override
+    public void close() {
+        if (journal != null) {
+            closeJournal();
+        }
+        connections.close();
+    }
 
-            String sql = "SELECT MAX(s.score) as max_score " +
-                    "FROM stats s " +
-                    "INNER JOIN games g ON s.game_id = g.id " +
-                    "WHERE g.name = ?";
+    private void closeJournal() {
+        replaying = false;
+        journal.stop();
+        if (journalReplayer != null) {
+            try {
+                journalReplayer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
 
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setString(1, gameName);
+        try {
+            drainJournal();
+        } catch (SQLException e) {
+            System.err.println("✗ Diario sin volcar (se recupera al arrancar): " +
+                    e.getMessage());
+        }
 
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    if (rs.next()) {
-                        return rs.getDouble("max_score");
-                    }
-                }
-            }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("✗ Error cerrando el diario de puntuaciones: " +
+                    e.getMessage());
         }
+    }
 
-        return -1;
+    /**
+     * Recibe cada fila del historial sin objetos intermedios.
+     */
+    @FunctionalInterface
+    private interface HistoryRowHandler {
+        /**
+         * @param extra resto de claves de la fila, o null si no se pidieron
+         */
+        void accept(long id, double score, String date, Map<String, Object> extra);
     }
 
     /**
-     * Elimina todas las estadísticas de un juego.
-     *
-     * @param gameName nombre del juego
-     * @return número de registros eliminados
-     * @throws SQLException si hay error en la base de datos
+     * Consulta de {@link #readScores}: recorre idx_stats_game_history hacia
+     * atrás (orden cronológico) y SQLite convierte la fecha a segundos epoch,
+     * así que cada fila son dos primitivos y ningún String.
      */
-    public int deleteGameStats(String gameName) throws SQLException {
-        try (Connection conn = DriverManager.getConnection(DB_URL)) {
+    static String readScoresSql(boolean hasFrom, boolean hasTo) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT s.score, unixepoch(s.date) " +
+                        "FROM stats s " +
+                        "WHERE s.game_id = (SELECT id FROM games WHERE name = ?) ");
+
+        if (hasFrom) {
+            sql.append("AND s.date >= ? ");
+        }
+        if (hasTo) {
+            sql.append("AND s.date < ? ");
+        }
+        sql.append("ORDER BY s.date, s.id");
 
-            String sql = "DELETE FROM stats " +
-                    "WHERE game_id = (SELECT id FROM games WHERE name = ?)";
+        return sql.toString();
+    }
 
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setString(1, gameName);
-                int deleted = pstmt.executeUpdate();
+    /**
+     * Construye la consulta del historial. Ordena por (date, id) descendente,
+     * el orden de idx_stats_game_history, para poder paginar por clave.
+     */
+    static String historySql(boolean hasFrom, boolean hasTo,
+                             boolean hasCursor, boolean hasLimit) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT s.id, s.score, s.date " +
+                        "FROM stats s " +
+                        "INNER JOIN games g ON s.game_id = g.id " +
+                        "WHERE g.name = ? ");
+
+        if (hasFrom) {
+            sql.append("AND s.date >= ? ");
+        }
+        if (hasTo) {
+            sql.append("AND s.date < ? ");
+        }
+        if (hasCursor) {
+            sql.append("AND (s.date < ? OR (s.date = ? AND s.id < ?)) ");
+        }
+        sql.append("ORDER BY s.date DESC, s.id DESC");
+        if (hasLimit) {
+            sql.append(" LIMIT ?");
+        }
 
-                System.out.println("✓ Eliminadas " + deleted +
-                        " estadísticas de " + gameName);
+        return sql.toString();
+    }
 
-                return deleted;
+    private int queryHistory(String gameName,
+                             StatsFilter filter,
+                             StatsCursor after,
+                             int limit,
+                             HistoryRowHandler handler)
+            throws SQLException {
+
+        String sql = historySql(
+                filter.getFrom() != null,
+                filter.getTo() != null,
+                after != null,
+                limit > 0
+        );
+
+        try (Connection conn = connections.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             PreparedStatement loadStmt = filter.isIncludeAllStats()
+                     ? statValues.prepareLoad(conn) : null) {
+
+            int param = 1;
+            pstmt.setString(param++, gameName);
+            if (filter.getFrom() != null) {
+                pstmt.setString(param++, filter.getFrom().format(TIMESTAMP_FORMAT));
+            }
+            if (filter.getTo() != null) {
+                pstmt.setString(param++, filter.getTo().format(TIMESTAMP_FORMAT));
             }
+            if (after != null) {
+                pstmt.setString(param++, after.getDate());
+                pstmt.setString(param++, after.getDate());
+                pstmt.setLong(param++, after.getId());
+            }
+            if (limit > 0) {
+                pstmt.setInt(param, limit);
+            }
+            pstmt.setFetchSize(HISTORY_FETCH_SIZE);
+
+            int count = 0;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    long id = rs.getLong("id");
+
+                    Map<String, Object> extra = null;
+                    if (loadStmt != null) {
+                        extra = new HashMap<>();
+                        statValues.loadValues(loadStmt, id, extra);
+                    }
+
+                    handler.accept(id, rs.getDouble("score"), rs.getString("date"), extra);
+                    count++;
+                }
+            }
+
+            return count;
         }
     }
 
@@ -411,22 +1844,15 @@ public class StatsRepository {
 
         // Si no existe, crear
         String insertSql = "INSERT INTO games (name, file_path) VALUES (?, ?)";
-        try (PreparedStatement pstmt = conn.prepareStatement(
-                insertSql,
-                Statement.RETURN_GENERATED_KEYS)
-        ) {
-
+        try (PreparedStatement pstmt = conn.prepareStatement(insertSql)) {
             pstmt.setString(1, gameName);
             pstmt.setString(2, filePath);
-            pstmt.executeUpdate();
-
-            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    int gameId = generatedKeys.getInt(1);
-                    System.out.println("✓ Juego creado: " + gameName +
-                            " (ID: " + gameId + ")");
-                    return gameId;
-                }
+
+            if (pstmt.executeUpdate() == 1) {
+                int gameId = (int) lastInsertId(conn);
+                System.out.println("✓ Juego creado: " + gameName +
+                        " (ID: " + gameId + ")");
+                return gameId;
             }
         }
 
@@ -434,22 +1860,101 @@ public class StatsRepository {
     }
 
     /**
-     * Convierte una cadena de fecha a LocalDateTime.
-     * Formato esperado: YYYY-MM-DD HH:MM:SS
+     * Obtiene el ID de la última fila insertada en esta conexión.
+     * (sqlite-jdbc 3.43 no implementa getGeneratedKeys.)
+     *
+     * @param conn conexión donde se hizo el INSERT
+     * @return rowid insertado
+     * @throws SQLException si hay error en la base de datos
+     */
+    private long lastInsertId(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT last_insert_rowid()")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Extrae el score numérico de un mapa de estadísticas.
+     *
+     * @param stats mapa de estadísticas
+     * @return score
+     * @throws SQLException si no hay score o no es un número
+     */
+    private double extractScore(Map<String, Object> stats) throws SQLException {
+        Object scoreObj = stats == null ? null : stats.get("score");
+        if (scoreObj == null) {
+            throw new SQLException("El mapa de stats debe contener 'score'");
+        }
+
+        try {
+            if (scoreObj instanceof Number) {
+                return ((Number) scoreObj).doubleValue();
+            }
+            return Double.parseDouble(scoreObj.toString());
+        } catch (NumberFormatException e) {
+            throw new SQLException("El score no es un número válido: " + scoreObj);
+        }
+    }
+
+    /**
+     * Convierte un timestamp local al formato UTC de CURRENT_TIMESTAMP.
+     *
+     * @param timestamp fecha local (null = ahora)
+     * @return cadena YYYY-MM-DD HH:MM:SS en UTC
+     */
+    private String formatTimestamp(LocalDateTime timestamp) {
+        LocalDateTime utc = timestamp == null
+                ? LocalDateTime.now(ZoneOffset.UTC)
+                : timestamp.atZone(ZoneId.systemDefault())
+                        .withZoneSameInstant(ZoneOffset.UTC)
+                        .toLocalDateTime();
+
+        return utc.format(TIMESTAMP_FORMAT);
+    }
+
+    /**
+     * @param timestamp fecha local de la partida, o null para ahora
+     * @return milisegundos epoch para el diario
+     */
+    private static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp == null
+                ? System.currentTimeMillis()
+                : timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * @param epochMillis milisegundos epoch
+     * @return fecha UTC con la precisión de stats.date (segundos)
+     */
+    private static LocalDateTime toUtc(long epochMillis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000L), 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Convierte una fecha de stats.date (UTC) a LocalDateTime.
+     * Formato esperado: YYYY-MM-DD HH:MM:SS; también acepta ISO con 'T' o
+     * con fracciones de segundo.
      *
      * @param dateStr cadena de fecha
-     * @return LocalDateTime
+     * @return LocalDateTime, o null si la fecha no se puede leer
      */
     private LocalDateTime parseTimestamp(String dateStr) {
+        if (dateStr == null) {
+            return null;
+        }
+
         try {
-            return LocalDateTime.parse(
-                    dateStr,
-                    java.time.format.DateTimeFormatter
-                            .ofPattern("yyyy-MM-dd HH:mm:ss")
-            );
-        } catch (Exception e) {
-            System.err.println("Error parseando fecha: " + dateStr);
-            return LocalDateTime.now();
+            return LocalDateTime.ofEpochSecond(StatsDates.parse(dateStr), 0, ZoneOffset.UTC);
+        } catch (DateTimeException e) {
+            try {
+                return LocalDateTime.parse(dateStr.replace(' ', 'T'));
+            } catch (DateTimeException iso) {
+                // Mejor sin fecha que con una inventada
+                System.err.println("Error parseando fecha: " + dateStr);
+                return null;
+            }
         }
     }
 }
\ No newline at end of file
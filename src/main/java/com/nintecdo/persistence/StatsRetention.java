@@ -0,0 +1,169 @@
+package com.nintecdo.persistence;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compactación de filas antiguas de stats en histogramas por juego y día
+ * (tabla stats_histogram).
+ *
+ * Las tablas de resumen por hora y día no se tocan: siguen contando todas
+ * las partidas, compactadas o no.
+ */
+class StatsRetention {
+    private static final DateTimeFormatter BUCKET_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // Candidatas: más antiguas que el corte y fuera del top-N del juego.
+    // La subconsulta del top-N sale de idx_stats_game_score
+    static final String CANDIDATES_SQL = "SELECT s.id, s.score, s.date " +
+            "FROM stats s " +
+            "WHERE s.game_id = ? AND s.date < ? " +
+            "AND s.id NOT IN (" +
+            "SELECT t.id FROM stats t WHERE t.game_id = s.game_id " +
+            "ORDER BY t.score DESC, t.date, t.id LIMIT ?) " +
+            "ORDER BY s.date, s.id " +
+            "LIMIT ?";
+
+    private static final String UPSERT_BIN_SQL = "INSERT INTO stats_histogram " +
+            "(game_id, bucket, bin_start, bin_width, plays, score_sum) " +
+            "VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT(game_id, bucket, bin_start, bin_width) DO UPDATE SET " +
+            "plays = plays + excluded.plays, " +
+            "score_sum = score_sum + excluded.score_sum";
+
+    /**
+     * Compacta un lote de filas de un juego dentro de la transacción en curso.
+     *
+     * @param conn conexión de escritura (transacción abierta)
+     * @param gameId id del juego
+     * @param cutoff se compactan las filas con fecha anterior (UTC)
+     * @param policy política de retención
+     * @return filas compactadas (0 = no queda nada por compactar)
+     * @throws SQLException si hay error en la base de datos
+     */
+    int compactBatch(Connection conn, int gameId, LocalDateTime cutoff, RetentionPolicy policy)
+            throws SQLException {
+
+        List<Long> ids = new ArrayList<>(policy.getBatchSize());
+        // bucket|bin_start → {plays, score_sum}
+        Map<String, double[]> bins = new HashMap<>();
+
+        try (PreparedStatement pstmt = conn.prepareStatement(CANDIDATES_SQL)) {
+            pstmt.setInt(1, gameId);
+            pstmt.setString(2, cutoff.format(BUCKET_FORMAT));
+            pstmt.setInt(3, policy.getKeepTopN());
+            pstmt.setInt(4, policy.getBatchSize());
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                    double score = rs.getDouble(2);
+                    double binStart = Math.floor(score / policy.getBinWidth()) * policy.getBinWidth();
+                    String bucket = rs.getString(3).substring(0, 10) + " 00:00:00";
+
+                    double[] bin = bins.computeIfAbsent(bucket + "|" + binStart, k -> new double[2]);
+                    bin[0]++;
+                    bin[1] += score;
+                }
+            }
+        }
+
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        try (PreparedStatement pstmt = conn.prepareStatement(UPSERT_BIN_SQL)) {
+            for (Map.Entry<String, double[]> bin : bins.entrySet()) {
+                int separator = bin.getKey().indexOf('|');
+                pstmt.setInt(1, gameId);
+                pstmt.setString(2, bin.getKey().substring(0, separator));
+                pstmt.setDouble(3, Double.parseDouble(bin.getKey().substring(separator + 1)));
+                pstmt.setDouble(4, policy.getBinWidth());
+                pstmt.setLong(5, (long) bin.getValue()[0]);
+                pstmt.setDouble(6, bin.getValue()[1]);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+
+        try (PreparedStatement values = conn.prepareStatement(
+                "DELETE FROM stat_values WHERE stat_id = ?");
+             PreparedStatement stats = conn.prepareStatement(
+                     "DELETE FROM stats WHERE id = ?")) {
+
+            for (long id : ids) {
+                values.setLong(1, id);
+                values.addBatch();
+                stats.setLong(1, id);
+                stats.addBatch();
+            }
+            values.executeBatch();
+            stats.executeBatch();
+        }
+
+        return ids.size();
+    }
+
+    /**
+     * Obtiene los histogramas de los días que se solapan con el filtro.
+     *
+     * @param conn conexión de lectura
+     * @param gameName nombre del juego
+     * @param filter rango de fechas
+     * @return intervalos ordenados por día y score
+     * @throws SQLException si hay error en la base de datos
+     */
+    List<ScoreHistogramBin> histogram(Connection conn, String gameName, StatsFilter filter)
+            throws SQLException {
+
+        StringBuilder sql = new StringBuilder(
+                "SELECT bucket, bin_start, bin_width, plays, score_sum " +
+                "FROM stats_histogram " +
+                "WHERE game_id = (SELECT id FROM games WHERE name = ?)");
+        if (filter.getFrom() != null) {
+            sql.append(" AND bucket >= ?");
+        }
+        if (filter.getTo() != null) {
+            sql.append(" AND bucket < ?");
+        }
+        sql.append(" ORDER BY bucket, bin_start");
+
+        List<ScoreHistogramBin> bins = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            int param = 1;
+            pstmt.setString(param++, gameName);
+            if (filter.getFrom() != null) {
+                // El día que contiene el inicio también se solapa
+                pstmt.setString(param++, filter.getFrom()
+                        .truncatedTo(ChronoUnit.DAYS).format(BUCKET_FORMAT));
+            }
+            if (filter.getTo() != null) {
+                pstmt.setString(param, filter.getTo().format(BUCKET_FORMAT));
+            }
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    bins.add(new ScoreHistogramBin(
+                            LocalDateTime.parse(rs.getString(1), BUCKET_FORMAT),
+                            rs.getDouble(2),
+                            rs.getDouble(3),
+                            rs.getLong(4),
+                            rs.getDouble(5)
+                    ));
+                }
+            }
+        }
+
+        return bins;
+    }
+}
@@ -0,0 +1,233 @@
+package com.nintecdo.persistence;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tablas de resumen por juego y por hora / día (partidas, suma, mínimo,
+ * máximo y suma de cuadrados de score).
+ *
+ * StatsRepository las actualiza en la misma transacción que cada INSERT en
+ * stats. Las consultas de rango se responden con los días y horas completos
+ * del rango y solo leen filas de stats para los trozos parciales de los
+ * extremos.
+ */
+class StatsRollups {
+    private static final DateTimeFormatter BUCKET_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String GAME_ID = "(SELECT id FROM games WHERE name = ?)";
+
+    static final String RAW_SQL = "SELECT COUNT(s.score), SUM(s.score), " +
+            "MIN(s.score), MAX(s.score), SUM(s.score * s.score) " +
+            "FROM stats s " +
+            "WHERE s.game_id = " + GAME_ID + " " +
+            "AND s.date >= ? AND s.date < ?";
+
+    /**
+     * Acumula en memoria los resúmenes de un lote antes de escribirlos,
+     * para hacer un solo UPSERT por (juego, periodo).
+     */
+    static class Batch {
+        private final Map<RollupPeriod, Map<String, StatAggregate>> buckets = new HashMap<>();
+
+        /**
+         * @param gameId id del juego
+         * @param date fecha de la fila en formato de stats.date
+         * @param score puntuación
+         */
+        void add(int gameId, String date, double score) {
+            if (date == null || date.length() < 13) {
+                return;
+            }
+
+            StatAggregate single = new StatAggregate(1, score, score, score, score * score);
+            add(RollupPeriod.HOUR, gameId, date.substring(0, 13) + ":00:00", single);
+            add(RollupPeriod.DAY, gameId, date.substring(0, 10) + " 00:00:00", single);
+        }
+
+        private void add(RollupPeriod period, int gameId, String bucket, StatAggregate value) {
+            buckets.computeIfAbsent(period, p -> new HashMap<>())
+                    .merge(gameId + "|" + bucket, value, StatAggregate::merge);
+        }
+
+        /**
+         * Escribe el lote dentro de la transacción en curso.
+         *
+         * @param conn conexión de escritura
+         * @throws SQLException si hay error en la base de datos
+         */
+        void write(Connection conn) throws SQLException {
+            for (Map.Entry<RollupPeriod, Map<String, StatAggregate>> period : buckets.entrySet()) {
+                String sql = "INSERT INTO " + period.getKey().getTable() +
+                        " (game_id, bucket, plays, score_sum, score_min, score_max, score_sum_sq) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+                        "ON CONFLICT(game_id, bucket) DO UPDATE SET " +
+                        "plays = plays + excluded.plays, " +
+                        "score_sum = score_sum + excluded.score_sum, " +
+                        "score_min = MIN(score_min, excluded.score_min), " +
+                        "score_max = MAX(score_max, excluded.score_max), " +
+                        "score_sum_sq = score_sum_sq + excluded.score_sum_sq";
+
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (Map.Entry<String, StatAggregate> bucket : period.getValue().entrySet()) {
+                        int separator = bucket.getKey().indexOf('|');
+                        StatAggregate value = bucket.getValue();
+
+                        pstmt.setInt(1, Integer.parseInt(bucket.getKey().substring(0, separator)));
+                        pstmt.setString(2, bucket.getKey().substring(separator + 1));
+                        pstmt.setLong(3, value.getCount());
+                        pstmt.setDouble(4, value.getSum());
+                        pstmt.setDouble(5, value.getMin());
+                        pstmt.setDouble(6, value.getMax());
+                        pstmt.setDouble(7, value.getSumOfSquares());
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                }
+            }
+        }
+    }
+
+    /**
+     * Agrega las puntuaciones de un juego en [from, to).
+     *
+     * @param conn conexión de lectura
+     * @param gameName nombre del juego
+     * @param from inicio incluido (UTC)
+     * @param to final excluido (UTC)
+     * @return agregado exacto del rango
+     * @throws SQLException si hay error en la base de datos
+     */
+    StatAggregate aggregate(Connection conn, String gameName,
+                            LocalDateTime from, LocalDateTime to)
+            throws SQLException {
+
+        if (!from.isBefore(to)) {
+            return StatAggregate.empty();
+        }
+
+        LocalDateTime firstDay = ceil(from, ChronoUnit.DAYS);
+        LocalDateTime lastDay = to.truncatedTo(ChronoUnit.DAYS);
+
+        if (!firstDay.isBefore(lastDay)) {
+            // Sin días completos: resolver todo a nivel de hora
+            return aggregateHours(conn, gameName, from, to);
+        }
+
+        return aggregateHours(conn, gameName, from, firstDay)
+                .merge(sumBuckets(conn, RollupPeriod.DAY, gameName, firstDay, lastDay))
+                .merge(aggregateHours(conn, gameName, lastDay, to));
+    }
+
+    /**
+     * Obtiene los resúmenes de cada hora o día con partidas en [from, to).
+     *
+     * @return buckets en orden cronológico
+     */
+    List<ScoreBucket> trend(Connection conn, String gameName, RollupPeriod period,
+                            LocalDateTime from, LocalDateTime to)
+            throws SQLException {
+
+        String sql = "SELECT bucket, plays, score_sum, score_min, score_max, score_sum_sq " +
+                "FROM " + period.getTable() + " " +
+                "WHERE game_id = " + GAME_ID + " AND bucket >= ? AND bucket < ? " +
+                "ORDER BY bucket";
+
+        List<ScoreBucket> buckets = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, gameName);
+            pstmt.setString(2, from.format(BUCKET_FORMAT));
+            pstmt.setString(3, to.format(BUCKET_FORMAT));
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    buckets.add(new ScoreBucket(
+                            LocalDateTime.parse(rs.getString(1), BUCKET_FORMAT),
+                            period,
+                            new StatAggregate(rs.getLong(2), rs.getDouble(3),
+                                    rs.getDouble(4), rs.getDouble(5), rs.getDouble(6))
+                    ));
+                }
+            }
+        }
+
+        return buckets;
+    }
+
+    private StatAggregate aggregateHours(Connection conn, String gameName,
+                                         LocalDateTime from, LocalDateTime to)
+            throws SQLException {
+
+        if (!from.isBefore(to)) {
+            return StatAggregate.empty();
+        }
+
+        LocalDateTime firstHour = ceil(from, ChronoUnit.HOURS);
+        LocalDateTime lastHour = to.truncatedTo(ChronoUnit.HOURS);
+
+        if (!firstHour.isBefore(lastHour)) {
+            return sumRaw(conn, gameName, from, to);
+        }
+
+        return sumRaw(conn, gameName, from, firstHour)
+                .merge(sumBuckets(conn, RollupPeriod.HOUR, gameName, firstHour, lastHour))
+                .merge(sumRaw(conn, gameName, lastHour, to));
+    }
+
+    private StatAggregate sumBuckets(Connection conn, RollupPeriod period, String gameName,
+                                     LocalDateTime from, LocalDateTime to)
+            throws SQLException {
+
+        String sql = "SELECT SUM(plays), SUM(score_sum), MIN(score_min), " +
+                "MAX(score_max), SUM(score_sum_sq) " +
+                "FROM " + period.getTable() + " " +
+                "WHERE game_id = " + GAME_ID + " AND bucket >= ? AND bucket < ?";
+
+        return queryAggregate(conn, sql, gameName, from, to);
+    }
+
+    private StatAggregate sumRaw(Connection conn, String gameName,
+                                 LocalDateTime from, LocalDateTime to)
+            throws SQLException {
+
+        if (!from.isBefore(to)) {
+            return StatAggregate.empty();
+        }
+        return queryAggregate(conn, RAW_SQL, gameName, from, to);
+    }
+
+    private StatAggregate queryAggregate(Connection conn, String sql, String gameName,
+                                         LocalDateTime from, LocalDateTime to)
+            throws SQLException {
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, gameName);
+            pstmt.setString(2, from.format(BUCKET_FORMAT));
+            pstmt.setString(3, to.format(BUCKET_FORMAT));
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next() || rs.getLong(1) == 0) {
+                    return StatAggregate.empty();
+                }
+
+                return new StatAggregate(rs.getLong(1), rs.getDouble(2),
+                        rs.getDouble(3), rs.getDouble(4), rs.getDouble(5));
+            }
+        }
+    }
+
+    private static LocalDateTime ceil(LocalDateTime time, ChronoUnit unit) {
+        LocalDateTime truncated = time.truncatedTo(unit);
+        return truncated.equals(time) ? time : truncated.plus(1, unit);
+    }
+}
@@ -0,0 +1,197 @@
+package com.nintecdo.persistence;
+
+import com.nintecdo.core.GameStats;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Almacén de juegos y estadísticas de la plataforma.
+ *
+ * {@link StatsRepository} lo implementa sobre SQLite y
+ * {@link InMemoryStatsStore} en memoria; {@link StatsEngine} elige uno al
+ * arrancar. Las fechas siguen el reloj de stats.date (UTC) y todos los
+ * métodos declaran SQLException aunque el motor en memoria no la lance.
+ */
+public interface StatsStore extends AutoCloseable {
+
+    /**
+     * Prepara el almacén (esquema, índices...). Se llama una vez al arrancar.
+     */
+    void init() throws SQLException;
+
+    /**
+     * Registra un juego con la ruta de su JAR.
+     */
+    void addGame(String gameName, String filePath) throws SQLException;
+
+    /**
+     * Guarda la ruta actual del JAR de un juego: lo registra si no existe y
+     * si existe sustituye la ruta anterior (p. ej. al actualizar la versión).
+     */
+    void updateGamePath(String gameName, String filePath) throws SQLException;
+
+    /**
+     * @return nombre del juego → ruta del archivo
+     */
+    Map<String, String> getAllGamesWithPaths() throws SQLException;
+
+    /**
+     * @return nombres de los juegos registrados, ordenados
+     */
+    List<String> getAllGames() throws SQLException;
+
+    /**
+     * @return metadatos guardados de los JARs: ruta → entrada
+     */
+    Map<String, PluginCacheEntry> getPluginCache() throws SQLException;
+
+    /**
+     * Guarda la entrada de un JAR, reemplazando la anterior de esa ruta.
+     */
+    void savePluginCacheEntry(PluginCacheEntry entry) throws SQLException;
+
+    /**
+     * Busca JARs con el mismo contenido registrados en rutas distintas.
+     *
+     * @return SHA-256 → rutas de juegos registrados (dos o más), ordenadas
+     */
+    Map<String, List<String>> findDuplicatePlugins() throws SQLException;
+
+    /**
+     * Guarda una partida con la fecha actual. Crea el juego si no existe.
+     *
+     * @param stats mapa con estadísticas (debe contener "score")
+     */
+    void saveStats(String gameName, Map<String, Object> stats) throws SQLException;
+
+    /**
+     * Guarda varias partidas de forma atómica: o todas o ninguna.
+     */
+    void saveStatsBatch(List<GameStats> statsList) throws SQLException;
+
+    List<GameStats> getTop3(String gameName) throws SQLException;
+
+    /**
+     * @return página del ranking (score descendente, luego fecha e id)
+     */
+    List<GameStats> getTopN(String gameName, int n, int offset) throws SQLException;
+
+    Map<String, List<GameStats>> getTop3AllGames() throws SQLException;
+
+    /**
+     * @return juego → top N, ordenado por nombre; juegos sin partidas con lista vacía
+     */
+    Map<String, List<GameStats>> getTopNAllGames(int n) throws SQLException;
+
+    /**
+     * @return historial completo, indicando si parte está compactado
+     */
+    StatsHistory getAllStats(String gameName) throws SQLException;
+
+    /**
+     * @param startDate fecha inicio (YYYY-MM-DD), incluida
+     * @param endDate fecha fin (YYYY-MM-DD), incluida
+     * @throws SQLException también si alguna fecha no es YYYY-MM-DD
+     */
+    StatsHistory getStatsByDateRange(String gameName, String startDate, String endDate)
+            throws SQLException;
+
+    /**
+     * Recorre el historial del más reciente al más antiguo.
+     *
+     * @return número de filas recorridas
+     */
+    int forEachStat(String gameName, StatsFilter filter, Consumer<GameStats> action)
+            throws SQLException;
+
+    /**
+     * Página del historial con paginación por clave.
+     */
+    StatsPage getStatsPage(String gameName, StatsFilter filter, StatsCursor after, int limit)
+            throws SQLException;
+
+    /**
+     * Partidas en columnas primitivas (sin objetos por fila), en orden
+     * cronológico. No incluye partidas compactadas.
+     */
+    ScoreColumn readScores(String gameName, StatsFilter range) throws SQLException;
+
+    /**
+     * Ordena las partidas por una estadística numérica cualquiera.
+     */
+    List<GameStats> rankByStat(String gameName, String statKey, int n, boolean descending)
+            throws SQLException;
+
+    StatAggregate aggregateStat(String gameName, String statKey) throws SQLException;
+
+    /**
+     * Agrega las puntuaciones en [from, to).
+     */
+    StatAggregate aggregateScores(String gameName, LocalDateTime from, LocalDateTime to)
+            throws SQLException;
+
+    /**
+     * @return resumen por hora o día con partidas en [from, to), en orden cronológico
+     */
+    List<ScoreBucket> getScoreTrend(String gameName, RollupPeriod period,
+                                    LocalDateTime from, LocalDateTime to)
+            throws SQLException;
+
+    ScoreRank rankOf(String gameName, double score) throws SQLException;
+
+    /**
+     * @param percentile entre 0 y 100
+     * @return puntuación en ese percentil, o NaN si no hay partidas
+     */
+    double scoreAtPercentile(String gameName, double percentile) throws SQLException;
+
+    double getHighScore(String gameName) throws SQLException;
+
+    /**
+     * @return número de partidas eliminadas
+     */
+    int deleteGameStats(String gameName) throws SQLException;
+
+    /**
+     * Aplica la política de retención. Si se interrumpe el hilo, para en
+     * cuanto deja un lote terminado y devuelve lo compactado hasta ahí.
+     *
+     * @return número de partidas compactadas
+     */
+    int compactOldStats(RetentionPolicy policy) throws SQLException;
+
+    /**
+     * Exporta el catálogo de juegos y las partidas (solo el score y la
+     * fecha). Un archivo exportado por un motor se puede importar en el otro.
+     *
+     * @param out destino (no se cierra)
+     * @return partidas exportadas y omitidas
+     * @throws IOException si falla la escritura
+     */
+    TransferReport exportStats(OutputStream out, TransferFormat format)
+            throws SQLException, IOException;
+
+    /**
+     * Importa un archivo de {@link #exportStats}. Los juegos que ya existen
+     * conservan su ruta y las partidas se añaden sin buscar duplicados.
+     *
+     * @param in origen (no se cierra)
+     * @return partidas importadas
+     * @throws IOException si el archivo está mal formado o falla la lectura
+     */
+    TransferReport importStats(InputStream in, TransferFormat format)
+            throws SQLException, IOException;
+
+    /**
+     * Libera los recursos del almacén.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,411 @@
+package com.nintecdo.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lectura y escritura en streaming de los formatos de {@link TransferFormat}.
+ *
+ * Ni el escritor ni el lector guardan partidas en memoria: solo la tabla de
+ * juegos del formato binario, que crece con el número de juegos.
+ * StatsRepository se encarga de las consultas y las transacciones.
+ */
+class StatsTransfer {
+    static final String CSV_HEADER = "kind,game,value,date";
+
+    private static final int BINARY_MAGIC = 0x4E535458; // "NSTX"
+    private static final short BINARY_VERSION = 1;
+    private static final byte GAME = 'G';
+    private static final byte STAT = 'S';
+    private static final byte END = 'E';
+
+    /**
+     * Juego o partida leídos de un archivo.
+     */
+    static final class Row {
+        final String gameName;
+        // Solo juegos
+        final String filePath;
+        // Solo partidas (date en formato de stats.date; null = es un juego)
+        final double score;
+        final String date;
+
+        private Row(String gameName, String filePath, double score, String date) {
+            this.gameName = gameName;
+            this.filePath = filePath;
+            this.score = score;
+            this.date = date;
+        }
+
+        static Row game(String gameName, String filePath) {
+            return new Row(gameName, filePath, 0, null);
+        }
+
+        static Row stat(String gameName, double score, String date) {
+            return new Row(gameName, null, score, date);
+        }
+
+        boolean isGame() {
+            return date == null;
+        }
+    }
+
+    /**
+     * Destino de una exportación.
+     */
+    interface Sink {
+        void game(String gameName, String filePath) throws IOException;
+
+        /**
+         * Las fechas ISO (con 'T' o fracciones de segundo) se escriben en el
+         * formato de stats.date; las nulas o ilegibles no caben en ninguno de
+         * los dos formatos y la partida se omite.
+         *
+         * @param date fecha de stats.date (UTC)
+         * @return false si la partida se ha omitido por su fecha
+         */
+        boolean stat(String gameName, double score, String date) throws IOException;
+
+        /**
+         * Escribe el final del archivo y vacía los búferes (no cierra el stream).
+         */
+        void finish() throws IOException;
+    }
+
+    /**
+     * Origen de una importación.
+     */
+    interface Source {
+        /**
+         * @return siguiente juego o partida, o null al final del archivo
+         * @throws IOException si el archivo está mal formado o truncado
+         */
+        Row next() throws IOException;
+    }
+
+    static Sink writer(OutputStream out, TransferFormat format) throws IOException {
+        return format == TransferFormat.BINARY ? new BinarySink(out) : new CsvSink(out);
+    }
+
+    static Source reader(InputStream in, TransferFormat format) throws IOException {
+        return format == TransferFormat.BINARY ? new BinarySource(in) : new CsvSource(in);
+    }
+
+    /**
+     * Lee una fecha de stats.date con la misma tolerancia que el historial.
+     *
+     * @return segundos epoch, o null si la fecha es nula o ilegible
+     */
+    private static Long epochSecond(String date) {
+        if (date == null) {
+            return null;
+        }
+
+        try {
+            return StatsDates.parse(date);
+        } catch (DateTimeException e) {
+            try {
+                return LocalDateTime.parse(date.replace(' ', 'T')).toEpochSecond(ZoneOffset.UTC);
+            } catch (DateTimeException iso) {
+                return null;
+            }
+        }
+    }
+
+    private static final class CsvSink implements Sink {
+        private final Writer writer;
+
+        CsvSink(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        @Override
+        public void game(String gameName, String filePath) throws IOException {
+            writer.write("game,");
+            writeField(gameName);
+            writer.write(',');
+            writeField(filePath);
+            writer.write(",\n");
+        }
+
+        @Override
+        public boolean stat(String gameName, double score, String date) throws IOException {
+            Long epochSecond = epochSecond(date);
+            if (epochSecond == null) {
+                return false;
+            }
+
+            writer.write("stat,");
+            writeField(gameName);
+            writer.write(',');
+            writer.write(Double.toString(score));
+            writer.write(',');
+            writer.write(StatsDates.format(epochSecond));
+            writer.write('\n');
+            return true;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    private static final class CsvSource implements Source {
+        private final BufferedReader reader;
+        private final List<String> fields = new ArrayList<>(4);
+        private final StringBuilder field = new StringBuilder();
+        private long line = 1;
+        private long recordLine;
+
+        CsvSource(InputStream in) {
+            this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public Row next() throws IOException {
+            while (readRecord()) {
+                if (fields.size() == 1 && fields.get(0).isEmpty()) {
+                    continue;
+                }
+                if (fields.get(0).equals("kind") && String.join(",", fields).equals(CSV_HEADER)) {
+                    continue;
+                }
+                if (fields.size() < 3) {
+                    throw error("se esperaban al menos 3 columnas");
+                }
+
+                String kind = fields.get(0);
+                if (kind.equals("game")) {
+                    return Row.game(fields.get(1), fields.get(2));
+                }
+                if (kind.equals("stat")) {
+                    if (fields.size() < 4) {
+                        throw error("falta la fecha");
+                    }
+                    return Row.stat(fields.get(1), parseScore(fields.get(2)),
+                            checkDate(fields.get(3)));
+                }
+                throw error("tipo de fila desconocido: " + kind);
+            }
+            return null;
+        }
+
+        /**
+         * Lee un registro, que puede ocupar varias líneas si tiene comillas.
+         *
+         * @return false al final del archivo
+         */
+        private boolean readRecord() throws IOException {
+            fields.clear();
+            field.setLength(0);
+            recordLine = line;
+
+            int c = reader.read();
+            if (c < 0) {
+                return false;
+            }
+
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c < 0) {
+                        throw error("comillas sin cerrar");
+                    }
+                    if (c == '"') {
+                        reader.mark(1);
+                        int next = reader.read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            reader.reset();
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c < 0) {
+                    fields.add(field.toString());
+                    line++;
+                    return true;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = reader.read();
+            }
+        }
+
+        private double parseScore(String value) throws IOException {
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                throw error("score no válido: " + value);
+            }
+        }
+
+        private String checkDate(String value) throws IOException {
+            try {
+                StatsDates.parse(value);
+                return value;
+            } catch (DateTimeException e) {
+                throw error("fecha no válida: " + value);
+            }
+        }
+
+        private IOException error(String message) {
+            return new IOException("CSV línea " + recordLine + ": " + message);
+        }
+    }
+
+    private static final class BinarySink implements Sink {
+        private final DataOutputStream out;
+        private final Map<String, Integer> gameIndexes = new HashMap<>();
+
+        BinarySink(OutputStream out) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(out));
+            this.out.writeInt(BINARY_MAGIC);
+            this.out.writeShort(BINARY_VERSION);
+        }
+
+        @Override
+        public void game(String gameName, String filePath) throws IOException {
+            if (gameIndexes.containsKey(gameName)) {
+                return;
+            }
+
+            out.writeByte(GAME);
+            out.writeUTF(gameName);
+            out.writeUTF(filePath == null ? "" : filePath);
+            gameIndexes.put(gameName, gameIndexes.size());
+        }
+
+        @Override
+        public boolean stat(String gameName, double score, String date) throws IOException {
+            Long epochSecond = epochSecond(date);
+            if (epochSecond == null) {
+                return false;
+            }
+
+            // Juego creado después de leer el catálogo: se declara aquí
+            if (!gameIndexes.containsKey(gameName)) {
+                game(gameName, "");
+            }
+
+            out.writeByte(STAT);
+            out.writeInt(gameIndexes.get(gameName));
+            out.writeDouble(score);
+            out.writeLong(epochSecond);
+            return true;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            out.writeByte(END);
+            out.flush();
+        }
+    }
+
+    private static final class BinarySource implements Source {
+        private final DataInputStream in;
+        private final List<String> games = new ArrayList<>();
+        private boolean ended;
+
+        BinarySource(InputStream in) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(in));
+            try {
+                if (this.in.readInt() != BINARY_MAGIC) {
+                    throw new IOException("No es un archivo de estadísticas de Nintecdo");
+                }
+                short version = this.in.readShort();
+                if (version != BINARY_VERSION) {
+                    throw new IOException("Versión de archivo no soportada: " + version);
+                }
+            } catch (EOFException e) {
+                throw new IOException("Archivo de estadísticas vacío o truncado", e);
+            }
+        }
+
+        @Override
+        public Row next() throws IOException {
+            if (ended) {
+                return null;
+            }
+
+            try {
+                byte tag = in.readByte();
+                switch (tag) {
+                    case GAME: {
+                        Row row = Row.game(in.readUTF(), in.readUTF());
+                        games.add(row.gameName);
+                        return row;
+                    }
+                    case STAT: {
+                        int index = in.readInt();
+                        if (index < 0 || index >= games.size()) {
+                            throw new IOException("Partida de un juego no declarado: " + index);
+                        }
+                        double score = in.readDouble();
+                        return Row.stat(games.get(index), score, StatsDates.format(in.readLong()));
+                    }
+                    case END:
+                        ended = true;
+                        return null;
+                    default:
+                        throw new IOException("Registro desconocido: " + tag);
+                }
+            } catch (EOFException e) {
+                throw new IOException("Archivo de estadísticas truncado", e);
+            }
+        }
+    }
+}
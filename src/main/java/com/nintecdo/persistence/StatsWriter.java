@@ -0,0 +1,179 @@
+package com.nintecdo.persistence;
+
+import com.nintecdo.core.GameStats;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Escritor asíncrono de estadísticas (write-behind).
+ *
+ * Las estadísticas se encolan en una cola acotada y un hilo en segundo plano
+ * las guarda por lotes con {@link StatsStore#saveStatsBatch(List)}, de
+ * modo que varias partidas comparten un único commit. Si la cola está llena,
+ * {@link #submit(GameStats)} bloquea al llamador hasta que haya espacio.
+ * Al cerrar se guarda todo lo pendiente.
+ */
+public class StatsWriter implements AutoCloseable {
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int DEFAULT_MAX_BATCH = 256;
+    private static final long POLL_TIMEOUT_MS = 200;
+
+    private final StatsStore repository;
+    private final BlockingQueue<PendingStats> queue;
+    private final int maxBatch;
+    private final Thread worker;
+    private final ReentrantReadWriteLock acceptLock = new ReentrantReadWriteLock();
+
+    private volatile boolean accepting = true;
+
+    public StatsWriter(StatsStore repository) {
+        this(repository, DEFAULT_CAPACITY, DEFAULT_MAX_BATCH);
+    }
+
+    /**
+     * @param repository repositorio donde se guardan las estadísticas
+     * @param capacity tamaño máximo de la cola
+     * @param maxBatch número máximo de estadísticas por transacción
+     */
+    public StatsWriter(StatsStore repository, int capacity, int maxBatch) {
+        this.repository = repository;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+
+        this.worker = new Thread(this::drainLoop, "stats-writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Encola una estadística para guardarla en segundo plano.
+     * Bloquea si la cola está llena.
+     *
+     * @param stats estadística a guardar
+     * @return future que se completa cuando la estadística está en disco
+     * @throws InterruptedException si se interrumpe mientras espera espacio
+     */
+    public CompletableFuture<GameStats> submit(GameStats stats)
+            throws InterruptedException {
+
+        acceptLock.readLock().lock();
+        try {
+            if (!accepting) {
+                return CompletableFuture.failedFuture(
+                        new IllegalStateException("El escritor de estadísticas está cerrado")
+                );
+            }
+
+            PendingStats pending = new PendingStats(stats);
+            queue.put(pending);
+            return pending.future;
+        } finally {
+            acceptLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return número de estadísticas pendientes de guardar
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * Deja de aceptar estadísticas y espera a que se guarde todo lo pendiente.
+     */
+    @Override
+    public void close() {
+        acceptLock.writeLock().lock();
+        try {
+            accepting = false;
+        } finally {
+            acceptLock.writeLock().unlock();
+        }
+
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Si el hilo murió antes de vaciar la cola, guardar aquí lo que quede
+        List<PendingStats> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            writeBatch(remaining);
+        }
+    }
+
+    private void drainLoop() {
+        List<PendingStats> batch = new ArrayList<>(maxBatch);
+
+        while (accepting || !queue.isEmpty()) {
+            try {
+                PendingStats first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<PendingStats> batch) {
+        List<GameStats> statsList = new ArrayList<>(batch.size());
+        for (PendingStats pending : batch) {
+            statsList.add(pending.stats);
+        }
+
+        try {
+            repository.saveStatsBatch(statsList);
+            batch.forEach(PendingStats::complete);
+        } catch (SQLException | RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).future.completeExceptionally(e);
+                return;
+            }
+
+            // Aislar la estadística que falla guardando el lote una a una
+            for (PendingStats pending : batch) {
+                try {
+                    repository.saveStatsBatch(List.of(pending.stats));
+                    pending.complete();
+                } catch (SQLException | RuntimeException single) {
+                    pending.future.completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    /**
+     * Estadística encolada junto con el future de su llamador.
+     */
+    private static class PendingStats {
+        private final GameStats stats;
+        private final CompletableFuture<GameStats> future = new CompletableFuture<>();
+
+        PendingStats(GameStats stats) {
+            this.stats = stats;
+        }
+
+        void complete() {
+            future.complete(stats);
+        }
+    }
+}
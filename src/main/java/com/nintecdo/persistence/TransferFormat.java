@@ -0,0 +1,18 @@
+package com.nintecdo.persistence;
+
+/**
+ * Formatos de exportación e importación de juegos y partidas.
+ */
+public enum TransferFormat {
+    /**
+     * Texto CSV (RFC 4180) con cabecera {@code kind,game,value,date}.
+     * Filas {@code game,<nombre>,<ruta>,} y {@code stat,<juego>,<score>,<fecha UTC>}.
+     */
+    CSV,
+
+    /**
+     * Binario compacto: cada juego se declara una vez y las partidas lo
+     * referencian por índice, con la fecha en segundos epoch.
+     */
+    BINARY
+}
@@ -0,0 +1,62 @@
+package com.nintecdo.persistence;
+
+/**
+ * Resultado de una exportación o importación de estadísticas.
+ */
+public class TransferReport {
+    private final int games;
+    private final long rows;
+    private final long skipped;
+    private final long elapsedNanos;
+
+    public TransferReport(int games, long rows, long elapsedNanos) {
+        this(games, rows, 0, elapsedNanos);
+    }
+
+    /**
+     * @param skipped partidas omitidas por tener la fecha nula o ilegible
+     */
+    public TransferReport(int games, long rows, long skipped, long elapsedNanos) {
+        this.games = games;
+        this.rows = rows;
+        this.skipped = skipped;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return juegos declarados en el archivo
+     */
+    public int getGames() {
+        return games;
+    }
+
+    /**
+     * @return partidas transferidas
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return partidas omitidas por tener la fecha nula o ilegible
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        String report = String.format("%,d partidas de %d juegos en %,d ms (%,.0f filas/s)",
+                rows, games, getElapsedMillis(), getRowsPerSecond());
+        return skipped == 0 ? report
+                : report + String.format(", %,d omitidas por fecha no válida", skipped);
+    }
+}
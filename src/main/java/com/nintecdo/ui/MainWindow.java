@@ -1,11 +1,21 @@
 package com.nintecdo.ui;
 
+import com.nintecdo.core.IGame;
 import com.nintecdo.core.IGameListener;
 import com.nintecdo.core.GameStats;
 import com.nintecdo.exception.GameLoadException;
+import com.nintecdo.launcher.BootProfiler;
+import com.nintecdo.launcher.CdsArchive;
+import com.nintecdo.loader.GameLoadListener;
 import com.nintecdo.loader.GameLoader;
+import com.nintecdo.loader.PluginWatcher;
 import com.nintecdo.manager.GameManager;
-import com.nintecdo.persistence.StatsRepository;
+import com.nintecdo.persistence.RetentionJob;
+import com.nintecdo.persistence.RetentionPolicy;
+import com.nintecdo.persistence.ScoreRank;
+import com.nintecdo.persistence.StatsEngine;
+import com.nintecdo.persistence.StatsStore;
+import com.nintecdo.persistence.StatsWriter;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
@@ -21,14 +31,25 @@ import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Ventana principal de la plataforma Consola NinTECdo.
  * Implementa la Vista del patrón MVC.
  */
 public class MainWindow extends Application implements IGameListener {
+    // Plazo para importar un juego desde el botón Cargar Juego
+    private static final Duration IMPORT_TIMEOUT = Duration.ofSeconds(30);
 
     private Pane gameContainer;
     private StatusLabel statsLabel;
@@ -36,24 +57,36 @@ public class MainWindow extends Application implements IGameListener {
     private Button playBtn;
     private Button loadGameBtn;
     private Button rankingsBtn;
-    private StatsRepository statsRepository;
+    private StatsStore statsRepository;
+    private StatsWriter statsWriter;
+    private RetentionJob retentionJob;
+    private volatile PluginWatcher pluginWatcher;
+    // Juego cuyo panel está en gameContainer y su entrada en GameManager
+    private String displayedGame;
+    private IGame displayedEntry;
+    // Importación en curso desde el botón Cargar Juego; solo en el hilo de JavaFX
+    private CompletableFuture<IGame> pendingImport;
 
     @Override
     public void start(Stage stage) throws Exception {
-        // Inicializar persistencia
-        statsRepository = new StatsRepository();
-        statsRepository.init();
+        BootProfiler boot = BootProfiler.getInstance();
+
+        // Inicializar persistencia (motor según nintecdo.stats.engine)
+        statsRepository = boot.time(BootProfiler.DB_OPEN,
+                () -> StatsEngine.fromSystemProperty().create());
+        boot.time(BootProfiler.DB_INIT, statsRepository::init);
+        statsWriter = new StatsWriter(statsRepository);
+
+        // Compactación del historial antiguo, solo si está configurada
+        RetentionPolicy retentionPolicy = RetentionPolicy.fromSystemProperty();
+        if (retentionPolicy != null) {
+            retentionJob = new RetentionJob(statsRepository, retentionPolicy);
+        }
 
         // Agregar listener para actualizaciones
         GameManager.getInstance().addGameListener(this);
 
-        try {
-            GameLoader.loadAllGames(statsRepository);
-        } catch (GameLoadException e) {
-            System.err.println("Error cargando juegos: " + e.getMessage());
-            e.printStackTrace();
-        }
-
+        BootProfiler.Phase sceneBuild = boot.start(BootProfiler.SCENE_BUILD);
         VBox root = new VBox();
         root.setPadding(new Insets(25));
         root.setSpacing(15);
@@ -76,7 +109,161 @@ public class MainWindow extends Application implements IGameListener {
         Scene scene = new Scene(root, 1200, 800);
         stage.setScene(scene);
         stage.setTitle("Consola NinTECdo");
-        stage.show();
+        sceneBuild.close();
+
+        boot.time(BootProfiler.SCENE_SHOW, stage::show);
+        System.out.println("✓ Ventana principal en " + (System.currentTimeMillis() -
+                ManagementFactory.getRuntimeMXBean().getStartTime()) + " ms");
+
+        // Los juegos guardados llegan al selector con la ventana ya visible
+        loadSavedGames();
+    }
+
+    /**
+     * Carga en segundo plano los juegos guardados y los añade al selector
+     * según van quedando listos.
+     */
+    private void loadSavedGames() {
+        updateStatus("Cargando juegos...", StatusLabel.Status.LOADING);
+
+        GameLoader.loadAllGamesAsync(statsRepository, new GameLoadListener() {
+            @Override
+            public void onGameLoaded(String gameName, int done, int total) {
+                Platform.runLater(() -> addToSelector(gameName));
+                updateStatus("Cargando juegos... (" + done + "/" + total + ")",
+                        StatusLabel.Status.LOADING);
+            }
+
+            @Override
+            public void onGameFailed(String gameName, Exception error, int done, int total) {
+                updateStatus("Cargando juegos... (" + done + "/" + total + ")",
+                        StatusLabel.Status.LOADING);
+            }
+
+            @Override
+            public void onLoadingFinished(int loaded, int failed) {
+                if (failed == 0) {
+                    updateStatus("✓ " + loaded + " juegos cargados",
+                            StatusLabel.Status.SUCCESS);
+                } else {
+                    updateStatus(loaded + " juegos cargados, " + failed +
+                            " con errores (ver consola)", StatusLabel.Status.ERROR);
+                }
+            }
+        }).exceptionally(error -> {
+            Throwable cause = error.getCause() != null ? error.getCause() : error;
+            System.err.println("Error cargando juegos: " + cause.getMessage());
+            updateStatus("Error cargando juegos: " + cause.getMessage(),
+                    StatusLabel.Status.ERROR);
+            return 0;
+        }).thenRun(CdsArchive.isTrainingRun()
+                ? () -> Platform.runLater(this::finishCdsTraining)
+                : this::finishBoot);
+    }
+
+    /**
+     * Final del arranque normal, con los juegos guardados ya registrados.
+     */
+    private void finishBoot() {
+        startPluginWatcher();
+        BootProfiler.getInstance().finish();
+    }
+
+    /**
+     * Final del arranque de ensayo del lanzador: recorre lo que usa una
+     * sesión normal (paneles de los juegos y rankings) y cierra la
+     * aplicación, momento en que la JVM escribe el archivo CDS.
+     */
+    private void finishCdsTraining() {
+        int activated = GameLoader.activateAllGames();
+        showRankings();
+        System.out.println("✓ Ensayo de CDS: " + activated + " juegos activados");
+        BootProfiler.getInstance().finish();
+        Platform.exit();
+    }
+
+    /**
+     * Vigila el directorio de plugins para añadir o actualizar juegos sin
+     * reiniciar. Se arranca cuando ya están registrados los juegos guardados.
+     */
+    private void startPluginWatcher() {
+        try {
+            pluginWatcher = new PluginWatcher(
+                    PluginWatcher.dirFromSystemProperty(),
+                    statsRepository,
+                    new PluginWatcher.Listener() {
+                        @Override
+                        public void onGameAdded(String gameName) {
+                            Platform.runLater(() -> addToSelector(gameName));
+                            updateStatus("✓ Juego nuevo disponible: " + gameName,
+                                    StatusLabel.Status.SUCCESS);
+                        }
+
+                        @Override
+                        public void onGameUpdated(String gameName, boolean applied) {
+                            // El panel de la versión anterior la retendría en memoria
+                            Platform.runLater(() -> releasePanel(gameName));
+                            if (applied) {
+                                updateStatus("✓ Juego actualizado: " + gameName,
+                                        StatusLabel.Status.SUCCESS);
+                            }
+                        }
+
+                        @Override
+                        public void onPluginFailed(Path jar, Exception error) {
+                            updateStatus("Plugin no válido: " + jar.getFileName(),
+                                    StatusLabel.Status.ERROR);
+                        }
+                    });
+        } catch (IOException e) {
+            System.err.println("✗ No se puede vigilar el directorio de plugins: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Quita del contenedor el panel de un juego que ya no está en partida,
+     * para que su versión anterior se pueda descargar. Se llama en el hilo
+     * de JavaFX.
+     */
+    private void releasePanel(String gameName) {
+        if (gameName.equals(displayedGame) && !GameManager.getInstance().isSessionActive()) {
+            gameContainer.getChildren().clear();
+            displayedGame = null;
+            displayedEntry = null;
+        }
+    }
+
+    /**
+     * Añade un juego al selector si no estaba y lo selecciona si no hay
+     * ninguno elegido. Se llama en el hilo de JavaFX.
+     */
+    private void addToSelector(String gameName) {
+        if (!gameSelector.getItems().contains(gameName)) {
+            gameSelector.getItems().add(gameName);
+        }
+        if (gameSelector.getValue() == null) {
+            gameSelector.setValue(gameName);
+        }
+    }
+
+    /**
+     * Guarda las estadísticas pendientes y libera las conexiones con la base
+     * de datos al cerrar la aplicación.
+     */
+    @Override
+    public void stop() {
+        if (pluginWatcher != null) {
+            pluginWatcher.close();
+        }
+        if (retentionJob != null) {
+            retentionJob.close();
+        }
+        if (statsWriter != null) {
+            statsWriter.close();
+        }
+        if (statsRepository != null) {
+            statsRepository.close();
+        }
     }
 
     /**
@@ -165,6 +352,8 @@ public class MainWindow extends Application implements IGameListener {
 
             gameContainer.getChildren().clear();
             gameContainer.getChildren().add(startedGamePane);
+            displayedGame = selectedGame;
+            displayedEntry = GameManager.getInstance().getGame(selectedGame);
             startedGamePane.requestFocus();
 
         } catch (Exception ex) {
@@ -210,10 +399,23 @@ public class MainWindow extends Application implements IGameListener {
                 noGamesLabel.setStyle("-fx-font-size: 14; -fx-text-fill: #999;");
                 rankingsContainer.getChildren().add(noGamesLabel);
             } else {
+                // Todos los top 3 en una sola consulta
+                Map<String, List<GameStats>> allTop3 = Map.of();
+                String rankingError = null;
+                try {
+                    allTop3 = statsRepository.getTopNAllGames(3);
+                } catch (SQLException e) {
+                    rankingError = e.getMessage();
+                }
+
                 // Para cada juego, mostrar top 3
                 for (String gameName : availableGames) {
                     rankingsContainer.getChildren().add(
-                            createGameRankingPanel(gameName)
+                            createGameRankingPanel(
+                                    gameName,
+                                    allTop3.getOrDefault(gameName, List.of()),
+                                    rankingError
+                            )
                     );
                 }
             }
@@ -253,8 +455,13 @@ public class MainWindow extends Application implements IGameListener {
 
     /**
      * Crea un panel con el top 3 de un juego específico.
+     *
+     * @param top3 mejores resultados del juego
+     * @param error mensaje de error al leer los rankings, o null
      */
-    private VBox createGameRankingPanel(String gameName) {
+    private VBox createGameRankingPanel(String gameName,
+                                        List<GameStats> top3,
+                                        String error) {
         VBox gamePanel = new VBox(8);
         gamePanel.setPadding(new Insets(12));
         gamePanel.setStyle(
@@ -268,30 +475,25 @@ public class MainWindow extends Application implements IGameListener {
         gameTitle.setFont(new Font(14));
         gameTitle.setStyle("-fx-font-weight: bold; -fx-text-fill: #2c3e50;");
 
-        try {
-            List<GameStats> top3 = statsRepository.getTop3(gameName);
-
-            if (top3.isEmpty()) {
-                Label noStatsLabel = new Label("Sin registros aún");
-                noStatsLabel.setStyle("-fx-text-fill: #999; -fx-font-size: 12;");
-                gamePanel.getChildren().addAll(gameTitle, noStatsLabel);
-            } else {
-                gamePanel.getChildren().add(gameTitle);
-
-                // Mostrar top 3
-                for (int i = 0; i < top3.size(); i++) {
-                    GameStats stats = top3.get(i);
-                    HBox rankRow = createRankRow(i + 1, stats);
-                    gamePanel.getChildren().add(rankRow);
-                }
-            }
-
-        } catch (SQLException e) {
+        if (error != null) {
             Label errorLabel = new Label(
-                    "Error: " + e.getMessage()
+                    "Error: " + error
             );
             errorLabel.setStyle("-fx-text-fill: #e74c3c; -fx-font-size: 11;");
             gamePanel.getChildren().addAll(gameTitle, errorLabel);
+        } else if (top3.isEmpty()) {
+            Label noStatsLabel = new Label("Sin registros aún");
+            noStatsLabel.setStyle("-fx-text-fill: #999; -fx-font-size: 12;");
+            gamePanel.getChildren().addAll(gameTitle, noStatsLabel);
+        } else {
+            gamePanel.getChildren().add(gameTitle);
+
+            // Mostrar top 3
+            for (int i = 0; i < top3.size(); i++) {
+                GameStats stats = top3.get(i);
+                HBox rankRow = createRankRow(i + 1, stats);
+                gamePanel.getChildren().add(rankRow);
+            }
         }
 
         return gamePanel;
@@ -360,37 +562,87 @@ public class MainWindow extends Application implements IGameListener {
         System.out.println("Nuevas Stats");
         System.out.println(stats.toString());
 
-        Platform.runLater(() -> {
-            try {
-                // Guardar estadísticas
-                statsRepository.saveStats(
-                        stats.getGameName(),
-                        stats.getStats()
-                );
-
-                // Actualizar UI
-                String message = String.format(
-                        "✓ %s finalizado. Puntuación: %s",
-                        stats.getGameName(),
-                        stats.getStats().get("score")
-                );
-                updateStatus(message, StatusLabel.Status.SUCCESS);
+        try {
+            // Guardar estadísticas en segundo plano
+            statsWriter.submit(stats).whenCompleteAsync((saved, error) -> {
+                // Puesto calculado fuera del hilo de la UI y del escritor
+                ScoreRank rank = error == null ? findRank(stats) : null;
+
+                Platform.runLater(() -> {
+                    if (error == null) {
+                        // Actualizar UI
+                        String message = String.format(
+                                "✓ %s finalizado. Puntuación: %s",
+                                stats.getGameName(),
+                                stats.getStats().get("score")
+                        );
+                        if (rank != null) {
+                            message += String.format(
+                                    " - Puesto #%,d de %,d (top %.1f%%)",
+                                    rank.getRank(),
+                                    rank.getTotal(),
+                                    rank.getTopPercent()
+                            );
+                        }
+                        updateStatus(message, StatusLabel.Status.SUCCESS);
+                    } else {
+                        updateStatus(
+                                "Error guardando estadísticas: " + error.getMessage(),
+                                StatusLabel.Status.ERROR
+                        );
+                    }
+
+                    // Una versión nueva que esperaba al final de la partida ya
+                    // está registrada: el panel retendría la anterior
+                    if (displayedGame != null && GameManager.getInstance()
+                            .getGame(displayedGame) != displayedEntry) {
+                        releasePanel(displayedGame);
+                    }
+
+                    // Resetear controles
+                    playBtn.setDisable(false);
+                    rankingsBtn.setDisable(false);
+                    gameSelector.setDisable(false);
+                });
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            updateStatus(
+                    "Error guardando estadísticas: " + e.getMessage(),
+                    StatusLabel.Status.ERROR
+            );
+        }
+    }
 
-                // Resetear controles
-                playBtn.setDisable(false);
-                rankingsBtn.setDisable(false);
-                gameSelector.setDisable(false);
+    /**
+     * Busca el puesto de una partida recién guardada.
+     *
+     * @return el puesto, o null si no se pudo calcular
+     */
+    private ScoreRank findRank(GameStats stats) {
+        Object score = stats.getStats().get("score");
+        if (!(score instanceof Number)) {
+            return null;
+        }
 
-            } catch (SQLException e) {
-                updateStatus(
-                        "Error guardando estadísticas: " + e.getMessage(),
-                        StatusLabel.Status.ERROR
-                );
-            }
-        });
+        try {
+            return statsRepository.rankOf(
+                    stats.getGameName(),
+                    ((Number) score).doubleValue()
+            );
+        } catch (SQLException e) {
+            System.err.println("✗ Error calculando el puesto: " + e.getMessage());
+            return null;
+        }
     }
 
     private void loadGameFromDisk() {
+        // Con una importación en curso el botón la cancela
+        if (pendingImport != null) {
+            pendingImport.cancel(true);
+            return;
+        }
+
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Seleccionar Juego (.jar)");
 
@@ -411,52 +663,79 @@ public class MainWindow extends Application implements IGameListener {
         );
 
         if (selectedFile != null) {
-            try {
-                updateStatus(
-                        "Cargando " + selectedFile.getName() + "...",
-                        StatusLabel.Status.LOADING
-                );
-
-                // Cargar el juego desde el archivo
-                GameLoader.loadGame(selectedFile, statsRepository);
-
-                // Actualizar el selector con la nueva lista de juegos
-                List<String> availableGames =
-                        GameManager.getInstance().getAvailableGames();
-
-                gameSelector.setItems(
-                        FXCollections.observableArrayList(availableGames)
-                );
+            updateStatus(
+                    "Cargando " + selectedFile.getName() + "...",
+                    StatusLabel.Status.LOADING
+            );
+            loadGameBtn.setText("Cancelar");
+
+            // La carga va en su propio hilo: la ventana sigue respondiendo
+            CompletableFuture<IGame> loading = GameLoader.loadGameAsync(
+                    selectedFile, statsRepository, IMPORT_TIMEOUT,
+                    stage -> Platform.runLater(() -> {
+                        if (pendingImport != null) {
+                            updateStatus(
+                                    stage.getDescription() + " (" + selectedFile.getName() + ")...",
+                                    StatusLabel.Status.LOADING
+                            );
+                        }
+                    })
+            );
+            pendingImport = loading;
+            loading.whenComplete((game, error) -> Platform.runLater(() ->
+                    finishImport(loading, selectedFile, error)));
+        } else {
+            updateStatus(
+                    "Carga de juego cancelada",
+                    StatusLabel.Status.WAITING_GAME
+            );
+        }
+    }
 
-                // Seleccionar el último juego cargado (el más reciente)
-                if (!availableGames.isEmpty()) {
-                    String lastGame = availableGames.get(availableGames.size() - 1);
-                    gameSelector.setValue(lastGame);
-                }
+    /**
+     * Termina una importación de {@link #loadGameFromDisk()} en el hilo de
+     * JavaFX: el selector solo cambia si el juego quedó registrado.
+     */
+    private void finishImport(CompletableFuture<IGame> loading, File jarFile, Throwable error) {
+        if (pendingImport == loading) {
+            pendingImport = null;
+            loadGameBtn.setText("Cargar Juego");
+        }
 
-                updateStatus(
-                        "✓ Juego cargado correctamente: " + selectedFile.getName(),
-                        StatusLabel.Status.SUCCESS
-                );
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause()
+                : error;
 
-            } catch (GameLoadException e) {
-                updateStatus(
-                        "Error cargando juego: " + e.getMessage(),
-                        StatusLabel.Status.ERROR
-                );
-                e.printStackTrace();
-            } catch (Exception e) {
-                updateStatus(
-                        "Error inesperado: " + e.getMessage(),
-                        StatusLabel.Status.ERROR
-                );
-                e.printStackTrace();
-            }
-        } else {
+        if (cause == null) {
+            String gameName = loading.join().getName();
+            addToSelector(gameName);
+            gameSelector.setValue(gameName);
             updateStatus(
-                    "Carga de juego cancelada",
+                    "✓ Juego cargado correctamente: " + jarFile.getName(),
+                    StatusLabel.Status.SUCCESS
+            );
+        } else if (cause instanceof CancellationException) {
+            updateStatus(
+                    "Carga de " + jarFile.getName() + " cancelada",
                     StatusLabel.Status.WAITING_GAME
             );
+        } else if (cause instanceof TimeoutException) {
+            updateStatus(
+                    "Tiempo agotado: " + cause.getMessage(),
+                    StatusLabel.Status.ERROR
+            );
+        } else if (cause instanceof GameLoadException) {
+            updateStatus(
+                    "Error cargando juego: " + cause.getMessage(),
+                    StatusLabel.Status.ERROR
+            );
+            cause.printStackTrace();
+        } else {
+            updateStatus(
+                    "Error inesperado: " + cause.getMessage(),
+                    StatusLabel.Status.ERROR
+            );
+            cause.printStackTrace();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.nintecdo.persistence;
+
+import com.nintecdo.core.GameStats;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Contrato de {@link StatsStore} sobre {@link InMemoryStatsStore}.
+ */
+public class InMemoryStatsStoreTest extends StatsStoreContractTest {
+
+    @Override
+    protected StatsStore createStore() {
+        return new InMemoryStatsStore();
+    }
+
+    public void testRankLoadAfterInsertBeforeOnInsertCountsRowOnce() throws Exception {
+        save(10);
+
+        // getGameName se consulta tras soltar el candado del juego: ahí la
+        // fila ya es visible pero el índice aún no ha recibido onInsert
+        Map<String, Object> values = new HashMap<>();
+        values.put("score", 42.0);
+        GameStats racing = new GameStats(GAME, values, null) {
+            private boolean queried;
+
+            @Override
+            public String getGameName() {
+                try {
+                    if (!queried && store.getHighScore(GAME) == 42.0) {
+                        queried = true;
+                        store.rankOf(GAME, 42);
+                    }
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+                return super.getGameName();
+            }
+        };
+        store.saveStatsBatch(List.of(racing));
+
+        ScoreRank rank = store.rankOf(GAME, 0);
+        assertEquals(2, rank.getTotal());
+        assertEquals(42.0, store.scoreAtPercentile(GAME, 100), 0.0);
+        assertEquals(10.0, store.scoreAtPercentile(GAME, 50), 0.0);
+    }
+
+    private void save(double score) throws Exception {
+        Map<String, Object> values = new HashMap<>();
+        values.put("score", score);
+        store.saveStats(GAME, values);
+    }
+}
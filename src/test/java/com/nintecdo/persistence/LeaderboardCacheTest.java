@@ -0,0 +1,149 @@
+package com.nintecdo.persistence;
+
+import com.nintecdo.core.GameStats;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * El ranking servido desde {@link LeaderboardCache} debe coincidir fila a
+ * fila con {@link StatsRepository#TOP_N_SQL}, empates incluidos.
+ */
+public class LeaderboardCacheTest extends TestCase {
+    private static final String GAME = "Tetris";
+    private static final int CAPACITY = 5;
+
+    private File dbFile;
+    private String dbUrl;
+    private StatsRepository repository;
+
+    @Override
+    protected void setUp() throws Exception {
+        dbFile = File.createTempFile("leaderboard", ".db");
+        dbUrl = "jdbc:sqlite:" + dbFile.getAbsolutePath();
+        repository = new StatsRepository(dbUrl, PragmaProfile.FAST, CAPACITY);
+        repository.init();
+    }
+
+    @Override
+    protected void tearDown() {
+        repository.close();
+        for (String suffix : new String[]{"", "-wal", "-shm"}) {
+            new File(dbFile.getPath() + suffix).delete();
+        }
+    }
+
+    public void testTiedScoresAndTimestampsMatchSql() throws Exception {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS);
+
+        // Mismo score y misma fecha: solo el id decide
+        save(stat(100, now), stat(100, now), stat(90, now), stat(100, now.minusMinutes(1)));
+        assertMatchesSql();
+
+        // Con la caché ya llena, las nuevas filas entran por onInsert
+        save(stat(100, now), stat(95, now), stat(100, now.minusMinutes(1)), stat(80, now));
+        assertMatchesSql();
+
+        save(stat(100, now.minusMinutes(1)), stat(1, now));
+        assertMatchesSql();
+        assertTrue(repository.getLeaderboardCache().getHits() > 0);
+    }
+
+    public void testDeleteInvalidatesRanking() throws Exception {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS);
+        save(stat(50, now), stat(60, now), stat(70, now));
+        assertMatchesSql();
+
+        assertEquals(3, repository.deleteGameStats(GAME));
+        assertMatchesSql();
+        assertTrue(repository.getTopN(GAME, CAPACITY, 0).isEmpty());
+
+        save(stat(10, now), stat(10, now), stat(5, now));
+        assertMatchesSql();
+    }
+
+    public void testCompactionInvalidatesRanking() throws Exception {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime old = now.minusDays(400);
+
+        save(stat(100, old), stat(90, old), stat(80, old), stat(70, old),
+                stat(60, now), stat(60, now), stat(10, now));
+        assertMatchesSql();
+
+        // Solo sobreviven los 2 mejores antiguos: 80 y 70 salen del top
+        int compacted = repository.compactOldStats(
+                RetentionPolicy.olderThan(Duration.ofDays(30)).withKeepTopN(2));
+        assertEquals(2, compacted);
+        assertMatchesSql();
+    }
+
+    private void assertMatchesSql() throws SQLException {
+        for (int offset = 0; offset < CAPACITY; offset++) {
+            for (int n = 1; offset + n <= CAPACITY; n++) {
+                List<GameStats> page = repository.getTopN(GAME, n, offset);
+                List<LeaderboardCache.Entry> expected = sqlTopN(n, offset);
+
+                assertEquals("n=" + n + " offset=" + offset, expected.size(), page.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(expected.get(i).getScore(),
+                            ((Number) page.get(i).getStats().get("score")).doubleValue(), 0.0);
+                    assertEquals(expected.get(i).getDate(),
+                            StatsDates.format(page.get(i).getTimestamp().toEpochSecond(ZoneOffset.UTC)));
+                }
+            }
+        }
+
+        // Los ids deciden los empates que score y fecha no distinguen
+        List<LeaderboardCache.Entry> cached = repository.getLeaderboardCache().get(GAME, CAPACITY);
+        assertNotNull(cached);
+        assertEquals(ids(sqlTopN(CAPACITY, 0)), ids(cached));
+    }
+
+    private List<LeaderboardCache.Entry> sqlTopN(int n, int offset) throws SQLException {
+        List<LeaderboardCache.Entry> entries = new ArrayList<>();
+        try (Connection conn = DriverManager.getConnection(dbUrl);
+             PreparedStatement pstmt = conn.prepareStatement(StatsRepository.TOP_N_SQL)) {
+            pstmt.setString(1, GAME);
+            pstmt.setInt(2, n);
+            pstmt.setInt(3, offset);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    entries.add(new LeaderboardCache.Entry(rs.getLong(1), rs.getDouble(2),
+                            rs.getString(3)));
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static List<Long> ids(List<LeaderboardCache.Entry> entries) {
+        List<Long> ids = new ArrayList<>();
+        for (LeaderboardCache.Entry entry : entries) {
+            ids.add(entry.getId());
+        }
+        return ids;
+    }
+
+    private void save(GameStats... stats) throws SQLException {
+        repository.saveStatsBatch(List.of(stats));
+    }
+
+    private static GameStats stat(double score, LocalDateTime date) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("score", score);
+        return new GameStats(GAME, values, date);
+    }
+}
@@ -0,0 +1,90 @@
+package com.nintecdo.persistence;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Migraciones sobre una base de datos nueva y fechas no válidas en el
+ * historial por rango.
+ */
+public class SchemaMigratorTest extends TestCase {
+    private File dbFile;
+    private String dbUrl;
+
+    @Override
+    protected void setUp() throws Exception {
+        dbFile = File.createTempFile("schema", ".db");
+        dbUrl = "jdbc:sqlite:" + dbFile.getAbsolutePath();
+    }
+
+    @Override
+    protected void tearDown() {
+        for (String suffix : new String[]{"", "-wal", "-shm"}) {
+            new File(dbFile.getPath() + suffix).delete();
+        }
+    }
+
+    public void testFreshDatabaseBuildsOnlyFinalIndexes() throws Exception {
+        SchemaMigrator migrator = new SchemaMigrator();
+        try (Connection conn = DriverManager.getConnection(dbUrl)) {
+            assertEquals(migrator.getLatestVersion(), migrator.migrate(conn));
+            assertEquals(migrator.getLatestVersion(), migrator.getCurrentVersion(conn));
+            assertEquals(0, migrator.migrate(conn));
+
+            List<String> indexes = indexesOf(conn, "stats");
+            assertTrue(indexes.toString(), indexes.contains("idx_stats_game_score"));
+            assertTrue(indexes.toString(), indexes.contains("idx_stats_game_history"));
+            assertFalse(indexes.toString(), indexes.contains("idx_stats_game_date"));
+
+            assertEquals(List.of(), migrator.verifyQueryPlans(conn, StatsRepository.RANKING_QUERIES));
+        }
+    }
+
+    public void testMalformedDateRangeIsSqlExceptionInBothEngines() throws Exception {
+        StatsRepository repository = new StatsRepository(dbUrl, PragmaProfile.FAST);
+        repository.init();
+        try (InMemoryStatsStore memory = new InMemoryStatsStore()) {
+            memory.init();
+            for (StatsStore store : new StatsStore[]{repository, memory}) {
+                store.saveStats("Snake", new HashMap<>(Map.of("score", 1)));
+                assertRejected(store, "2024-13-01", "2024-12-31");
+                assertRejected(store, "2024-01-01", "ayer");
+                assertRejected(store, null, "2024-12-31");
+            }
+        } finally {
+            repository.close();
+        }
+    }
+
+    private static void assertRejected(StatsStore store, String from, String to) {
+        try {
+            store.getStatsByDateRange("Snake", from, to);
+            fail(store.getClass().getSimpleName() + " aceptó " + from + " - " + to);
+        } catch (SQLException expected) {
+            // mismo tipo de error en los dos motores
+        }
+    }
+
+    private static List<String> indexesOf(Connection conn, String table) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                     "SELECT name FROM sqlite_master WHERE type = 'index' AND tbl_name = '" +
+                             table + "'")) {
+            while (rs.next()) {
+                names.add(rs.getString(1));
+            }
+        }
+        return names;
+    }
+}
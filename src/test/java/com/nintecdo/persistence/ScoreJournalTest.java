@@ -0,0 +1,126 @@
+package com.nintecdo.persistence;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recuperación de {@link ScoreJournal} con registros rotos y tras dar la
+ * vuelta al archivo.
+ */
+public class ScoreJournalTest extends TestCase {
+    private static final int GAME_ID = 7;
+
+    private File file;
+
+    @Override
+    protected void setUp() throws Exception {
+        file = File.createTempFile("journal", ".bin");
+    }
+
+    @Override
+    protected void tearDown() {
+        file.delete();
+    }
+
+    public void testTornTailEndsRecovery() throws Exception {
+        try (ScoreJournal journal = open(8)) {
+            journal.recover(0);
+            append(journal, 10, 20, 30);
+        }
+
+        // Corte a mitad del tercer registro
+        corrupt(2);
+
+        try (ScoreJournal journal = open(8)) {
+            assertEquals(2, journal.recover(0));
+            assertEquals(List.of(1L, 2L), sequences(journal.pending(10)));
+
+            // El siguiente registro sobrescribe el roto con la secuencia que sigue
+            append(journal, 40);
+            assertEquals(List.of(1L, 2L, 3L), sequences(journal.pending(10)));
+        }
+
+        try (ScoreJournal journal = open(8)) {
+            assertEquals(1, journal.recover(2));
+            assertEquals(40.0, journal.pending(10).get(0).score, 0.0);
+        }
+    }
+
+    public void testCorruptPendingRecordEndsBatch() throws Exception {
+        try (ScoreJournal journal = open(8)) {
+            journal.recover(0);
+            append(journal, 10, 20, 30);
+            corrupt(1);
+
+            // Nunca devuelve null: el lote termina antes del registro roto
+            assertEquals(List.of(1L), sequences(journal.pending(10)));
+            assertEquals(1, journal.getPendingCount());
+            assertEquals(List.of(1L), sequences(journal.topN(GAME_ID, 10)));
+
+            journal.markReplayed(1);
+            assertEquals(0, journal.getPendingCount());
+            assertTrue(journal.pending(10).isEmpty());
+
+            append(journal, 50);
+            assertEquals(List.of(2L), sequences(journal.pending(10)));
+        }
+    }
+
+    public void testWrapAroundRecoversOnlyNewLap() throws Exception {
+        try (ScoreJournal journal = open(4)) {
+            journal.recover(0);
+            append(journal, 1, 2, 3, 4);
+            assertFalse(journal.tryAppend(GAME_ID, 5, 0));
+
+            journal.markReplayed(4);
+            append(journal, 5, 6);
+            assertEquals(List.of(5L, 6L), sequences(journal.pending(10)));
+        }
+
+        // Las posiciones 2 y 3 conservan las secuencias 3 y 4 de la vuelta anterior
+        try (ScoreJournal journal = open(4)) {
+            assertEquals(2, journal.recover(4));
+            assertEquals(List.of(5L, 6L), sequences(journal.pending(10)));
+        }
+
+        try (ScoreJournal journal = open(4)) {
+            assertEquals(0, journal.recover(6));
+            append(journal, 7);
+            assertEquals(List.of(7L), sequences(journal.pending(10)));
+        }
+    }
+
+    private ScoreJournal open(int capacity) throws Exception {
+        return new ScoreJournal(file.toPath(), capacity, false);
+    }
+
+    private static void append(ScoreJournal journal, double... scores) {
+        for (double score : scores) {
+            assertTrue(journal.tryAppend(GAME_ID, score, 1_700_000_000_000L));
+        }
+    }
+
+    /**
+     * Cambia el score del registro i sin recalcular su CRC.
+     */
+    private void corrupt(int i) throws Exception {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}),
+                    (long) i * ScoreJournal.RECORD_SIZE + 12);
+        }
+    }
+
+    private static List<Long> sequences(List<ScoreJournal.Record> records) {
+        List<Long> sequences = new ArrayList<>();
+        for (ScoreJournal.Record record : records) {
+            sequences.add(record.sequence);
+        }
+        return sequences;
+    }
+}
@@ -0,0 +1,75 @@
+package com.nintecdo.persistence;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Carga perezosa de {@link ScoreRankIndex} frente a escrituras concurrentes.
+ */
+public class ScoreRankIndexTest extends TestCase {
+    private static final String GAME = "Pong";
+    private static final Set<String> GAMES = Set.of(GAME);
+
+    // Contenido de stats que ve una carga
+    private final List<Double> committed = new ArrayList<>();
+    private int loads;
+
+    private final ScoreRankIndex.Loader loader = (gameName, into) -> {
+        loads++;
+        for (double score : committed) {
+            into.add(score);
+        }
+    };
+
+    public void testLoadBetweenCommitAndOnInsertIsNotInstalled() throws Exception {
+        committed.add(10.0);
+        ScoreRankIndex index = new ScoreRankIndex();
+
+        // La escritura ya confirmó 20 pero aún no ha llamado a onInsert
+        index.beginWrite(GAMES);
+        committed.add(20.0);
+        assertRank(1, 2, index.rankOf(GAME, 20, loader));
+        index.onInsert(GAME, 20);
+        index.endWrite(GAMES);
+
+        // Sin la marca de escritura en curso el árbol contaría 20 dos veces
+        assertRank(1, 2, index.rankOf(GAME, 20, loader));
+        assertRank(3, 2, index.rankOf(GAME, 5, loader));
+        assertEquals(20.0, index.scoreAtPercentile(GAME, 100, loader), 0.0);
+    }
+
+    public void testLoadBeforeWriteIsInstalledAndUpdated() throws Exception {
+        committed.add(10.0);
+        ScoreRankIndex index = new ScoreRankIndex();
+        assertRank(1, 1, index.rankOf(GAME, 10, loader));
+
+        index.beginWrite(GAMES);
+        committed.add(30.0);
+        index.onInsert(GAME, 30);
+        index.endWrite(GAMES);
+
+        assertRank(2, 2, index.rankOf(GAME, 10, loader));
+        assertEquals(1, loads);
+    }
+
+    public void testFailedWriteStillAllowsLaterLoads() throws Exception {
+        committed.add(10.0);
+        ScoreRankIndex index = new ScoreRankIndex();
+
+        // Rollback: beginWrite y endWrite sin onInsert
+        index.beginWrite(GAMES);
+        index.endWrite(GAMES);
+
+        index.rankOf(GAME, 10, loader);
+        index.rankOf(GAME, 10, loader);
+        assertEquals(1, loads);
+    }
+
+    private static void assertRank(long rank, long total, ScoreRank actual) {
+        assertEquals(rank, actual.getRank());
+        assertEquals(total, actual.getTotal());
+    }
+}
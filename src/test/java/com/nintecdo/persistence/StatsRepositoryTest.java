@@ -0,0 +1,88 @@
+package com.nintecdo.persistence;
+
+import com.nintecdo.core.GameStats;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Contrato de {@link StatsStore} sobre {@link StatsRepository} con una base
+ * de datos SQLite temporal.
+ */
+public class StatsRepositoryTest extends StatsStoreContractTest {
+    private File dbFile;
+
+    @Override
+    protected StatsStore createStore() throws Exception {
+        dbFile = File.createTempFile("stats", ".db");
+        return new StatsRepository(dbUrl(), PragmaProfile.FAST);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        for (String suffix : new String[]{"", "-wal", "-shm"}) {
+            new File(dbFile.getPath() + suffix).delete();
+        }
+    }
+
+    public void testExportSkipsRowsWithoutReadableDate() throws Exception {
+        store.saveStats(GAME, new HashMap<>(Map.of("score", 10)));
+
+        // Filas de versiones antiguas o escritas a mano: stats.date admite NULL
+        try (Connection conn = DriverManager.getConnection(dbUrl());
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("INSERT INTO stats (game_id, score, date) " +
+                    "SELECT id, 20, NULL FROM games WHERE name = '" + GAME + "'");
+            stmt.executeUpdate("INSERT INTO stats (game_id, score, date) " +
+                    "SELECT id, 30, 'ayer' FROM games WHERE name = '" + GAME + "'");
+        }
+
+        for (TransferFormat format : TransferFormat.values()) {
+            TransferReport report = store.exportStats(new ByteArrayOutputStream(), format);
+            assertEquals(1, report.getRows());
+            assertEquals(2, report.getSkipped());
+        }
+    }
+
+    public void testBatchSendsScoreOnlyPlaysThroughJournal() throws Exception {
+        File journalFile = File.createTempFile("journal", ".bin");
+        LocalDateTime date = LocalDateTime.of(2024, 3, 10, 12, 0);
+        try (StatsRepository journaled = new StatsRepository(dbUrl(), PragmaProfile.FAST,
+                StatsRepository.DEFAULT_LEADERBOARD_SIZE, journalFile.toPath())) {
+            journaled.init();
+            journaled.saveStatsBatch(List.of(
+                    new GameStats(GAME, new HashMap<>(Map.of("score", 30.0)), date),
+                    new GameStats(GAME, new HashMap<>(Map.of("score", 20.0, "level", 2)), date),
+                    new GameStats(GAME, new HashMap<>(Map.of("score", 10.0)), date)));
+
+            assertEquals(30.0, journaled.getHighScore(GAME), 0.0);
+            assertEquals(3, journaled.getTopN(GAME, 10, 0).size());
+        } finally {
+            journalFile.delete();
+        }
+
+        // Al cerrar se vuelca el diario: las dos partidas de solo score pasaron por él
+        try (Connection conn = DriverManager.getConnection(dbUrl());
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                     "SELECT sequence FROM journal_checkpoint WHERE id = 1")) {
+            assertTrue(rs.next());
+            assertEquals(2, rs.getLong(1));
+        }
+        assertEquals(3, store.getAllStats(GAME).size());
+        assertEquals(date, store.getTopN(GAME, 1, 0).get(0).getTimestamp());
+    }
+
+    private String dbUrl() {
+        return "jdbc:sqlite:" + dbFile.getAbsolutePath();
+    }
+}
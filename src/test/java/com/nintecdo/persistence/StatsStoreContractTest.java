@@ -0,0 +1,300 @@
+package com.nintecdo.persistence;
+
+import com.nintecdo.core.GameStats;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Comportamiento común de {@link StatsStore}: cada motor lo ejecuta con su
+ * propia subclase y debe dar los mismos resultados.
+ */
+public abstract class StatsStoreContractTest extends TestCase {
+    protected static final String GAME = "Tetris";
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 3, 10, 0, 0);
+
+    protected StatsStore store;
+
+    /**
+     * @return almacén vacío y sin inicializar
+     */
+    protected abstract StatsStore createStore() throws Exception;
+
+    @Override
+    protected void setUp() throws Exception {
+        store = createStore();
+        store.init();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        store.close();
+    }
+
+    public void testTopNBreaksTiesByDate() throws Exception {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime earlier = now.minusMinutes(1);
+        save(stat(100, now, 1), stat(90, earlier, 2), stat(100, earlier, 3),
+                stat(90, now, 4), stat(50, now, 5));
+
+        // Mismo score: primero la fecha más antigua
+        assertEquals(List.of(ranked(100, earlier), ranked(100, now), ranked(90, earlier),
+                ranked(90, now), ranked(50, now)), ranked(store.getTopN(GAME, 10, 0)));
+        assertEquals(List.of(ranked(90, earlier), ranked(90, now)),
+                ranked(store.getTopN(GAME, 2, 2)));
+        assertEquals(ranked(store.getTopN(GAME, 3, 0)), ranked(store.getTop3(GAME)));
+        assertEquals(100.0, store.getHighScore(GAME), 0.0);
+        assertTrue(store.getTopN("Desconocido", 3, 0).isEmpty());
+    }
+
+    public void testHistoryPagesCoverEveryRowOnce() throws Exception {
+        for (int i = 0; i < 7; i++) {
+            // Dos partidas por minuto: el cursor debe desempatar por id
+            save(stat(i * 10, DAY.plusMinutes(i / 2), i));
+        }
+
+        List<Long> paged = new ArrayList<>();
+        StatsCursor cursor = null;
+        int pages = 0;
+        do {
+            StatsPage page = store.getStatsPage(GAME, StatsFilter.all().withAllStats(), cursor, 3);
+            assertTrue(page.getRows().size() <= 3);
+            paged.addAll(tags(page.getRows()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        // De la más reciente a la más antigua, sin huecos ni repetidas
+        assertEquals(List.of(6L, 5L, 4L, 3L, 2L, 1L, 0L), paged);
+        assertEquals(3, pages);
+
+        StatsPage range = store.getStatsPage(GAME,
+                StatsFilter.between(DAY.plusMinutes(1), DAY.plusMinutes(3)).withAllStats(), null, 10);
+        assertEquals(List.of(5L, 4L, 3L, 2L), tags(range.getRows()));
+        assertFalse(range.hasMore());
+
+        StatsHistory history = store.getAllStats(GAME);
+        assertEquals(7, history.size());
+        assertTrue(history.isExact());
+    }
+
+    public void testRankAndPercentileShareTies() throws Exception {
+        assertTrue(Double.isNaN(store.scoreAtPercentile(GAME, 50)));
+
+        save(stat(10, DAY, 0), stat(20, DAY, 1), stat(20, DAY, 2), stat(30, DAY, 3),
+                stat(40, DAY, 4));
+
+        assertRank(1, 5, store.rankOf(GAME, 40));
+        assertRank(3, 5, store.rankOf(GAME, 20));
+        assertRank(3, 5, store.rankOf(GAME, 25));
+        assertRank(6, 5, store.rankOf(GAME, 5));
+
+        // Rango más cercano: k = ceil(p / 100 * n)
+        assertEquals(10.0, store.scoreAtPercentile(GAME, 0), 0.0);
+        assertEquals(10.0, store.scoreAtPercentile(GAME, 20), 0.0);
+        assertEquals(20.0, store.scoreAtPercentile(GAME, 21), 0.0);
+        assertEquals(20.0, store.scoreAtPercentile(GAME, 60), 0.0);
+        assertEquals(40.0, store.scoreAtPercentile(GAME, 100), 0.0);
+
+        // Las escrituras posteriores actualizan el índice ya cargado
+        save(stat(50, DAY, 5));
+        assertRank(2, 6, store.rankOf(GAME, 40));
+
+        try {
+            store.scoreAtPercentile(GAME, 101);
+            fail("Percentil fuera de rango aceptado");
+        } catch (IllegalArgumentException expected) {
+            // igual en los dos motores
+        }
+    }
+
+    public void testAggregateScoresIsHalfOpen() throws Exception {
+        save(stat(10, DAY.minusMinutes(1), 0),
+                stat(20, DAY.plusMinutes(30), 1),
+                stat(30, DAY.plusHours(2), 2),
+                stat(40, DAY.plusDays(1).plusHours(5), 3),
+                stat(50, DAY.plusDays(2), 4));
+
+        // Hora parcial, horas completas y día completo en el mismo rango
+        StatAggregate aggregate = store.aggregateScores(GAME, DAY.plusMinutes(15), DAY.plusDays(2));
+        assertEquals(3, aggregate.getCount());
+        assertEquals(90.0, aggregate.getSum(), 0.0);
+        assertEquals(20.0, aggregate.getMin(), 0.0);
+        assertEquals(40.0, aggregate.getMax(), 0.0);
+        assertEquals(30.0, aggregate.getMean(), 1e-9);
+
+        StatAggregate all = store.aggregateScores(GAME, DAY.minusDays(1), DAY.plusDays(3));
+        assertEquals(5, all.getCount());
+        assertEquals(Math.sqrt(200), all.getStdDev(), 1e-9);
+
+        StatAggregate empty = store.aggregateScores(GAME, DAY.plusHours(3), DAY.plusHours(4));
+        assertEquals(0, empty.getCount());
+        assertTrue(Double.isNaN(empty.getMax()));
+        assertEquals(0, store.aggregateScores(GAME, DAY, DAY).getCount());
+    }
+
+    public void testCompactionKeepsTopNAndSummarizesTheRest() throws Exception {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime old = now.minusDays(400).truncatedTo(ChronoUnit.DAYS).plusHours(12);
+
+        save(stat(100, old, 0), stat(15, old, 1), stat(12, old, 2), stat(55, old, 3),
+                stat(60, now, 4), stat(5, now, 5));
+
+        RetentionPolicy policy = RetentionPolicy.olderThan(Duration.ofDays(30))
+                .withKeepTopN(2)
+                .withBinWidth(10);
+        assertEquals(3, store.compactOldStats(policy));
+        assertEquals(0, store.compactOldStats(policy));
+
+        assertEquals(List.of(ranked(100, old), ranked(60, now), ranked(5, now)),
+                ranked(store.getTopN(GAME, 10, 0)));
+
+        StatsHistory history = store.getAllStats(GAME);
+        assertEquals(3, history.size());
+        assertFalse(history.isExact());
+        assertEquals(3, history.getCompactedPlays());
+
+        // 15 y 12 caen en [10, 20); 55 en [50, 60)
+        Map<Double, Long> bins = new HashMap<>();
+        for (ScoreHistogramBin bin : history.getHistogram()) {
+            assertEquals(old.truncatedTo(ChronoUnit.DAYS), bin.getDay());
+            assertEquals(10.0, bin.getBinWidth(), 0.0);
+            bins.put(bin.getBinStart(), bin.getPlays());
+        }
+        assertEquals(Map.of(10.0, 2L, 50.0, 1L), bins);
+
+        // El ranking sigue contando las compactadas, cada una en la media de su intervalo
+        assertRank(2, 6, store.rankOf(GAME, 60));
+        assertRank(4, 6, store.rankOf(GAME, 50));
+        assertEquals(13.5, store.scoreAtPercentile(GAME, 50), 0.0);
+    }
+
+    public void testInterruptedCompactionStopsAfterCurrentGame() throws Exception {
+        LocalDateTime old = LocalDateTime.now(ZoneOffset.UTC).minusDays(400);
+        store.saveStatsBatch(List.of(
+                new GameStats("Arkanoid", new HashMap<>(Map.of("score", 5.0)), old),
+                new GameStats("Arkanoid", new HashMap<>(Map.of("score", 6.0)), old)));
+        save(stat(10, old, 0), stat(20, old, 1), stat(30, old, 2));
+
+        RetentionPolicy policy = RetentionPolicy.olderThan(Duration.ofDays(30)).withKeepTopN(0);
+        Thread.currentThread().interrupt();
+        int compacted;
+        try {
+            compacted = store.compactOldStats(policy);
+        } finally {
+            Thread.interrupted();
+        }
+
+        // Termina el primer juego y deja el resto para la siguiente pasada
+        assertEquals(2, compacted);
+        assertEquals(3, store.getAllStats(GAME).size());
+        assertEquals(3, store.compactOldStats(policy));
+    }
+
+    public void testIntegerExtrasComeBackAsLong() throws Exception {
+        Map<String, Object> values = new HashMap<>();
+        values.put("score", 7);
+        values.put("level", 3);
+        values.put("perfect", true);
+        store.saveStats(GAME, values);
+
+        StatsPage page = store.getStatsPage(GAME, StatsFilter.all().withAllStats(), null, 1);
+        Map<String, Object> stats = page.getRows().get(0).getStats();
+        assertEquals(7.0, ((Number) stats.get("score")).doubleValue(), 0.0);
+        assertEquals(3L, stats.get("level"));
+        assertEquals(Boolean.TRUE, stats.get("perfect"));
+    }
+
+    public void testExportImportRoundTripsAcrossEngines() throws Exception {
+        store.addGame(GAME, "/juegos/tetris.jar");
+        save(stat(30, DAY, 0), stat(10, DAY.plusHours(1), 1), stat(20, DAY.plusDays(1), 2));
+
+        for (TransferFormat format : TransferFormat.values()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            TransferReport exported = store.exportStats(out, format);
+            assertEquals(1, exported.getGames());
+            assertEquals(3, exported.getRows());
+            assertEquals(0, exported.getSkipped());
+
+            try (InMemoryStatsStore copy = new InMemoryStatsStore()) {
+                copy.init();
+                TransferReport imported = copy.importStats(
+                        new ByteArrayInputStream(out.toByteArray()), format);
+                assertEquals(3, imported.getRows());
+
+                assertEquals("/juegos/tetris.jar", copy.getAllGamesWithPaths().get(GAME));
+                assertEquals(ranked(store.getTopN(GAME, 10, 0)), ranked(copy.getTopN(GAME, 10, 0)));
+                assertEquals(3, copy.aggregateScores(GAME, DAY, DAY.plusDays(2)).getCount());
+            }
+        }
+
+        // Importar en el propio almacén añade las partidas otra vez
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        store.exportStats(out, TransferFormat.CSV);
+        store.importStats(new ByteArrayInputStream(out.toByteArray()), TransferFormat.CSV);
+        assertRank(1, 6, store.rankOf(GAME, 30));
+        assertEquals("/juegos/tetris.jar", store.getAllGamesWithPaths().get(GAME));
+    }
+
+    public void testUpdateGamePathInsertsOrReplaces() throws Exception {
+        store.updateGamePath("Snake", "/juegos/snake-1.0.jar");
+        store.addGame(GAME, "/juegos/tetris.jar");
+        store.updateGamePath("Snake", "plugins/snake-1.1.jar");
+
+        assertEquals(Map.of("Snake", "plugins/snake-1.1.jar", GAME, "/juegos/tetris.jar"),
+                store.getAllGamesWithPaths());
+    }
+
+    private void save(GameStats... stats) throws Exception {
+        store.saveStatsBatch(List.of(stats));
+    }
+
+    /**
+     * @param tag marca para reconocer la fila al leerla
+     */
+    private static GameStats stat(double score, LocalDateTime date, long tag) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("score", score);
+        values.put("tag", tag);
+        return new GameStats(GAME, values, date);
+    }
+
+    private static List<Long> tags(List<GameStats> rows) {
+        List<Long> tags = new ArrayList<>();
+        for (GameStats row : rows) {
+            tags.add(((Number) row.getStats().get("tag")).longValue());
+        }
+        return tags;
+    }
+
+    private static String ranked(double score, LocalDateTime date) {
+        return score + "@" + date;
+    }
+
+    /**
+     * @return score y fecha de cada fila (sin extras, como devuelve el ranking)
+     */
+    private static List<String> ranked(List<GameStats> rows) {
+        List<String> ranked = new ArrayList<>();
+        for (GameStats row : rows) {
+            ranked.add(ranked(((Number) row.getStats().get("score")).doubleValue(),
+                    row.getTimestamp()));
+        }
+        return ranked;
+    }
+
+    private static void assertRank(long rank, long total, ScoreRank actual) {
+        assertEquals(rank, actual.getRank());
+        assertEquals(total, actual.getTotal());
+    }
+}
@@ -0,0 +1,47 @@
+package com.nintecdo.persistence;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Partidas con fechas nulas, ilegibles o en ISO al exportar.
+ */
+public class StatsTransferTest extends TestCase {
+
+    public void testCsvSkipsUnreadableDates() throws Exception {
+        assertSkipsUnreadableDates(TransferFormat.CSV);
+    }
+
+    public void testBinarySkipsUnreadableDates() throws Exception {
+        assertSkipsUnreadableDates(TransferFormat.BINARY);
+    }
+
+    private static void assertSkipsUnreadableDates(TransferFormat format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StatsTransfer.Sink sink = StatsTransfer.writer(out, format);
+        sink.game("Snake", "/juegos/snake.jar");
+        assertTrue(sink.stat("Snake", 10, "2024-03-10 10:15:30"));
+        assertFalse(sink.stat("Snake", 20, null));
+        assertFalse(sink.stat("Snake", 30, "ayer"));
+        // Formato ISO de versiones antiguas: se normaliza en vez de omitirse
+        assertTrue(sink.stat("Snake", 40, "2024-03-10T10:15:31.250"));
+        sink.finish();
+
+        StatsTransfer.Source source = StatsTransfer.reader(
+                new ByteArrayInputStream(out.toByteArray()), format);
+        List<String> rows = new ArrayList<>();
+        StatsTransfer.Row row;
+        while ((row = source.next()) != null) {
+            rows.add(row.isGame() ? row.gameName + " " + row.filePath
+                    : row.gameName + " " + row.score + " " + row.date);
+        }
+
+        assertEquals(List.of("Snake /juegos/snake.jar",
+                "Snake 10.0 2024-03-10 10:15:30",
+                "Snake 40.0 2024-03-10 10:15:31"), rows);
+    }
+}